@@ -0,0 +1,13 @@
+module tr.com.logidex.cad.logidexcadinterpreter {
+    requires java.sql;
+    requires java.desktop;
+    requires jdk.unsupported;
+
+
+    exports tr.com.logidex.cad.geometry;
+    exports tr.com.logidex.cad.helper;
+    exports tr.com.logidex.cad.model;
+    exports tr.com.logidex.cad.processor;
+    exports tr.com.logidex.cad;
+
+}
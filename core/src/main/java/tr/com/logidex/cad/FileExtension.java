@@ -0,0 +1,46 @@
+package tr.com.logidex.cad;
+
+public enum FileExtension {
+    HPGL("HPGL Files","hpgl"),
+    PLT("PLT Files","plt"),
+    HPG("HPG Files","hpg"),
+    CUT("CUT Files","cut"),
+    GGT("GGT Files","ggt"),
+    CAM("CAM Files","cam");
+    private String description;
+    private String extension;
+
+    FileExtension(String description, String extension) {
+        this.description = description;
+        this.extension = extension;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * @param fileName A file name, with or without a directory part
+     * @return The extension matching the name's suffix (case-insensitive), or null if none does
+     */
+    public static FileExtension fromFileName(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        if (dot < 0) {
+            return null;
+        }
+
+        String suffix = fileName.substring(dot + 1);
+        for (FileExtension fileExtension : values()) {
+            if (fileExtension.extension.equalsIgnoreCase(suffix)) {
+                return fileExtension;
+            }
+        }
+        return null;
+    }
+
+
+}
@@ -1,18 +1,18 @@
 package tr.com.logidex.cad;
 
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Line;
 import tr.com.logidex.cad.model.ClosedShape;
+import tr.com.logidex.cad.model.PackedPolyline;
+import tr.com.logidex.cad.model.ShapeColor;
 
-import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class SvgGenerationService {
 
     // Sabitler (Zoom, transformasyon ve seçili olma durumu kaldırıldı)
     private static final double DEFAULT_LINE_WIDTH = 2.0; // Sabit çizgi kalınlığı
     private static final double DEFAULT_FILL_ALPHA = 0.3; // Sabit dolgu şeffaflığı
-    private static final Color DEFAULT_COLOR = Color.rgb(100, 150, 255, 1.0); // Varsayılan tam renk
+    private static final ShapeColor DEFAULT_COLOR = ShapeColor.rgb(100, 150, 255, 1.0); // Varsayılan tam renk
 
     /**
      * Kapalı şekilden ham koordinatları kullanarak SVG <polygon> dizesi oluşturur.
@@ -21,20 +21,20 @@ public class SvgGenerationService {
      * @return SVG <polygon> etiketini içeren String.
      */
     public static String generateSvgForShape(ClosedShape shape,double scale,String strokeColorName,String fillColorName) {
-        List<Line> lines = shape.getLines();
-        if (lines.size() < 3) {
+        PackedPolyline polyline = shape.getPolyline();
+        if (polyline.segmentCount() < 3) {
             return ""; // SVG <polygon> için en az üç nokta gereklidir.
         }
 
-        Color color = shape.getColor();
+        ShapeColor color = shape.getColor();
         if (color == null) {
             color = DEFAULT_COLOR;
         }
 
         // 1. Noktaları Topla ve SVG "points" dizesini oluştur (Ham Koordinatlar Kullanılır)
         // Yalnızca başlangıç noktalarını kullanırız.
-        String pointsString = lines.stream()
-                .map(line -> String.format("%.2f,%.2f", line.getStartX() * scale, line.getStartY() * scale))
+        String pointsString = IntStream.range(0, polyline.segmentCount())
+                .mapToObj(k -> String.format("%.2f,%.2f", polyline.startX(k) * scale, polyline.startY(k) * scale))
                 .collect(Collectors.joining(" "));
 
         // 2. Stroke (Çizgi) Stilleri
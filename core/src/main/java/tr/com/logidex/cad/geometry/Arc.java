@@ -0,0 +1,54 @@
+package tr.com.logidex.cad.geometry;
+
+/**
+ * An immutable open circular or elliptical arc, with the same parameters as javafx.scene.shape.Arc:
+ * angles are in degrees, counter-clockwise positive, and length is the signed sweep.
+ */
+public final class Arc {
+
+    private final double centerX;
+    private final double centerY;
+    private final double radiusX;
+    private final double radiusY;
+    private final double startAngle;
+    private final double length;
+
+    public Arc(double centerX, double centerY, double radiusX, double radiusY, double startAngle, double length) {
+        this.centerX = centerX;
+        this.centerY = centerY;
+        this.radiusX = radiusX;
+        this.radiusY = radiusY;
+        this.startAngle = startAngle;
+        this.length = length;
+    }
+
+    public double getCenterX() {
+        return centerX;
+    }
+
+    public double getCenterY() {
+        return centerY;
+    }
+
+    public double getRadiusX() {
+        return radiusX;
+    }
+
+    public double getRadiusY() {
+        return radiusY;
+    }
+
+    public double getStartAngle() {
+        return startAngle;
+    }
+
+    public double getLength() {
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        return "Arc[centerX=" + centerX + ", centerY=" + centerY + ", radiusX=" + radiusX
+                + ", radiusY=" + radiusY + ", startAngle=" + startAngle + ", length=" + length + "]";
+    }
+}
@@ -0,0 +1,102 @@
+package tr.com.logidex.cad.geometry;
+
+/**
+ * An immutable axis-aligned rectangle, in place of the 2D part of javafx.geometry.BoundingBox.
+ */
+public final class BoundingBox {
+
+    private final double minX;
+    private final double minY;
+    private final double width;
+    private final double height;
+
+    public BoundingBox(double minX, double minY, double width, double height) {
+        this.minX = minX;
+        this.minY = minY;
+        this.width = width;
+        this.height = height;
+    }
+
+    public double getMinX() {
+        return minX;
+    }
+
+    public double getMinY() {
+        return minY;
+    }
+
+    public double getMaxX() {
+        return minX + width;
+    }
+
+    public double getMaxY() {
+        return minY + height;
+    }
+
+    public double getWidth() {
+        return width;
+    }
+
+    public double getHeight() {
+        return height;
+    }
+
+    public boolean isEmpty() {
+        return getMaxX() < getMinX() || getMaxY() < getMinY();
+    }
+
+    /**
+     * @return true if the point lies inside or on the border
+     */
+    public boolean contains(double x, double y) {
+        if (isEmpty()) {
+            return false;
+        }
+        return x >= minX && x <= getMaxX() && y >= minY && y <= getMaxY();
+    }
+
+    public boolean contains(Point2D p) {
+        return p != null && contains(p.getX(), p.getY());
+    }
+
+    /**
+     * @return true if the boxes share at least one point
+     */
+    public boolean intersects(BoundingBox other) {
+        if (isEmpty() || other == null || other.isEmpty()) {
+            return false;
+        }
+        return other.getMaxX() >= minX && other.getMinX() <= getMaxX()
+                && other.getMaxY() >= minY && other.getMinY() <= getMaxY();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (obj instanceof BoundingBox) {
+            BoundingBox other = (BoundingBox) obj;
+            return minX == other.getMinX() && minY == other.getMinY()
+                    && width == other.getWidth() && height == other.getHeight();
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        long bits = 1L;
+        bits = 31L * bits + Double.doubleToLongBits(minX);
+        bits = 31L * bits + Double.doubleToLongBits(minY);
+        bits = 31L * bits + Double.doubleToLongBits(width);
+        bits = 31L * bits + Double.doubleToLongBits(height);
+        return (int) (bits ^ (bits >> 32));
+    }
+
+    @Override
+    public String toString() {
+        return "BoundingBox [minX:" + getMinX() + ", minY:" + getMinY()
+                + ", width:" + getWidth() + ", height:" + getHeight()
+                + ", maxX:" + getMaxX() + ", maxY:" + getMaxY() + "]";
+    }
+}
@@ -0,0 +1,48 @@
+package tr.com.logidex.cad.geometry;
+
+/**
+ * An immutable width and height, in place of javafx.geometry.Dimension2D.
+ */
+public final class Dimension2D {
+
+    private final double width;
+    private final double height;
+
+    public Dimension2D(double width, double height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    public double getWidth() {
+        return width;
+    }
+
+    public double getHeight() {
+        return height;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (obj instanceof Dimension2D) {
+            Dimension2D other = (Dimension2D) obj;
+            return getWidth() == other.getWidth() && getHeight() == other.getHeight();
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        long bits = 7L;
+        bits = 31L * bits + Double.doubleToLongBits(getWidth());
+        bits = 31L * bits + Double.doubleToLongBits(getHeight());
+        return (int) (bits ^ (bits >> 32));
+    }
+
+    @Override
+    public String toString() {
+        return "Dimension2D [width = " + getWidth() + ", height = " + getHeight() + "]";
+    }
+}
@@ -0,0 +1,103 @@
+package tr.com.logidex.cad.geometry;
+
+/**
+ * An immutable 2D point, with the same methods and equality as javafx.geometry.Point2D
+ * so the processing core does not need the JavaFX graphics module.
+ */
+public final class Point2D {
+
+    public static final Point2D ZERO = new Point2D(0, 0);
+
+    private final double x;
+    private final double y;
+
+    public Point2D(double x, double y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public double distance(double x1, double y1) {
+        double a = getX() - x1;
+        double b = getY() - y1;
+        return Math.sqrt(a * a + b * b);
+    }
+
+    public double distance(Point2D point) {
+        return distance(point.getX(), point.getY());
+    }
+
+    public Point2D add(double x, double y) {
+        return new Point2D(getX() + x, getY() + y);
+    }
+
+    public Point2D add(Point2D point) {
+        return add(point.getX(), point.getY());
+    }
+
+    public Point2D subtract(double x, double y) {
+        return new Point2D(getX() - x, getY() - y);
+    }
+
+    public Point2D subtract(Point2D point) {
+        return subtract(point.getX(), point.getY());
+    }
+
+    public Point2D midpoint(Point2D point) {
+        return new Point2D(x + (point.getX() - x) / 2.0, y + (point.getY() - y) / 2.0);
+    }
+
+    /**
+     * Computes the angle (in degrees) between the vectors from this point to p1 and p2.
+     *
+     * @return The angle in [0, 180], or NaN if either vector has zero length
+     */
+    public double angle(Point2D p1, Point2D p2) {
+        double ax = p1.getX() - x;
+        double ay = p1.getY() - y;
+        double bx = p2.getX() - x;
+        double by = p2.getY() - y;
+
+        double delta = (ax * bx + ay * by) / Math.sqrt((ax * ax + ay * ay) * (bx * bx + by * by));
+
+        if (delta > 1.0) {
+            return 0.0;
+        }
+        if (delta < -1.0) {
+            return 180.0;
+        }
+        return Math.toDegrees(Math.acos(delta));
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (obj instanceof Point2D) {
+            Point2D other = (Point2D) obj;
+            return getX() == other.getX() && getY() == other.getY();
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        long bits = 7L;
+        bits = 31L * bits + Double.doubleToLongBits(getX());
+        bits = 31L * bits + Double.doubleToLongBits(getY());
+        return (int) (bits ^ (bits >> 32));
+    }
+
+    @Override
+    public String toString() {
+        return "Point2D [x = " + getX() + ", y = " + getY() + "]";
+    }
+}
@@ -0,0 +1,103 @@
+package tr.com.logidex.cad.helper;
+
+import tr.com.logidex.cad.FileExtension;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * A gzip file or a zip archive entry opened as a decompressing stream, so an archived
+ * marker can be processed without extracting it to disk first.
+ */
+public final class CompressedFile implements Closeable {
+
+    private static final String GZIP_SUFFIX = ".gz";
+    private static final String ZIP_SUFFIX = ".zip";
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final InputStream stream;
+    private final String entryName;
+
+    private CompressedFile(InputStream stream, String entryName) {
+        this.stream = stream;
+        this.entryName = entryName;
+    }
+
+    /**
+     * @return true if the file name ends with .gz or .zip
+     */
+    public static boolean isCompressed(Path path) {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(GZIP_SUFFIX) || name.endsWith(ZIP_SUFFIX);
+    }
+
+    /**
+     * Opens the compressed content. For a gzip file the inner name is the file name without ".gz".
+     * For a zip archive the first entry with a known CAD extension is used.
+     *
+     * @param path A file for which isCompressed is true
+     * @return The opened content; the caller must close it
+     * @throws IOException If the file cannot be read or the archive holds no CAD file
+     */
+    public static CompressedFile open(Path path) throws IOException {
+        String fileName = path.getFileName().toString();
+        InputStream in = new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE);
+
+        try {
+            if (fileName.toLowerCase(Locale.ROOT).endsWith(GZIP_SUFFIX)) {
+                String innerName = fileName.substring(0, fileName.length() - GZIP_SUFFIX.length());
+                return new CompressedFile(new GZIPInputStream(in, BUFFER_SIZE), innerName);
+            }
+            return openZipEntry(path, new ZipInputStream(in));
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    private static CompressedFile openZipEntry(Path path, ZipInputStream zip) throws IOException {
+        ZipEntry entry;
+        while ((entry = zip.getNextEntry()) != null) {
+            if (!entry.isDirectory() && FileExtension.fromFileName(entry.getName()) != null) {
+                return new CompressedFile(zip, entry.getName());
+            }
+        }
+
+        zip.close();
+        throw new IOException("Archive contains no CAD file: " + path);
+    }
+
+    /**
+     * @return The decompressed content
+     */
+    public InputStream getStream() {
+        return stream;
+    }
+
+    /**
+     * @return The name of the compressed file, as stored in the archive
+     */
+    public String getEntryName() {
+        return entryName;
+    }
+
+    /**
+     * @return The extension of the compressed file, or null if its name has no known one
+     */
+    public FileExtension getEntryExtension() {
+        return FileExtension.fromFileName(entryName);
+    }
+
+    @Override
+    public void close() throws IOException {
+        stream.close();
+    }
+}
@@ -1,6 +1,6 @@
 package tr.com.logidex.cad.helper;
 
-import javafx.geometry.Point2D;
+import tr.com.logidex.cad.geometry.Point2D;
 import tr.com.logidex.cad.processor.FlipHorizontally;
 import tr.com.logidex.cad.processor.FlipVertically;
 import tr.com.logidex.cad.model.Lbl;
@@ -20,6 +20,9 @@ public class LabelGroupingManager {
     private static final int MAX_SINGLE_LINE_LENGTH = 150;
     private static final char CARRIAGE_RETURN = 0x0d;
 
+    // Shared texts of the marker's labels
+    private final StringPool texts;
+
     // State
     private ArrayList<Lbl> lbls;
     private ArrayList<ArrayList<Lbl>> groupedLabels;
@@ -31,6 +34,17 @@ public class LabelGroupingManager {
     private double totalWidth;
     private double totalHeight;
 
+    public LabelGroupingManager() {
+        this(new StringPool());
+    }
+
+    /**
+     * @param texts The pool the consolidated label texts are interned in
+     */
+    public LabelGroupingManager(StringPool texts) {
+        this.texts = texts;
+    }
+
     /**
      * Groups and sorts labels based on proximity and orientation.
      *
@@ -209,7 +223,7 @@ public class LabelGroupingManager {
         for (Lbl label : group) {
             sb.append(label.getText()).append(CARRIAGE_RETURN);
         }
-        return sb.toString();
+        return texts.intern(sb, 0, sb.length());
     }
 
     /**
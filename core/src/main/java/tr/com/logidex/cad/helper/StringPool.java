@@ -0,0 +1,115 @@
+package tr.com.logidex.cad.helper;
+
+/**
+ * A per-marker table of distinct strings. Labels of a marker repeat the same sizes, bundles and
+ * style names thousands of times; looking them up here makes them share one String each.
+ * <p>
+ * Unlike String.intern the pool is dropped together with its marker, and a range of a CharSequence
+ * can be looked up without creating a String unless it is new. Lookups are synchronized, so chunks
+ * parsed in parallel can share a pool.
+ */
+public final class StringPool {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    // Open addressing with linear probing; null for a free slot
+    private String[] table = new String[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Creates an empty pool.
+     */
+    public StringPool() {
+    }
+
+    /**
+     * @return The pooled string equal to text, which becomes the pooled one if there is none yet
+     */
+    public String intern(String text) {
+        return text == null ? null : intern(text, 0, text.length());
+    }
+
+    /**
+     * @return The pooled string equal to text[from, to), created only if there is none yet
+     */
+    public synchronized String intern(CharSequence text, int from, int to) {
+        int hash = hash(text, from, to);
+        int mask = table.length - 1;
+        int slot = spread(hash) & mask;
+
+        String pooled;
+        while ((pooled = table[slot]) != null) {
+            if (pooled.hashCode() == hash && contentEquals(pooled, text, from, to)) {
+                return pooled;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        pooled = text instanceof String && from == 0 && to == text.length()
+                ? (String) text
+                : text.subSequence(from, to).toString();
+        table[slot] = pooled;
+
+        // Keep the load factor at or below one half
+        if (++size * 2 > table.length) {
+            rehash();
+        }
+        return pooled;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized void clear() {
+        table = new String[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    private void rehash() {
+        String[] old = table;
+        table = new String[old.length * 2];
+        int mask = table.length - 1;
+        for (String pooled : old) {
+            if (pooled != null) {
+                int slot = spread(pooled.hashCode()) & mask;
+                while (table[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = pooled;
+            }
+        }
+    }
+
+    /**
+     * Same as String.hashCode of the range, so pooled strings can use their cached hash.
+     */
+    private static int hash(CharSequence text, int from, int to) {
+        int h = 0;
+        for (int i = from; i < to; i++) {
+            h = 31 * h + text.charAt(i);
+        }
+        return h;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean contentEquals(String pooled, CharSequence text, int from, int to) {
+        if (pooled.length() != to - from) {
+            return false;
+        }
+        for (int i = 0; i < pooled.length(); i++) {
+            if (pooled.charAt(i) != text.charAt(from + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "StringPool[strings=" + size() + "]";
+    }
+}
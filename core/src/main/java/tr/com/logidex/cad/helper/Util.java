@@ -1,21 +1,17 @@
 package tr.com.logidex.cad.helper;
 
-import javafx.geometry.Point2D;
-import javafx.scene.image.ImageView;
-import javafx.scene.image.WritableImage;
-import javafx.scene.layout.Pane;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Line;
-import javafx.scene.shape.Polygon;
-import javafx.scene.shape.Rectangle;
-import tr.com.logidex.cad.model.CoordinateBounds;
+import tr.com.logidex.cad.geometry.Point2D;
 
 
 import java.awt.geom.Line2D;
 import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
 
 /**
@@ -23,7 +19,6 @@ import java.util.List;
  * - File I/O operations
  * - Unit conversions
  * - Coordinate transformations
- * - Image generation from line data
  */
 public class Util {
 
@@ -52,101 +47,26 @@ public class Util {
         return new String(encoded, encoding);
     }
 
-    // ==================== Image Generation ====================
-
     /**
-     * Creates an ImageView from a list of lines representing a shape.
-     * The image is scaled to fit within the specified maximum dimensions.
+     * Maps a file read-only into memory.
+     * The mapping stays valid after the channel is closed.
      *
-     * @param lines The lines forming the shape
-     * @param maxWidth Maximum width for the image
-     * @param maxHeight Maximum height for the image
-     * @return An ImageView containing the rendered shape
+     * @param path The file path to map
+     * @return The mapped buffer covering the whole file
+     * @throws IOException If an I/O error occurs or the file is larger than a buffer can address
      */
-    public static ImageView createImageViewFromLines(List<Line> lines, double maxWidth, double maxHeight) {
-        Pane pane = createPaneWithBackground(maxWidth, maxHeight);
-        CoordinateBounds bounds = findMinMaxCoordinates(lines);
-
-        if (bounds == null) {
-            return createEmptyImageView(maxWidth, maxHeight);
+    public static MappedByteBuffer mapFile(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File is too large to map (" + size + " bytes): " + path);
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
         }
-
-        Polygon polygon = createPolygonFromLines(lines, bounds);
-        pane.getChildren().add(polygon);
-
-        return createImageViewFromPane(pane, maxWidth, maxHeight);
-    }
-
-    private static Pane createPaneWithBackground(double width, double height) {
-        Pane pane = new Pane();
-        Rectangle background = new Rectangle(width, height);
-        background.setFill(Color.TRANSPARENT);
-        return pane;
-    }
-
-    private static Polygon createPolygonFromLines(List<Line> lines, CoordinateBounds bounds) {
-        Polygon polygon = new Polygon();
-
-        for (Line line : lines) {
-            double x1 = line.getStartX() - bounds.getMinX();
-            double y1 = line.getStartY() - bounds.getMinY();
-            double x2 = line.getEndX() - bounds.getMinX();
-            double y2 = line.getEndY() - bounds.getMinY();
-
-            polygon.getPoints().addAll(x2, y2, x1, y1);
-        }
-
-        polygon.setScaleY(-1); // Flip vertically
-        return polygon;
-    }
-
-    private static ImageView createImageViewFromPane(Pane pane, double maxWidth, double maxHeight) {
-        WritableImage writableImage = pane.snapshot(null, null);
-        ImageView imageView = new ImageView(writableImage);
-
-        imageView.setPreserveRatio(true);
-        imageView.setFitWidth(maxWidth);
-        imageView.setFitHeight(maxHeight);
-
-        return imageView;
-    }
-
-    private static ImageView createEmptyImageView(double maxWidth, double maxHeight) {
-        ImageView imageView = new ImageView();
-        imageView.setFitWidth(maxWidth);
-        imageView.setFitHeight(maxHeight);
-        return imageView;
     }
 
     // ==================== Coordinate Operations ====================
 
-    /**
-     * Finds the minimum and maximum coordinates from a list of lines.
-     *
-     * @param lines The lines to analyze
-     * @return A CoordinateBounds object containing min/max coordinates, or null if list is empty
-     */
-    public static CoordinateBounds findMinMaxCoordinates(List<Line> lines) {
-        if (lines == null || lines.isEmpty()) {
-            return null;
-        }
-
-        Line firstLine = lines.get(0);
-        double minX = firstLine.getStartX();
-        double minY = firstLine.getStartY();
-        double maxX = firstLine.getStartX();
-        double maxY = firstLine.getStartY();
-
-        for (Line line : lines) {
-            minX = Math.min(minX, Math.min(line.getStartX(), line.getEndX()));
-            minY = Math.min(minY, Math.min(line.getStartY(), line.getEndY()));
-            maxX = Math.max(maxX, Math.max(line.getStartX(), line.getEndX()));
-            maxY = Math.max(maxY, Math.max(line.getStartY(), line.getEndY()));
-        }
-
-        return new CoordinateBounds(minX, minY, maxX, maxY);
-    }
-
     /**
      * Reverts (rotates) a point by swapping coordinates and negating X.
      * Transforms (x, y) to (y, -x).
@@ -318,20 +238,6 @@ public class Util {
     }
 
 
-    public static Polygon producePolygon(List<Line> lines) {
-        Polygon polygon = new Polygon();
-
-
-        for (Line line : lines) {
-            polygon.getPoints().add(line.getStartX());
-            polygon.getPoints().add(line.getStartY());
-            polygon.getPoints().add(line.getEndX());
-            polygon.getPoints().add(line.getEndY());
-        }
-        return polygon;
-    }
-
-
     public static boolean isNear(Point2D p1, Point2D p2, double tolerance) {
         return Math.abs(p1.distance(p2)) < tolerance;
     }
@@ -1,13 +1,8 @@
 package tr.com.logidex.cad.model;
 
-import javafx.geometry.BoundingBox;
-import javafx.geometry.Point2D;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Line;
-import tr.com.logidex.cad.helper.Util;
-
-import java.util.ArrayList;
-import java.util.List;
+import tr.com.logidex.cad.geometry.BoundingBox;
+import tr.com.logidex.cad.geometry.Point2D;
+
 import java.util.Random;
 
 /**
@@ -24,13 +19,13 @@ public class ClosedShape {
     private static final double DEFAULT_OPACITY = 0.5;
 
     // Core properties
-    private final List<Line> lines;
+    private final PackedPolyline polyline;
     private final boolean isGGTFile;
-    private final Color originalColor;
+    private final ShapeColor originalColor;
 
     // Mutable state
     private Lbl label;
-    private Color color;
+    private ShapeColor color;
     private Point2D center;
     private BoundingBox bounds;
     private boolean calculatedCenterPointIsInThisShape;
@@ -42,63 +37,75 @@ public class ClosedShape {
     // Bounds cache
     private double minX, maxX, minY, maxY;
 
-    public ClosedShape(List<Line> lines, boolean isGGTFile) {
-        this.lines = new ArrayList<>(lines);
+    // Exact bounds of the polygon contains() tests, kept up to date with the polyline
+    private double outlineMinX, outlineMinY, outlineMaxX, outlineMaxY;
+
+    // Flat copy of a heap polyline's outline, built on the first point-in-polygon test that gets past
+    // the bounds and dropped whenever the polyline changes. Off-heap, fixed-point and pooled polylines
+    // are scanned in place instead, so the storage they were chosen for is not duplicated on the heap.
+    private Outline outline;
+
+    /**
+     * @param polyline The segments forming the shape; shared, so mirroring the shape mirrors it too
+     * @param isGGTFile true if the shape comes from a GGT file
+     */
+    public ClosedShape(PackedPolyline polyline, boolean isGGTFile) {
+        this.polyline = polyline;
         this.isGGTFile = isGGTFile;
         this.color = generateRandomColor();
         this.originalColor = this.color;
         analyzePath();
     }
 
+    /**
+     * Restores a shape whose center was worked out in an earlier run, e.g. read back from the
+     * processed-marker cache. Only the bounds are recomputed.
+     *
+     * @param polyline The segments forming the shape
+     * @param isGGTFile true if the shape comes from a GGT file
+     * @param center The center, after relocateOriginX
+     * @param calculatedCenterPointIsInThisShape Whether the center lies inside the shape
+     */
+    public ClosedShape(PackedPolyline polyline, boolean isGGTFile, Point2D center, boolean calculatedCenterPointIsInThisShape) {
+        this.polyline = polyline;
+        this.isGGTFile = isGGTFile;
+        this.color = generateRandomColor();
+        this.originalColor = this.color;
+        this.center = center;
+        this.calculatedCenterPointIsInThisShape = calculatedCenterPointIsInThisShape;
+        calculateBounds();
+        calculateOutlineBounds();
+        bounds = new BoundingBox(minX, minY, maxX - minX, maxY - minY);
+    }
+
     // ==================== Static Utility Methods ====================
 
     /**
      * Performs the even-odd-rule ray casting algorithm to determine if a point
      * is inside a polygon.
      *
-     * @param lines The lines forming the polygon
+     * @param polyline The segments forming the polygon
      * @param p The point to test
      * @return true if the point is inside the polygon
      */
-    public static boolean pointInPolygon(List<Line> lines, Point2D p) {
-        double[][] polygon = extractPolygonCoordinates(lines);
-        double[] point = {p.getX(), p.getY()};
-
-        boolean odd = false;
-        int j = polygon.length - 1;
-
-        for (int i = 0; i < polygon.length; i++) {
-            if (((polygon[i][1] > point[1]) != (polygon[j][1] > point[1])) &&
-                    (point[0] < (polygon[j][0] - polygon[i][0]) * (point[1] - polygon[i][1]) /
-                            (polygon[j][1] - polygon[i][1]) + polygon[i][0])) {
-                odd = !odd;
-            }
-            j = i;
-        }
-
-        return odd;
+    public static boolean pointInPolygon(PackedPolyline polyline, Point2D p) {
+        return polyline.contains(p.getX(), p.getY());
     }
 
     /**
      * Calculates the centroid of a polygon using the standard algorithm.
      */
-    public static Point2D calculateCentroid(List<Line> lines) {
-        ArrayList<Double> xP = new ArrayList<>();
-        ArrayList<Double> yP = new ArrayList<>();
-
-        lines.forEach(line -> {
-            double x1 = line.getStartX();
-            double y1 = line.getStartY();
-            double x2 = line.getEndX();
-            double y2 = line.getEndY();
-            xP.add(x2);
-            xP.add(x1);
-            yP.add(y2);
-            yP.add(y1);
-        });
-
-        double[] x = Util.convertDoubles(xP);
-        double[] y = Util.convertDoubles(yP);
+    public static Point2D calculateCentroid(PackedPolyline polyline) {
+        int segments = polyline.segmentCount();
+        double[] x = new double[segments * 2];
+        double[] y = new double[segments * 2];
+
+        for (int k = 0; k < segments; k++) {
+            x[k * 2] = polyline.endX(k);
+            x[k * 2 + 1] = polyline.startX(k);
+            y[k * 2] = polyline.endY(k);
+            y[k * 2 + 1] = polyline.startY(k);
+        }
 
         return calculateCentroidFromCoordinates(x, y);
     }
@@ -106,34 +113,29 @@ public class ClosedShape {
     /**
      * Calculates the centroid for GGT file format with ordered point handling.
      */
-    public static Point2D calculateCentroidGGT(List<Line> lines) {
-        if (lines == null || lines.isEmpty()) {
+    public static Point2D calculateCentroidGGT(PackedPolyline polyline) {
+        int segments = polyline.segmentCount();
+        if (segments == 0) {
             return new Point2D(0, 0);
         }
 
-        List<Point2D> orderedPoints = new ArrayList<>();
-        orderedPoints.add(new Point2D(lines.get(0).getStartX(), lines.get(0).getStartY()));
-
-        for (int i = 0; i < lines.size(); i++) {
-            Line currentLine = lines.get(i);
-            Point2D endPoint = new Point2D(currentLine.getEndX(), currentLine.getEndY());
+        // The start of the first segment, then every end point except one that closes the outline
+        double firstX = polyline.startX(0);
+        double firstY = polyline.startY(0);
+        boolean closed = polyline.endX(segments - 1) == firstX && polyline.endY(segments - 1) == firstY;
 
-            if (i < lines.size() - 1 || !endPoint.equals(orderedPoints.get(0))) {
-                orderedPoints.add(endPoint);
-            }
-        }
-
-        int n = orderedPoints.size();
+        int n = closed ? segments : segments + 1;
         if (n < 3) {
             return new Point2D(0, 0);
         }
 
         double[] x = new double[n];
         double[] y = new double[n];
-
-        for (int i = 0; i < n; i++) {
-            x[i] = orderedPoints.get(i).getX();
-            y[i] = orderedPoints.get(i).getY();
+        x[0] = firstX;
+        y[0] = firstY;
+        for (int i = 1; i < n; i++) {
+            x[i] = polyline.endX(i - 1);
+            y[i] = polyline.endY(i - 1);
         }
 
         return calculateCentroidFromCoordinates(x, y);
@@ -141,15 +143,6 @@ public class ClosedShape {
 
     // ==================== Private Static Helpers ====================
 
-    private static double[][] extractPolygonCoordinates(List<Line> lines) {
-        double[][] polygon = new double[lines.size()][2];
-        for (int i = 0; i < lines.size(); i++) {
-            polygon[i][0] = lines.get(i).getStartX();
-            polygon[i][1] = lines.get(i).getStartY();
-        }
-        return polygon;
-    }
-
     private static Point2D calculateCentroidFromCoordinates(double[] x, double[] y) {
         int n = x.length;
         double a, cx, cy, t;
@@ -188,9 +181,9 @@ public class ClosedShape {
         return new Point2D(cx, cy);
     }
 
-    private static Color generateRandomColor() {
+    private static ShapeColor generateRandomColor() {
         Random random = new Random();
-        return Color.rgb(
+        return ShapeColor.rgb(
                 random.nextInt(256),
                 random.nextInt(100),
                 random.nextInt(256),
@@ -201,23 +194,49 @@ public class ClosedShape {
     // ==================== Instance Methods ====================
 
     private void analyzePath() {
+        outline = null;
         calculateBounds();
-        center = isGGTFile ? calculateCentroidGGT(lines) : calculateCentroid(lines);
-        calculatedCenterPointIsInThisShape = pointInPolygon(lines, center);
+        calculateOutlineBounds();
+        center = isGGTFile ? calculateCentroidGGT(polyline) : calculateCentroid(polyline);
+        // A single test, so the polyline is scanned in place rather than copied
+        calculatedCenterPointIsInThisShape = outlineBoundsContain(center.getX(), center.getY())
+                && polyline.contains(center.getX(), center.getY());
         bounds = new BoundingBox(minX, minY, maxX - minX, maxY - minY);
     }
 
+    private void calculateOutlineBounds() {
+        double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY;
+        double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY;
+        for (int k = 0; k < polyline.segmentCount(); k++) {
+            double x = polyline.startX(k);
+            double y = polyline.startY(k);
+            x0 = Math.min(x0, x);
+            y0 = Math.min(y0, y);
+            x1 = Math.max(x1, x);
+            y1 = Math.max(y1, y);
+        }
+        outlineMinX = x0;
+        outlineMinY = y0;
+        outlineMaxX = x1;
+        outlineMaxY = y1;
+    }
+
+    private boolean outlineBoundsContain(double x, double y) {
+        // No edge is crossed outside the box, and an even number is crossed left of it
+        return x >= outlineMinX && x <= outlineMaxX && y >= outlineMinY && y <= outlineMaxY;
+    }
+
     private void calculateBounds() {
         double xMax = 0;
         double yMax = 0;
         double xMin = Double.MAX_VALUE;
         double yMin = Double.MAX_VALUE;
 
-        for (Line l : lines) {
-            double endpx = l.getEndX();
-            double endpy = l.getEndY();
-            double startpx = l.getStartX();
-            double startpy = l.getStartY();
+        for (int k = 0; k < polyline.segmentCount(); k++) {
+            double endpx = polyline.endX(k);
+            double endpy = polyline.endY(k);
+            double startpx = polyline.startX(k);
+            double startpy = polyline.startY(k);
             if (endpx > xMax) {
                 xMax = endpx;
             }
@@ -245,19 +264,13 @@ public class ClosedShape {
     // ==================== Transformation Methods ====================
 
     public void mirrorX(double pastalWidth) {
-        for (Line line : lines) {
-            line.setStartX(pastalWidth - line.getStartX());
-            line.setEndX(pastalWidth - line.getEndX());
-        }
+        polyline.mirrorX(pastalWidth);
         analyzePath();
         relocateOriginX();
     }
 
     public void mirrorY(double pastalHeight) {
-        for (Line line : lines) {
-            line.setStartY(pastalHeight - line.getStartY());
-            line.setEndY(pastalHeight - line.getEndY());
-        }
+        polyline.mirrorY(pastalHeight);
         analyzePath();
         relocateOriginX();
     }
@@ -359,7 +372,7 @@ public class ClosedShape {
     }
 
     private boolean isPointInside() {
-        return pointInPolygon(lines, center);
+        return contains(center.getX(), center.getY());
     }
 
     private boolean isValidCenter() {
@@ -432,10 +445,55 @@ public class ClosedShape {
         return calculatedCenterPointIsInThisShape;
     }
 
-    public List<Line> getLines() {
-        return new ArrayList<>(lines);
+    /**
+     * @return true if the point lies inside the shape, by the even-odd rule
+     */
+    public boolean contains(Point2D p) {
+        return contains(p.getX(), p.getY());
     }
 
+    /**
+     * Same as {@link PackedPolyline#contains(double, double)}, but points outside the bounding box
+     * are rejected without a scan, and a heap polyline is scanned over flat copies of its vertices
+     * that are kept between calls.
+     */
+    public boolean contains(double x, double y) {
+        if (!outlineBoundsContain(x, y)) {
+            return false;
+        }
+        if (polyline.isOffHeap() || polyline.isFixedPoint() || polyline.isPooled()) {
+            return polyline.contains(x, y);
+        }
+
+        Outline o = outline;
+        if (o == null) {
+            o = new Outline(polyline);
+            outline = o;
+        }
+        return o.contains(x, y);
+    }
+
+    /**
+     * @return true if contains() has built a flat copy of the outline
+     */
+    boolean hasOutlineCopy() {
+        return outline != null;
+    }
+
+    /**
+     * @return The exact bounds of the polygon contains() tests; getBounds() only approximates
+     * them, e.g. for an outline that is not closed
+     */
+    public BoundingBox getOutlineBounds() {
+        return new BoundingBox(outlineMinX, outlineMinY, outlineMaxX - outlineMinX, outlineMaxY - outlineMinY);
+    }
+
+    public PackedPolyline getPolyline() {
+        return polyline;
+    }
+
+
+
     public boolean isShapeSelected() {
         return shapeSelected;
     }
@@ -444,11 +502,11 @@ public class ClosedShape {
         this.shapeSelected = shapeSelected;
     }
 
-    public Color getColor() {
+    public ShapeColor getColor() {
         return color;
     }
 
-    public void setColor(Color color) {
+    public void setColor(ShapeColor color) {
         this.color = color;
     }
 
@@ -464,6 +522,10 @@ public class ClosedShape {
         this.shapePrinted = shapePrinted;
     }
 
+    public boolean isGGTFile() {
+        return isGGTFile;
+    }
+
     public boolean isShapeLocked() {
         return shapeLocked;
     }
@@ -480,14 +542,15 @@ public class ClosedShape {
 
     @Override
     public String toString() {
-        return String.format("ClosedShape[id=%s, label=%s, center=%s]", id, label, center);
+        // Leaves out the label, which may still change while a streamed shape is being logged
+        return String.format("ClosedShape[id=%s, center=%s]", id, center);
     }
 
     public void printLinePoints() {
         StringBuilder sb = new StringBuilder();
-        for (Line line : lines) {
-            sb.append(line.getEndX()).append(" , ").append(line.getEndY()).append(" , ")
-                    .append(line.getStartX()).append(" , ").append(line.getStartY()).append(" , ");
+        for (int k = 0; k < polyline.segmentCount(); k++) {
+            sb.append(polyline.endX(k)).append(" , ").append(polyline.endY(k)).append(" , ")
+                    .append(polyline.startX(k)).append(" , ").append(polyline.startY(k)).append(" , ");
         }
 
         if (sb.length() > 0) {
@@ -499,6 +562,42 @@ public class ClosedShape {
 
     // ==================== Inner Classes ====================
 
+    /**
+     * The polygon of the segments' start points as flat arrays. Immutable, so a shape tested from
+     * several threads at once at worst builds it twice.
+     */
+    private static final class Outline {
+        private final double[] xs;
+        private final double[] ys;
+
+        Outline(PackedPolyline polyline) {
+            int n = polyline.segmentCount();
+            xs = new double[n];
+            ys = new double[n];
+            for (int k = 0; k < n; k++) {
+                xs[k] = polyline.startX(k);
+                ys[k] = polyline.startY(k);
+            }
+        }
+
+        boolean contains(double x, double y) {
+            int n = xs.length;
+            boolean odd = false;
+            double xj = xs[n - 1];
+            double yj = ys[n - 1];
+            for (int k = 0; k < n; k++) {
+                double xi = xs[k];
+                double yi = ys[k];
+                if (((yi > y) != (yj > y)) && (x < (xj - xi) * (y - yi) / (yj - yi) + xi)) {
+                    odd = !odd;
+                }
+                xj = xi;
+                yj = yi;
+            }
+            return odd;
+        }
+    }
+
     private enum AxisDirection {
         HORIZONTAL, VERTICAL
     }
@@ -0,0 +1,118 @@
+package tr.com.logidex.cad.model;
+
+import java.util.Arrays;
+
+/**
+ * Identifies a piece by the shape of its outline, so that a contour written twice to the file is
+ * recognised whatever vertex it starts at and whichever way round it is drawn.
+ * <p>
+ * The outline is the ring of the segments' start points, as in contains(). Its vertices are rounded
+ * to a quantum, repeated points are dropped, and the ring is rotated to start at its smallest vertex
+ * and turned to the direction that reads smaller. Equal fingerprints therefore mean equal rings up
+ * to the quantum; the hash is only used to find candidates.
+ */
+public final class GeometryFingerprint {
+
+    /**
+     * A micrometre, far below any plotter's resolution.
+     */
+    public static final double DEFAULT_QUANTUM = 0.001;
+
+    // x0, y0, x1, y1, ... of the canonical ring
+    private final long[] ring;
+    private final int hash;
+
+    private GeometryFingerprint(long[] ring) {
+        this.ring = ring;
+        this.hash = Arrays.hashCode(ring);
+    }
+
+    public static GeometryFingerprint of(PackedPolyline polyline) {
+        return of(polyline, DEFAULT_QUANTUM);
+    }
+
+    public static GeometryFingerprint of(PackedPolyline polyline, double quantum) {
+        int segments = polyline.segmentCount();
+        long[] points = new long[segments * 2];
+        int n = 0;
+        for (int k = 0; k < segments; k++) {
+            long x = Math.round(polyline.startX(k) / quantum);
+            long y = Math.round(polyline.startY(k) / quantum);
+            if (n == 0 || points[(n - 1) * 2] != x || points[(n - 1) * 2 + 1] != y) {
+                points[n * 2] = x;
+                points[n * 2 + 1] = y;
+                n++;
+            }
+        }
+        // The ring closes by itself, so a last point equal to the first is a repeat too
+        while (n > 1 && points[(n - 1) * 2] == points[0] && points[(n - 1) * 2 + 1] == points[1]) {
+            n--;
+        }
+
+        int smallest = 0;
+        for (int vertex = 1; vertex < n; vertex++) {
+            if (compare(points, vertex, points[smallest * 2], points[smallest * 2 + 1]) < 0) {
+                smallest = vertex;
+            }
+        }
+
+        // Usually the smallest vertex occurs once, leaving only its two directions to compare
+        long[] best = null;
+        for (int start = 0; start < n; start++) {
+            if (compare(points, start, points[smallest * 2], points[smallest * 2 + 1]) != 0) {
+                continue;
+            }
+            for (int direction = 1; direction >= -1; direction -= 2) {
+                long[] candidate = walk(points, n, start, direction);
+                if (best == null || Arrays.compare(candidate, best) < 0) {
+                    best = candidate;
+                }
+            }
+        }
+        return new GeometryFingerprint(best == null ? new long[0] : best);
+    }
+
+    /**
+     * @return The ring read from the given vertex in the given direction
+     */
+    private static long[] walk(long[] points, int n, int start, int direction) {
+        long[] ring = new long[n * 2];
+        for (int i = 0; i < n; i++) {
+            int vertex = Math.floorMod(start + i * direction, n);
+            ring[i * 2] = points[vertex * 2];
+            ring[i * 2 + 1] = points[vertex * 2 + 1];
+        }
+        return ring;
+    }
+
+    private static int compare(long[] points, int vertex, long x, long y) {
+        int c = Long.compare(points[vertex * 2], x);
+        return c != 0 ? c : Long.compare(points[vertex * 2 + 1], y);
+    }
+
+    /**
+     * @return The number of distinct consecutive vertices of the outline
+     */
+    public int vertexCount() {
+        return ring.length / 2;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof GeometryFingerprint)) {
+            return false;
+        }
+        GeometryFingerprint other = (GeometryFingerprint) o;
+        return hash == other.hash && Arrays.equals(ring, other.ring);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "GeometryFingerprint[vertices=" + vertexCount() + ", hash=" + Integer.toHexString(hash) + "]";
+    }
+}
@@ -0,0 +1,172 @@
+package tr.com.logidex.cad.model;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Off-heap memory for the coordinates of one marker, so that very large nests do not fill the
+ * Java heap and lengthen GC pauses. Memory is taken in slabs of direct ByteBuffers and handed out
+ * as addresses that polylines keep instead of arrays. A polyline looks up its slab once, when it
+ * moves in, and reads from it directly from then on.
+ * <p>
+ * release() frees all slabs at once by running the buffers' cleaners, instead of waiting for the
+ * garbage collector. Nothing may read the store while or after it is released; readers check
+ * that once per operation.
+ */
+public final class GeometryStore implements AutoCloseable {
+
+    public static final int DEFAULT_SLAB_SIZE = 16 << 20;
+
+    private static final Cleaner CLEANER = Cleaner.find();
+
+    private final int slabSize;
+    private ByteBuffer[] slabs = new ByteBuffer[4];
+    private int slabCount;
+    private ByteBuffer current;
+    private long allocatedBytes;
+    private volatile boolean released;
+
+    public GeometryStore() {
+        this(DEFAULT_SLAB_SIZE);
+    }
+
+    /**
+     * @param slabSize The size of each block of memory taken from the system; larger requests get a slab of their own
+     */
+    public GeometryStore(int slabSize) {
+        if (slabSize < Double.BYTES) {
+            throw new IllegalArgumentException("Slab size is too small: " + slabSize);
+        }
+        this.slabSize = slabSize;
+    }
+
+    /**
+     * Reserves room for the given number of doubles.
+     *
+     * @return The address of the first one
+     */
+    public synchronized long allocateDoubles(int count) {
+        checkNotReleased();
+        int bytes = Math.multiplyExact(count, Double.BYTES);
+
+        if (current == null || current.remaining() < bytes) {
+            current = ByteBuffer.allocateDirect(Math.max(slabSize, bytes)).order(ByteOrder.nativeOrder());
+            if (slabCount == slabs.length) {
+                slabs = Arrays.copyOf(slabs, slabCount * 2);
+            }
+            slabs[slabCount++] = current;
+        }
+
+        long address = ((long) (slabCount - 1) << 32) | current.position();
+        current.position(current.position() + bytes);
+        allocatedBytes += bytes;
+        return address;
+    }
+
+    public double getDouble(long address, int index) {
+        return slab(address).getDouble(offset(address) + index * Double.BYTES);
+    }
+
+    public void putDouble(long address, int index, double value) {
+        slab(address).putDouble(offset(address) + index * Double.BYTES, value);
+    }
+
+    /**
+     * @return The slab an address points into, to be read at offset(address)
+     */
+    ByteBuffer slab(long address) {
+        checkNotReleased();
+        return slabs[(int) (address >>> 32)];
+    }
+
+    /**
+     * @return The byte offset of an address within its slab
+     */
+    static int offset(long address) {
+        return (int) address;
+    }
+
+    /**
+     * @return The number of bytes handed out so far
+     */
+    public synchronized long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public boolean isReleased() {
+        return released;
+    }
+
+    /**
+     * Frees all memory of the store. Addresses handed out before are invalid afterwards.
+     */
+    public synchronized void release() {
+        if (released) {
+            return;
+        }
+        released = true;
+
+        if (CLEANER != null) {
+            for (int i = 0; i < slabCount; i++) {
+                CLEANER.clean(slabs[i]);
+            }
+        }
+        Arrays.fill(slabs, null);
+        slabCount = 0;
+        current = null;
+    }
+
+    @Override
+    public void close() {
+        release();
+    }
+
+    void checkNotReleased() {
+        if (released) {
+            throw new IllegalStateException("The geometry store has been released");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "GeometryStore[" + (released ? "released" : getAllocatedBytes() + " bytes") + "]";
+    }
+
+    // ==================== Runtime Support ====================
+
+    /**
+     * Frees a direct ByteBuffer right away through sun.misc.Unsafe.invokeCleaner, where available.
+     */
+    private static final class Cleaner {
+
+        private final Object unsafe;
+        private final Method invokeCleaner;
+
+        private Cleaner(Object unsafe, Method invokeCleaner) {
+            this.unsafe = unsafe;
+            this.invokeCleaner = invokeCleaner;
+        }
+
+        static Cleaner find() {
+            try {
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                return new Cleaner(theUnsafe.get(null), unsafeClass.getMethod("invokeCleaner", ByteBuffer.class));
+            } catch (Throwable e) {
+                return null;
+            }
+        }
+
+        void clean(ByteBuffer buffer) {
+            try {
+                invokeCleaner.invoke(unsafe, buffer);
+            } catch (ReflectiveOperationException e) {
+                // Left to the garbage collector
+            }
+        }
+    }
+}
@@ -1,16 +1,18 @@
 package tr.com.logidex.cad.model;
 
-import javafx.beans.property.SimpleObjectProperty;
-import javafx.geometry.Point2D;
+import tr.com.logidex.cad.geometry.Point2D;
 import tr.com.logidex.cad.processor.FileProcessor;
 import tr.com.logidex.cad.Unit;
 import tr.com.logidex.cad.helper.Util;
 
 import java.text.DecimalFormat;
+import java.util.function.Consumer;
 
 /**
  * Represents a label in a CAD system with position, rotation, and dimension properties.
  * Labels can be associated with closed shapes and support position tracking and conversion.
+ * Like the rest of the model, a label is not thread-safe: it belongs to the thread that processes
+ * its marker and, once shown, to the UI thread.
  */
 public class Lbl {
 
@@ -25,39 +27,65 @@ public class Lbl {
     private final double width;
     private final double height;
 
-    // Position tracking
-    private final SimpleObjectProperty<Point2D> position;
-    private final Point2D originalXY;
+    // Position tracking; kept as primitives so headless runs do not pay for a property per label
+    private double x;
+    private double y;
+    private final double originalX;
+    private final double originalY;
+
+    // Told about every new position, e.g. by an observable wrapper in the UI; null for none
+    private Consumer<Point2D> positionListener;
 
     // Associated shape
     private ClosedShape shape;
 
     public Lbl(String text, Point2D pos, double angle, double origin, double width, double height) {
         this.text = text;
-        this.position = new SimpleObjectProperty<>(pos);
+        this.x = pos.getX();
+        this.y = pos.getY();
         this.angle = angle;
         this.origin = origin;
         this.width = width;
         this.height = height;
-        this.originalXY = new Point2D(pos.getX(), pos.getY());
+        this.originalX = pos.getX();
+        this.originalY = pos.getY();
     }
 
     // ==================== Position Management ====================
 
     public Point2D getPosition() {
-        return position.get();
+        return new Point2D(x, y);
     }
 
     public void setPosition(Point2D position) {
-        this.position.set(position);
+        x = position.getX();
+        y = position.getY();
+        if (positionListener != null) {
+            positionListener.accept(position);
+        }
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public Consumer<Point2D> getPositionListener() {
+        return positionListener;
     }
 
-    public SimpleObjectProperty<Point2D> positionProperty() {
-        return position;
+    /**
+     * @param positionListener Called with the new position whenever it is set, or null for none
+     */
+    public void setPositionListener(Consumer<Point2D> positionListener) {
+        this.positionListener = positionListener;
     }
 
     public Point2D getOriginalXY() {
-        return originalXY;
+        return new Point2D(originalX, originalY);
     }
 
     /**
@@ -67,8 +95,7 @@ public class Lbl {
      * @param yOffset The offset to apply to the y-coordinate
      */
     public void offsetLabelPosition(double xOffset, double yOffset) {
-        Point2D currentPos = position.get();
-        position.set(new Point2D(currentPos.getX() + xOffset, currentPos.getY() + yOffset));
+        setPosition(new Point2D(getX() + xOffset, getY() + yOffset));
     }
 
     /**
@@ -77,7 +104,7 @@ public class Lbl {
      * @param newPoint The new position for the label
      */
     public void changeLabelPosition(Point2D newPoint) {
-        position.set(newPoint);
+        setPosition(newPoint);
     }
 
     /**
@@ -86,7 +113,7 @@ public class Lbl {
      * @return true if the position has changed, false otherwise
      */
     public boolean isLabelPositionChanged() {
-        return position.get().distance(originalXY) != 0;
+        return getPosition().distance(originalX, originalY) != 0;
     }
 
     // ==================== Position Formatting ====================
@@ -98,9 +125,8 @@ public class Lbl {
      * @return Formatted position string (e.g., "x=10.50 y=20.75")
      */
     public String getPrintablePosition() {
-        Point2D currentPos = position.get();
-        double x = currentPos.getX();
-        double y = currentPos.getY();
+        double x = getX();
+        double y = getY();
 
         if (FileProcessor.unit == Unit.IN) {
             x = Util.mmToInch(x);
@@ -154,9 +180,8 @@ public class Lbl {
 
     @Override
     public String toString() {
-        Point2D currentPos = position.get();
-        String formattedX = String.format(POSITION_FORMAT, currentPos.getX());
-        String formattedY = String.format(POSITION_FORMAT, currentPos.getY());
+        String formattedX = String.format(POSITION_FORMAT, getX());
+        String formattedY = String.format(POSITION_FORMAT, getY());
         return text + "\n[x=" + formattedX + " , y=" + formattedY + "]";
     }
 }
\ No newline at end of file
@@ -0,0 +1,287 @@
+package tr.com.logidex.cad.model;
+
+import tr.com.logidex.cad.geometry.BoundingBox;
+import tr.com.logidex.cad.geometry.Point2D;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Finds the pieces of a marker that lie on top of each other.
+ * <p>
+ * Candidate pairs come from a sweep over the outline bounds along x: shapes are visited by their
+ * left edge and only compared with the still open ones whose bounds also overlap in y. Each
+ * candidate pair is then tested exactly. Two pieces overlap when the center of one falls inside
+ * the other, when an edge of one crosses an edge of the other, or when a vertex of one lies deeper
+ * inside the other than a tolerance.
+ * <p>
+ * Pieces cut along a common line have nearly collinear edges there, which touch or cross each other
+ * by a fraction of a millimetre. A crossing only counts where both edges reach farther than the
+ * tolerance past each other's line on both sides, which such pairs never do.
+ */
+public final class OverlapChecker {
+
+    /**
+     * In drawing units, i.e. mm. Shared cut lines in the sample markers reach up to about 1.4 mm into the neighbour.
+     *
+     * @see tr.com.logidex.cad.processor.FileProcessor#setOverlapTolerance(double)
+     */
+    public static final double DEFAULT_TOLERANCE = 2;
+
+    // Prevent instantiation
+    private OverlapChecker() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    public static List<Pair> findOverlaps(List<ClosedShape> shapes) {
+        return findOverlaps(shapes, DEFAULT_TOLERANCE);
+    }
+
+    /**
+     * @param tolerance How far a piece may reach into another without counting as an overlap
+     * @return The overlapping pairs, ordered by the shapes' positions in the list
+     */
+    public static List<Pair> findOverlaps(List<ClosedShape> shapes, double tolerance) {
+        int n = shapes.size();
+        BoundingBox[] bounds = new BoundingBox[n];
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            bounds[i] = sweepBounds(shapes.get(i));
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingDouble(i -> bounds[i].getMinX()));
+
+        List<int[]> found = new ArrayList<>();
+        int[] open = new int[n];
+        int openCount = 0;
+
+        for (int i : order) {
+            BoundingBox b = bounds[i];
+            if (!(b.getWidth() >= 0 && b.getHeight() >= 0)) {
+                continue;
+            }
+
+            // Drop the shapes that end left of this one; the rest overlap it in x
+            int kept = 0;
+            for (int k = 0; k < openCount; k++) {
+                int j = open[k];
+                if (bounds[j].getMaxX() >= b.getMinX()) {
+                    open[kept++] = j;
+
+                    if (bounds[j].getMinY() <= b.getMaxY() && b.getMinY() <= bounds[j].getMaxY()
+                            && overlap(shapes.get(i), shapes.get(j), tolerance)) {
+                        found.add(new int[]{Math.min(i, j), Math.max(i, j)});
+                    }
+                }
+            }
+            openCount = kept;
+            open[openCount++] = i;
+        }
+
+        found.sort(Comparator.<int[]>comparingInt(p -> p[0]).thenComparingInt(p -> p[1]));
+        List<Pair> pairs = new ArrayList<>(found.size());
+        for (int[] p : found) {
+            pairs.add(new Pair(shapes.get(p[0]).getId(), shapes.get(p[1]).getId()));
+        }
+        return pairs;
+    }
+
+    /**
+     * The outline bounds grown to take in the center, which may lie outside a concave outline.
+     */
+    private static BoundingBox sweepBounds(ClosedShape shape) {
+        BoundingBox b = shape.getOutlineBounds();
+        Point2D center = shape.getCenter();
+        if (center == null || !(b.getWidth() >= 0 && b.getHeight() >= 0) || b.contains(center)) {
+            return b;
+        }
+        double minX = Math.min(b.getMinX(), center.getX());
+        double minY = Math.min(b.getMinY(), center.getY());
+        return new BoundingBox(minX, minY,
+                Math.max(b.getMaxX(), center.getX()) - minX, Math.max(b.getMaxY(), center.getY()) - minY);
+    }
+
+    /**
+     * @return true if one shape's center lies inside the other, their outlines cross, or one
+     * reaches deeper than the tolerance into the other
+     */
+    public static boolean overlap(ClosedShape a, ClosedShape b, double tolerance) {
+        if (containsCenter(a, b) || containsCenter(b, a)) {
+            return true;
+        }
+        return outlinesCross(a, b, tolerance) || reachesInto(a, b, tolerance) || reachesInto(b, a, tolerance);
+    }
+
+    private static boolean containsCenter(ClosedShape shape, ClosedShape other) {
+        Point2D center = other.getCenter();
+        return center != null && shape.contains(center.getX(), center.getY());
+    }
+
+    /**
+     * Tests the edges of the polygons contains() works on, i.e. those of the segments' start points.
+     * Only edges inside the other shape's bounds are compared, and pairs along a shared cut line are skipped.
+     */
+    private static boolean outlinesCross(ClosedShape a, ClosedShape b, double tolerance) {
+        double[] edgesA = edgesWithin(a.getPolyline(), b.getOutlineBounds());
+        if (edgesA.length == 0) {
+            return false;
+        }
+        double[] edgesB = edgesWithin(b.getPolyline(), a.getOutlineBounds());
+
+        for (int i = 0; i < edgesA.length; i += 4) {
+            for (int j = 0; j < edgesB.length; j += 4) {
+                double ax1 = edgesA[i], ay1 = edgesA[i + 1], ax2 = edgesA[i + 2], ay2 = edgesA[i + 3];
+                double bx1 = edgesB[j], by1 = edgesB[j + 1], bx2 = edgesB[j + 2], by2 = edgesB[j + 3];
+                if (properlyCross(ax1, ay1, ax2, ay2, bx1, by1, bx2, by2)
+                        && reachesPast(ax1, ay1, ax2, ay2, bx1, by1, bx2, by2, tolerance)
+                        && reachesPast(bx1, by1, bx2, by2, ax1, ay1, ax2, ay2, tolerance)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if both ends of the crossing edge lie farther than the tolerance from the other
+     * edge's line, i.e. the edges are neither collinear nor nearly so
+     */
+    private static boolean reachesPast(double x1, double y1, double x2, double y2,
+                                       double lineX1, double lineY1, double lineX2, double lineY2, double tolerance) {
+        double dx = lineX2 - lineX1;
+        double dy = lineY2 - lineY1;
+        double limit = tolerance * Math.hypot(dx, dy);
+        return Math.abs(dx * (y1 - lineY1) - dy * (x1 - lineX1)) > limit
+                && Math.abs(dx * (y2 - lineY1) - dy * (x2 - lineX1)) > limit;
+    }
+
+    /**
+     * @return true if a vertex of the shape lies inside the other one, farther than the tolerance from its outline
+     */
+    private static boolean reachesInto(ClosedShape shape, ClosedShape other, double tolerance) {
+        PackedPolyline polyline = shape.getPolyline();
+        double[] edges = null;
+
+        for (int k = 0; k < polyline.segmentCount(); k++) {
+            double x = polyline.startX(k);
+            double y = polyline.startY(k);
+            if (!other.contains(x, y)) {
+                continue;
+            }
+
+            if (edges == null) {
+                edges = edgesWithin(other.getPolyline(), other.getOutlineBounds());
+            }
+            if (distanceToEdges(x, y, edges, tolerance) > tolerance) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The distance from the point to the nearest edge, or any value up to the limit once an edge is that close
+     */
+    private static double distanceToEdges(double x, double y, double[] edges, double limit) {
+        double nearest = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < edges.length && nearest > limit; i += 4) {
+            nearest = Math.min(nearest, distanceToSegment(x, y, edges[i], edges[i + 1], edges[i + 2], edges[i + 3]));
+        }
+        return nearest;
+    }
+
+    private static double distanceToSegment(double px, double py, double x1, double y1, double x2, double y2) {
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, ((px - x1) * dx + (py - y1) * dy) / lengthSquared));
+        return Math.hypot(x1 + t * dx - px, y1 + t * dy - py);
+    }
+
+    /**
+     * @return x1, y1, x2, y2 of every edge whose bounds overlap the box
+     */
+    private static double[] edgesWithin(PackedPolyline polyline, BoundingBox box) {
+        int n = polyline.segmentCount();
+        double[] edges = new double[n * 4];
+        int size = 0;
+
+        for (int k = 0; k < n; k++) {
+            double x1 = polyline.startX(k);
+            double y1 = polyline.startY(k);
+            int next = k + 1 == n ? 0 : k + 1;
+            double x2 = polyline.startX(next);
+            double y2 = polyline.startY(next);
+
+            if (Math.max(x1, x2) >= box.getMinX() && Math.min(x1, x2) <= box.getMaxX()
+                    && Math.max(y1, y2) >= box.getMinY() && Math.min(y1, y2) <= box.getMaxY()) {
+                edges[size++] = x1;
+                edges[size++] = y1;
+                edges[size++] = x2;
+                edges[size++] = y2;
+            }
+        }
+        return Arrays.copyOf(edges, size);
+    }
+
+    /**
+     * @return true if the segments cross at a single point inside both; touching or collinear segments do not count
+     */
+    static boolean properlyCross(double ax1, double ay1, double ax2, double ay2,
+                                 double bx1, double by1, double bx2, double by2) {
+        double d1 = orientation(bx1, by1, bx2, by2, ax1, ay1);
+        double d2 = orientation(bx1, by1, bx2, by2, ax2, ay2);
+        double d3 = orientation(ax1, ay1, ax2, ay2, bx1, by1);
+        double d4 = orientation(ax1, ay1, ax2, ay2, bx2, by2);
+        return d1 * d2 < 0 && d3 * d4 < 0;
+    }
+
+    private static double orientation(double x1, double y1, double x2, double y2, double px, double py) {
+        return Math.signum((x2 - x1) * (py - y1) - (y2 - y1) * (px - x1));
+    }
+
+    // ==================== Result ====================
+
+    /**
+     * Two overlapping pieces, by piece ID.
+     */
+    public static final class Pair {
+        private final Integer firstId;
+        private final Integer secondId;
+
+        public Pair(Integer firstId, Integer secondId) {
+            this.firstId = firstId;
+            this.secondId = secondId;
+        }
+
+        public Integer getFirstId() {
+            return firstId;
+        }
+
+        public Integer getSecondId() {
+            return secondId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Pair)) {
+                return false;
+            }
+            Pair other = (Pair) o;
+            return Objects.equals(firstId, other.firstId) && Objects.equals(secondId, other.secondId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(firstId, secondId);
+        }
+
+        @Override
+        public String toString() {
+            return firstId + "-" + secondId;
+        }
+    }
+}
@@ -0,0 +1,561 @@
+package tr.com.logidex.cad.model;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * The segments of one piece, stored as connected runs of vertices in a single interleaved
+ * x,y double array. A piece is normally one run, where segment k joins vertex k and vertex k + 1;
+ * a new run only starts where the knife lifts inside a piece.
+ * <p>
+ * Each vertex takes 16 bytes, against several hundred for a javafx Line with its property objects.
+ * Line instances for drawing are created from it by the JavaFX UI module.
+ * <p>
+ * A fixed-point polyline keeps each coordinate as an int count of a unit, normally one raw plotter
+ * step, in 8 bytes per vertex. Vertices are snapped to that grid when added, so equal points are
+ * exactly equal, and the unit is only multiplied in when a coordinate is read.
+ * <p>
+ * A pooled polyline keeps only an int index per vertex into a VertexPool shared by the marker,
+ * so a point on a cut line common to two pieces is stored once.
+ * <p>
+ * A completed polyline with double coordinates can be moved into a GeometryStore, after which it
+ * keeps only its slab of the store and an offset, and its coordinates live outside the Java heap.
+ */
+public final class PackedPolyline {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    // Plotter formats draw each segment from the new pen position back to the previous one
+    private final boolean reversed;
+    private double[] coords;
+    // Set instead of coords in fixed-point mode
+    private int[] fixedCoords;
+    private final double unit;
+    // Set instead of coords in pooled mode
+    private int[] vertexIndexes;
+    private final VertexPool pool;
+    // Set instead of coords once moved off-heap; the slab is looked up once, on moving
+    private GeometryStore store;
+    private ByteBuffer slab;
+    private int offset;
+    private int vertexCount;
+    private int[] runStarts = new int[1];
+    private int runCount;
+
+    /**
+     * @param reversed true if segments run from the later vertex to the earlier one,
+     *                 as HPGL and Gerber lines do
+     */
+    public PackedPolyline(boolean reversed) {
+        this(reversed, INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param reversed See PackedPolyline(boolean)
+     * @param vertexCapacity The number of vertices to reserve room for
+     */
+    public PackedPolyline(boolean reversed, int vertexCapacity) {
+        this.reversed = reversed;
+        this.coords = new double[Math.max(2, vertexCapacity * 2)];
+        this.unit = 1;
+        this.pool = null;
+    }
+
+    private PackedPolyline(boolean reversed, int vertexCapacity, double unit) {
+        if (!(unit > 0) || Double.isInfinite(unit)) {
+            throw new IllegalArgumentException("Fixed-point unit must be a positive number: " + unit);
+        }
+        this.reversed = reversed;
+        this.fixedCoords = new int[Math.max(2, vertexCapacity * 2)];
+        this.unit = unit;
+        this.pool = null;
+    }
+
+    private PackedPolyline(boolean reversed, int vertexCapacity, VertexPool pool) {
+        this.reversed = reversed;
+        this.vertexIndexes = new int[Math.max(1, vertexCapacity)];
+        this.unit = 1;
+        this.pool = pool;
+    }
+
+    /**
+     * Creates a polyline that stores coordinates as int multiples of the unit.
+     *
+     * @param reversed See PackedPolyline(boolean)
+     * @param unit The size of one grid step in drawing units, e.g. what one plotter unit scales to
+     */
+    public static PackedPolyline fixedPoint(boolean reversed, double unit) {
+        return new PackedPolyline(reversed, INITIAL_CAPACITY, unit);
+    }
+
+    /**
+     * Creates a polyline whose vertices are indexes into the pool.
+     *
+     * @param reversed See PackedPolyline(boolean)
+     * @param pool The marker's vertex pool
+     */
+    public static PackedPolyline pooled(boolean reversed, VertexPool pool) {
+        return new PackedPolyline(reversed, INITIAL_CAPACITY, Objects.requireNonNull(pool));
+    }
+
+    // ==================== Building ====================
+
+    /**
+     * Starts a new run at (x, y). A run that has no segment yet is moved instead.
+     */
+    public void moveTo(double x, double y) {
+        if (runCount > 0 && vertexCount - runStarts[runCount - 1] == 1) {
+            vertexCount--;
+        } else {
+            if (runCount == runStarts.length) {
+                runStarts = Arrays.copyOf(runStarts, runCount * 2);
+            }
+            runStarts[runCount++] = vertexCount;
+        }
+        addVertex(x, y);
+    }
+
+    /**
+     * Adds a segment from the last vertex to (x, y).
+     */
+    public void lineTo(double x, double y) {
+        if (vertexCount == 0) {
+            throw new IllegalStateException("lineTo before moveTo");
+        }
+        addVertex(x, y);
+    }
+
+    /**
+     * Appends a segment, continuing the current run if it starts where the run ends.
+     */
+    public void addSegment(double startX, double startY, double endX, double endY) {
+        double fromX = reversed ? endX : startX;
+        double fromY = reversed ? endY : startY;
+
+        if (vertexCount == 0 || !endsAt(fromX, fromY)) {
+            moveTo(fromX, fromY);
+        }
+        lineTo(reversed ? startX : endX, reversed ? startY : endY);
+    }
+
+    /**
+     * Releases the spare capacity once the polyline is complete.
+     */
+    public void trimToSize() {
+        if (store != null) {
+            return;
+        }
+        if (vertexIndexes != null) {
+            if (vertexIndexes.length > vertexCount) {
+                vertexIndexes = Arrays.copyOf(vertexIndexes, Math.max(1, vertexCount));
+            }
+        } else if (fixedCoords != null) {
+            if (fixedCoords.length > vertexCount * 2) {
+                fixedCoords = Arrays.copyOf(fixedCoords, vertexCount * 2);
+            }
+        } else if (coords.length > vertexCount * 2) {
+            coords = Arrays.copyOf(coords, vertexCount * 2);
+        }
+        if (runStarts.length > runCount && runCount > 0) {
+            runStarts = Arrays.copyOf(runStarts, runCount);
+        }
+    }
+
+    private void addVertex(double x, double y) {
+        if (store != null) {
+            throw new IllegalStateException("An off-heap polyline cannot be extended");
+        }
+        if (vertexIndexes != null) {
+            if (vertexCount == vertexIndexes.length) {
+                vertexIndexes = Arrays.copyOf(vertexIndexes, vertexIndexes.length * 2);
+            }
+            vertexIndexes[vertexCount] = pool.indexOf(x, y);
+        } else if (fixedCoords != null) {
+            if (vertexCount * 2 == fixedCoords.length) {
+                fixedCoords = Arrays.copyOf(fixedCoords, fixedCoords.length * 2);
+            }
+            fixedCoords[vertexCount * 2] = toFixed(x);
+            fixedCoords[vertexCount * 2 + 1] = toFixed(y);
+        } else {
+            if (vertexCount * 2 == coords.length) {
+                coords = Arrays.copyOf(coords, coords.length * 2);
+            }
+            coords[vertexCount * 2] = x;
+            coords[vertexCount * 2 + 1] = y;
+        }
+        vertexCount++;
+    }
+
+    private boolean endsAt(double x, double y) {
+        int last = vertexCount - 1;
+        if (vertexIndexes != null) {
+            return vertexIndexes[last] == pool.indexOf(x, y);
+        }
+        if (fixedCoords != null) {
+            return fixedCoords[last * 2] == toFixed(x) && fixedCoords[last * 2 + 1] == toFixed(y);
+        }
+        return sameBits(vertexX(last), x) && sameBits(vertexY(last), y);
+    }
+
+    /**
+     * @throws ArithmeticException If the coordinate is too far out to count in units
+     */
+    private int toFixed(double value) {
+        return Math.toIntExact(Math.round(value / unit));
+    }
+
+    // Exact match, so that a stored vertex reproduces the segment's own coordinates (-0.0 included)
+    private static boolean sameBits(double a, double b) {
+        return Double.doubleToRawLongBits(a) == Double.doubleToRawLongBits(b);
+    }
+
+    // ==================== Segments ====================
+
+    public int segmentCount() {
+        // Every run has one segment fewer than vertices
+        return vertexCount - runCount;
+    }
+
+    public double startX(int segment) {
+        return vertexX(startVertex(segment));
+    }
+
+    public double startY(int segment) {
+        return vertexY(startVertex(segment));
+    }
+
+    public double endX(int segment) {
+        return vertexX(endVertex(segment));
+    }
+
+    public double endY(int segment) {
+        return vertexY(endVertex(segment));
+    }
+
+    private int startVertex(int segment) {
+        int first = firstVertex(segment);
+        return reversed ? first + 1 : first;
+    }
+
+    private int endVertex(int segment) {
+        int first = firstVertex(segment);
+        return reversed ? first : first + 1;
+    }
+
+    /**
+     * @return The earlier of the segment's two vertices
+     */
+    private int firstVertex(int segment) {
+        if (runCount <= 1) {
+            return segment;
+        }
+
+        // Run r holds the segments from runStarts[r] - r on, so find the last run starting at or before the segment
+        int low = 0;
+        int high = runCount - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (runStarts[mid] - mid <= segment) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return segment + low;
+    }
+
+    // ==================== Vertices ====================
+
+    public boolean isReversed() {
+        return reversed;
+    }
+
+    public int vertexCount() {
+        return vertexCount;
+    }
+
+    public double vertexX(int vertex) {
+        checkReadable();
+        return x(vertex);
+    }
+
+    public double vertexY(int vertex) {
+        checkReadable();
+        return y(vertex);
+    }
+
+    // Unchecked reads, for loops that called checkReadable once
+    private double x(int vertex) {
+        if (vertexIndexes != null) {
+            return pool.x(vertexIndexes[vertex]);
+        }
+        if (slab != null) {
+            return slab.getDouble(offset + vertex * 2 * Double.BYTES);
+        }
+        return fixedCoords != null ? fixedCoords[vertex * 2] * unit : coords[vertex * 2];
+    }
+
+    private double y(int vertex) {
+        if (vertexIndexes != null) {
+            return pool.y(vertexIndexes[vertex]);
+        }
+        if (slab != null) {
+            return slab.getDouble(offset + (vertex * 2 + 1) * Double.BYTES);
+        }
+        return fixedCoords != null ? fixedCoords[vertex * 2 + 1] * unit : coords[vertex * 2 + 1];
+    }
+
+    /**
+     * @throws IllegalStateException If the polyline is off-heap and its store has been released
+     */
+    private void checkReadable() {
+        if (store != null) {
+            store.checkNotReleased();
+        }
+    }
+
+    public boolean isPooled() {
+        return vertexIndexes != null;
+    }
+
+    public boolean isOffHeap() {
+        return store != null;
+    }
+
+    /**
+     * Moves the coordinates of a completed polyline with double coordinates into the store,
+     * leaving only their place in the store on the heap. Other polylines are left as they are.
+     *
+     * @return true if the polyline was moved
+     */
+    public boolean moveOffHeap(GeometryStore target) {
+        if (coords == null) {
+            return false;
+        }
+        long allocated = target.allocateDoubles(Math.max(1, vertexCount * 2));
+        ByteBuffer targetSlab = target.slab(allocated);
+        int targetOffset = GeometryStore.offset(allocated);
+        for (int i = 0; i < vertexCount * 2; i++) {
+            targetSlab.putDouble(targetOffset + i * Double.BYTES, coords[i]);
+        }
+        store = target;
+        slab = targetSlab;
+        offset = targetOffset;
+        coords = null;
+        return true;
+    }
+
+    /**
+     * @return The pool a pooled polyline's vertices index into, null otherwise
+     */
+    public VertexPool getPool() {
+        return pool;
+    }
+
+    /**
+     * @return The pool index of a pooled polyline's vertex
+     */
+    public int poolIndex(int vertex) {
+        if (vertexIndexes == null) {
+            throw new IllegalStateException("Not a pooled polyline");
+        }
+        return vertexIndexes[vertex];
+    }
+
+    /**
+     * Identifies a pooled polyline's segment by its two pool indexes, regardless of direction,
+     * so segments of different pieces along the same cut line have the same key.
+     */
+    public long edgeKey(int segment) {
+        int first = firstVertex(segment);
+        int a = poolIndex(first);
+        int b = poolIndex(first + 1);
+        return ((long) Math.min(a, b) << 32) | Math.max(a, b);
+    }
+
+    public boolean isFixedPoint() {
+        return fixedCoords != null;
+    }
+
+    /**
+     * @return The size of one grid step of a fixed-point polyline, 1 otherwise
+     */
+    public double getUnit() {
+        return unit;
+    }
+
+    /**
+     * @return The x coordinate of a fixed-point polyline's vertex in units
+     */
+    public int fixedX(int vertex) {
+        return requireFixedCoords()[vertex * 2];
+    }
+
+    /**
+     * @return The y coordinate of a fixed-point polyline's vertex in units
+     */
+    public int fixedY(int vertex) {
+        return requireFixedCoords()[vertex * 2 + 1];
+    }
+
+    private int[] requireFixedCoords() {
+        if (fixedCoords == null) {
+            throw new IllegalStateException("Not a fixed-point polyline");
+        }
+        return fixedCoords;
+    }
+
+    public int runCount() {
+        return runCount;
+    }
+
+    /**
+     * @return The index of the first vertex of the run
+     */
+    public int runStart(int run) {
+        return runStarts[run];
+    }
+
+    // ==================== Geometry ====================
+
+    /**
+     * Even-odd ray casting over the polygon formed by the segments' start points. Allocates nothing.
+     */
+    public boolean contains(double x, double y) {
+        int n = segmentCount();
+        if (n == 0) {
+            return false;
+        }
+
+        checkReadable();
+        boolean odd = false;
+        int last = startVertex(n - 1);
+        double xj = x(last);
+        double yj = y(last);
+
+        for (int k = 0; k < n; k++) {
+            int vertex = startVertex(k);
+            double xi = x(vertex);
+            double yi = y(vertex);
+            if (((yi > y) != (yj > y)) && (x < (xj - xi) * (y - yi) / (yj - yi) + xi)) {
+                odd = !odd;
+            }
+            xj = xi;
+            yj = yi;
+        }
+
+        return odd;
+    }
+
+    /**
+     * Mirrors around x = width / 2. A fixed-point polyline snaps the width to its grid first;
+     * a pooled one adds the mirrored points to its pool, leaving the other pieces' vertices alone.
+     */
+    public void mirrorX(double width) {
+        mirror(0, width);
+    }
+
+    /**
+     * Mirrors around y = height / 2, like mirrorX.
+     */
+    public void mirrorY(double height) {
+        mirror(1, height);
+    }
+
+    private void mirror(int axis, double size) {
+        if (vertexIndexes != null) {
+            // Pooled vertices may belong to other pieces too, so the mirrored points are pooled as well
+            for (int i = 0; i < vertexCount; i++) {
+                double x = pool.x(vertexIndexes[i]);
+                double y = pool.y(vertexIndexes[i]);
+                vertexIndexes[i] = axis == 0 ? pool.indexOf(size - x, y) : pool.indexOf(x, size - y);
+            }
+        } else if (fixedCoords != null) {
+            int fixedSize = toFixed(size);
+            for (int i = 0; i < vertexCount; i++) {
+                fixedCoords[i * 2 + axis] = fixedSize - fixedCoords[i * 2 + axis];
+            }
+        } else if (store != null) {
+            checkReadable();
+            for (int i = 0; i < vertexCount; i++) {
+                int at = offset + (i * 2 + axis) * Double.BYTES;
+                slab.putDouble(at, size - slab.getDouble(at));
+            }
+        } else {
+            for (int i = 0; i < vertexCount; i++) {
+                coords[i * 2 + axis] = size - coords[i * 2 + axis];
+            }
+        }
+    }
+
+    /**
+     * @param transform Applied to every x and y coordinate
+     * @return A copy with the same runs and transformed coordinates
+     */
+    public PackedPolyline map(DoubleUnaryOperator transform) {
+        checkReadable();
+        PackedPolyline copy = new PackedPolyline(reversed, vertexCount);
+        for (int i = 0; i < vertexCount; i++) {
+            copy.coords[i * 2] = transform.applyAsDouble(x(i));
+            copy.coords[i * 2 + 1] = transform.applyAsDouble(y(i));
+        }
+        copyRunsTo(copy);
+        return copy;
+    }
+
+    /**
+     * @param unit The grid step of the copy
+     * @return A fixed-point copy with the same runs and the coordinates snapped to the grid
+     */
+    public PackedPolyline toFixedPoint(double unit) {
+        checkReadable();
+        PackedPolyline copy = new PackedPolyline(reversed, vertexCount, unit);
+        for (int i = 0; i < vertexCount; i++) {
+            copy.fixedCoords[i * 2] = copy.toFixed(x(i));
+            copy.fixedCoords[i * 2 + 1] = copy.toFixed(y(i));
+        }
+        copyRunsTo(copy);
+        return copy;
+    }
+
+    /**
+     * @param pool The pool of the copy
+     * @return A pooled copy with the same runs
+     */
+    public PackedPolyline toPooled(VertexPool pool) {
+        checkReadable();
+        PackedPolyline copy = new PackedPolyline(reversed, vertexCount, Objects.requireNonNull(pool));
+        for (int i = 0; i < vertexCount; i++) {
+            copy.vertexIndexes[i] = pool.indexOf(x(i), y(i));
+        }
+        copyRunsTo(copy);
+        return copy;
+    }
+
+    /**
+     * Rescales a fixed-point polyline without touching its grid: the copy has the same int
+     * coordinates, read with a different unit.
+     *
+     * @param unit The grid step of the copy
+     */
+    public PackedPolyline withUnit(double unit) {
+        PackedPolyline copy = new PackedPolyline(reversed, 0, unit);
+        copy.fixedCoords = Arrays.copyOf(requireFixedCoords(), vertexCount * 2);
+        copyRunsTo(copy);
+        return copy;
+    }
+
+    private void copyRunsTo(PackedPolyline copy) {
+        copy.vertexCount = vertexCount;
+        copy.runStarts = Arrays.copyOf(runStarts, Math.max(1, runCount));
+        copy.runCount = runCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PackedPolyline[segments=%d, runs=%d%s]", segmentCount(), runCount,
+                fixedCoords != null ? ", unit=" + unit : vertexIndexes != null ? ", pooled" : store != null ? ", off-heap" : "");
+    }
+}
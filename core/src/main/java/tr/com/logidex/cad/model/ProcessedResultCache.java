@@ -0,0 +1,197 @@
+package tr.com.logidex.cad.model;
+
+import tr.com.logidex.cad.FileExtension;
+import tr.com.logidex.cad.PlotterScale;
+import tr.com.logidex.cad.Unit;
+import tr.com.logidex.cad.processor.FileProcessor;
+import tr.com.logidex.cad.processor.ProcessedMarkerCache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+
+/**
+ * Keeps recently processed markers in memory, so switching back to a marker does not reprocess it.
+ * Results are held as snapshots in the processed-marker format and every hit rebuilds a new
+ * processor from them, so callers may flip or edit what they get without affecting each other.
+ * The snapshots' total size is kept within a byte budget by evicting the least recently used ones.
+ * Thread-safe.
+ */
+public final class ProcessedResultCache {
+
+    private final long maxBytes;
+    private final LinkedHashMap<Key, byte[]> snapshots = new LinkedHashMap<>(16, 0.75f, true);
+    private long sizeInBytes;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * @param maxBytes Budget for the snapshots held, must be > 0
+     */
+    public ProcessedResultCache(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Cache budget must be positive: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return A new processor holding the cached result, or null on a miss
+     */
+    public FileProcessor get(Key key) {
+        byte[] snapshot;
+        synchronized (this) {
+            snapshot = snapshots.get(key);
+            if (snapshot == null) {
+                missCount++;
+                return null;
+            }
+            hitCount++;
+        }
+
+        // Snapshots are never modified, so they are decoded outside the lock
+        return ProcessedMarkerCache.fromSnapshot(snapshot, key.unit, key.plotterScale);
+    }
+
+    /**
+     * Stores the result of a finished run. A result larger than the whole budget is not kept.
+     */
+    public void put(Key key, FileProcessor processor) {
+        byte[] snapshot = ProcessedMarkerCache.toSnapshot(processor, key.unit, key.plotterScale);
+        if (snapshot.length > maxBytes) {
+            return;
+        }
+
+        synchronized (this) {
+            byte[] previous = snapshots.put(key, snapshot);
+            if (previous != null) {
+                sizeInBytes -= previous.length;
+            }
+            sizeInBytes += snapshot.length;
+
+            Iterator<byte[]> eldest = snapshots.values().iterator();
+            while (sizeInBytes > maxBytes) {
+                sizeInBytes -= eldest.next().length;
+                eldest.remove();
+                evictionCount++;
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        snapshots.clear();
+        sizeInBytes = 0;
+    }
+
+    // ==================== Statistics ====================
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized long getSizeInBytes() {
+        return sizeInBytes;
+    }
+
+    public synchronized int getEntryCount() {
+        return snapshots.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    // ==================== Key ====================
+
+    /**
+     * Identifies a file version and the settings it was processed with, including how its geometry
+     * is stored and the overlap tolerance, so results of the same file under different settings
+     * are kept side by side.
+     * A file counts as changed when its size or modification time changes.
+     */
+    public static final class Key {
+        private final Path path;
+        private final long size;
+        private final long lastModified;
+        private final FileExtension extension;
+        private final Unit unit;
+        private final PlotterScale plotterScale;
+        private final boolean fixedPointCoordinates;
+        private final boolean sharedVertices;
+        private final boolean offHeapGeometry;
+        private final double overlapTolerance;
+
+        private Key(Path path, long size, long lastModified, FileExtension extension, Unit unit, PlotterScale plotterScale,
+                    boolean fixedPointCoordinates, boolean sharedVertices, boolean offHeapGeometry, double overlapTolerance) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.extension = extension;
+            this.unit = unit;
+            this.plotterScale = plotterScale;
+            this.fixedPointCoordinates = fixedPointCoordinates;
+            this.sharedVertices = sharedVertices;
+            this.offHeapGeometry = offHeapGeometry;
+            this.overlapTolerance = overlapTolerance;
+        }
+
+        /**
+         * A key for geometry stored the default way, as doubles on the heap, and the default overlap tolerance.
+         *
+         * @param extension The extension the caller asked for, or null if the format is detected
+         */
+        public static Key of(File file, FileExtension extension, Unit unit, PlotterScale plotterScale) throws IOException {
+            return of(file, extension, unit, plotterScale, false, false, false, OverlapChecker.DEFAULT_TOLERANCE);
+        }
+
+        /**
+         * @param extension The extension the caller asked for, or null if the format is detected
+         */
+        public static Key of(File file, FileExtension extension, Unit unit, PlotterScale plotterScale,
+                             boolean fixedPointCoordinates, boolean sharedVertices, boolean offHeapGeometry,
+                             double overlapTolerance) throws IOException {
+            Path path = file.toPath().toAbsolutePath().normalize();
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return new Key(path, attributes.size(), attributes.lastModifiedTime().toMillis(), extension, unit, plotterScale,
+                    fixedPointCoordinates, sharedVertices, offHeapGeometry, overlapTolerance);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return size == other.size
+                    && lastModified == other.lastModified
+                    && path.equals(other.path)
+                    && extension == other.extension
+                    && unit == other.unit
+                    && plotterScale == other.plotterScale
+                    && fixedPointCoordinates == other.fixedPointCoordinates
+                    && sharedVertices == other.sharedVertices
+                    && offHeapGeometry == other.offHeapGeometry
+                    && Double.compare(overlapTolerance, other.overlapTolerance) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, size, lastModified, extension, unit, plotterScale,
+                    fixedPointCoordinates, sharedVertices, offHeapGeometry, overlapTolerance);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package tr.com.logidex.cad.model;
+
+/**
+ * An immutable RGBA color for drawing a shape. Components are in [0, 1], as in javafx.scene.paint.Color,
+ * which UI code converts it to.
+ */
+public final class ShapeColor {
+
+    private final double red;
+    private final double green;
+    private final double blue;
+    private final double opacity;
+
+    private ShapeColor(double red, double green, double blue, double opacity) {
+        this.red = red;
+        this.green = green;
+        this.blue = blue;
+        this.opacity = opacity;
+    }
+
+    /**
+     * @param red Red component, 0-255
+     * @param green Green component, 0-255
+     * @param blue Blue component, 0-255
+     * @param opacity Opacity, 0-1
+     */
+    public static ShapeColor rgb(int red, int green, int blue, double opacity) {
+        checkRange(red, 255, "red");
+        checkRange(green, 255, "green");
+        checkRange(blue, 255, "blue");
+        checkRange(opacity, 1, "opacity");
+        return new ShapeColor(red / 255.0, green / 255.0, blue / 255.0, opacity);
+    }
+
+    private static void checkRange(double value, double max, String name) {
+        if (value < 0 || value > max) {
+            throw new IllegalArgumentException("Color's " + name + " value (" + value + ") must be in the range 0.." + max);
+        }
+    }
+
+    public double getRed() {
+        return red;
+    }
+
+    public double getGreen() {
+        return green;
+    }
+
+    public double getBlue() {
+        return blue;
+    }
+
+    public double getOpacity() {
+        return opacity;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (obj instanceof ShapeColor) {
+            ShapeColor other = (ShapeColor) obj;
+            return red == other.red && green == other.green && blue == other.blue && opacity == other.opacity;
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        long bits = 1L;
+        bits = 31L * bits + Double.doubleToLongBits(red);
+        bits = 31L * bits + Double.doubleToLongBits(green);
+        bits = 31L * bits + Double.doubleToLongBits(blue);
+        bits = 31L * bits + Double.doubleToLongBits(opacity);
+        return (int) (bits ^ (bits >> 32));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("0x%02x%02x%02x%02x", Math.round(red * 255), Math.round(green * 255),
+                Math.round(blue * 255), Math.round(opacity * 255));
+    }
+}
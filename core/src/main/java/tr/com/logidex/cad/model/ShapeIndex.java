@@ -0,0 +1,172 @@
+package tr.com.logidex.cad.model;
+
+import tr.com.logidex.cad.geometry.BoundingBox;
+
+import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
+
+/**
+ * A uniform grid over the outline bounds of a marker's shapes, so that finding the shapes under a
+ * point tests only the few whose bounds overlap the point's cell instead of every shape.
+ * <p>
+ * The cell size follows the average shape size. Each cell lists its shapes in the order of the
+ * list the index was built from, so queries see them in that order, as a plain loop would.
+ * The index describes the shapes as they were when it was built; mirroring a shape or changing
+ * the list makes it stale.
+ */
+public final class ShapeIndex {
+
+    // Upper bound on the number of cells per shape, so one huge shape cannot blow up the grid
+    private static final int MAX_CELLS_PER_SHAPE = 4;
+
+    private final List<ClosedShape> shapes;
+    private final int size;
+    private final double minX, minY, maxX, maxY;
+    private final double cellSize;
+    private final int columns, rows;
+
+    // Compressed rows: the shapes of cell c are entries[cellStart[c] .. cellStart[c + 1])
+    private final int[] cellStart;
+    private final int[] entries;
+
+    public ShapeIndex(List<ClosedShape> shapes) {
+        this.shapes = shapes;
+        int n = shapes.size();
+        size = n;
+
+        BoundingBox[] bounds = new BoundingBox[n];
+        double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY;
+        double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY;
+        double sizeSum = 0;
+        int indexed = 0;
+        for (int i = 0; i < n; i++) {
+            BoundingBox b = shapes.get(i).getOutlineBounds();
+            if (!(b.getWidth() >= 0 && b.getHeight() >= 0)) {
+                // No vertices, so contains() is false everywhere
+                continue;
+            }
+            bounds[i] = b;
+            x0 = Math.min(x0, b.getMinX());
+            y0 = Math.min(y0, b.getMinY());
+            x1 = Math.max(x1, b.getMaxX());
+            y1 = Math.max(y1, b.getMaxY());
+            sizeSum += Math.max(b.getWidth(), b.getHeight());
+            indexed++;
+        }
+
+        if (indexed == 0) {
+            minX = minY = maxX = maxY = 0;
+            cellSize = 1;
+            columns = rows = 0;
+            cellStart = new int[1];
+            entries = new int[0];
+            return;
+        }
+
+        double width = x1 - x0;
+        double height = y1 - y0;
+        double cell = sizeSum / indexed;
+        long maxCells = (long) indexed * MAX_CELLS_PER_SHAPE;
+        if (!(cell > 0)) {
+            cell = Math.max(Math.max(width, height), 1);
+        }
+        while ((long) cellCount(width, cell) * cellCount(height, cell) > maxCells) {
+            cell *= 2;
+        }
+
+        minX = x0;
+        minY = y0;
+        maxX = x1;
+        maxY = y1;
+        cellSize = cell;
+        columns = cellCount(width, cell);
+        rows = cellCount(height, cell);
+
+        // First count the shapes per cell, then fill the cells in shape order
+        cellStart = new int[columns * rows + 1];
+        for (BoundingBox b : bounds) {
+            if (b != null) {
+                forEachCell(b, c -> cellStart[c + 1]++);
+            }
+        }
+        for (int c = 0; c < columns * rows; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        entries = new int[cellStart[columns * rows]];
+        int[] fill = cellStart.clone();
+        for (int i = 0; i < n; i++) {
+            if (bounds[i] != null) {
+                int shape = i;
+                forEachCell(bounds[i], c -> entries[fill[c]++] = shape);
+            }
+        }
+    }
+
+    /**
+     * @return The index in the shape list of the first shape after the given one that contains
+     * the point and passes the filter, or -1 if there is none
+     */
+    public int next(double x, double y, int after, Predicate<ClosedShape> filter) {
+        int cell = cellOf(x, y);
+        if (cell < 0) {
+            return -1;
+        }
+
+        for (int e = cellStart[cell]; e < cellStart[cell + 1]; e++) {
+            int shape = entries[e];
+            if (shape > after) {
+                ClosedShape cs = shapes.get(shape);
+                if (filter.test(cs) && cs.contains(x, y)) {
+                    return shape;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return The first shape that contains the point, or null if there is none
+     */
+    public ClosedShape find(double x, double y) {
+        int shape = next(x, y, -1, cs -> true);
+        return shape < 0 ? null : shapes.get(shape);
+    }
+
+    /**
+     * @return true if the index was built from this list and the list has not grown or shrunk since
+     */
+    public boolean isBuiltFrom(List<ClosedShape> shapes) {
+        return this.shapes == shapes && shapes.size() == size;
+    }
+
+    private int cellOf(double x, double y) {
+        if (!(x >= minX && x <= maxX && y >= minY && y <= maxY)) {
+            return -1;
+        }
+        int column = Math.min((int) ((x - minX) / cellSize), columns - 1);
+        int row = Math.min((int) ((y - minY) / cellSize), rows - 1);
+        return row * columns + column;
+    }
+
+    private void forEachCell(BoundingBox b, IntConsumer action) {
+        int c0 = (int) ((b.getMinX() - minX) / cellSize);
+        int r0 = (int) ((b.getMinY() - minY) / cellSize);
+        int c1 = Math.min((int) ((b.getMaxX() - minX) / cellSize), columns - 1);
+        int r1 = Math.min((int) ((b.getMaxY() - minY) / cellSize), rows - 1);
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                action.accept(r * columns + c);
+            }
+        }
+    }
+
+    private static int cellCount(double extent, double size) {
+        return Math.max(1, (int) Math.ceil(extent / size));
+    }
+
+    @Override
+    public String toString() {
+        return "ShapeIndex[shapes=" + shapes.size() + ", cells=" + columns + "x" + rows + "]";
+    }
+}
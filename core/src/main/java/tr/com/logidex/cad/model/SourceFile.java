@@ -0,0 +1,392 @@
+package tr.com.logidex.cad.model;
+
+import tr.com.logidex.cad.*;
+import tr.com.logidex.cad.helper.ByteBufferCharSequence;
+import tr.com.logidex.cad.helper.CompressedFile;
+import tr.com.logidex.cad.helper.Util;
+import tr.com.logidex.cad.processor.FileProcessor;
+import tr.com.logidex.cad.processor.FormatDetector;
+import tr.com.logidex.cad.processor.GGTFileProcessor;
+import tr.com.logidex.cad.processor.GerberFileProcessor;
+import tr.com.logidex.cad.processor.HPGLFileProcessor;
+import tr.com.logidex.cad.processor.ProcessedMarkerCache;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.util.function.Consumer;
+
+/**
+ * Manages CAD source files and delegates processing to appropriate file processors
+ * based on file extension.
+ */
+public class SourceFile {
+
+    private static final String DEFAULT_FILE_NAME = "-----";
+    private static final int STREAM_BUFFER_SIZE = 1 << 16;
+
+    private String activeFileName = DEFAULT_FILE_NAME;
+    private Consumer<String> activeFileNameListener;
+    private final PlotterScale plotterScale ;
+    private boolean parallelParsing;
+    private boolean fixedPointCoordinates;
+    private boolean sharedVertices;
+    private boolean offHeapGeometry;
+    private double overlapTolerance = OverlapChecker.DEFAULT_TOLERANCE;
+    private ProcessedMarkerCache markerCache;
+    private ProcessedResultCache resultCache;
+
+    public SourceFile(PlotterScale plotterScale) {
+        this.plotterScale = plotterScale == null?PlotterScale.DEFAULT:plotterScale;
+        FileProcessor.plotterScale = this.plotterScale;
+
+    }
+
+    public SourceFile() {
+        this.plotterScale = PlotterScale.DEFAULT;
+        FileProcessor.plotterScale = this.plotterScale;
+    }
+
+    // ==================== Property Accessors ====================
+
+    public String getActiveFileName() {
+        return activeFileName;
+    }
+
+    public Consumer<String> getActiveFileNameListener() {
+        return activeFileNameListener;
+    }
+
+    /**
+     * @param activeFileNameListener Called with the name of every file processed or restored, or null for none
+     */
+    public void setActiveFileNameListener(Consumer<String> activeFileNameListener) {
+        this.activeFileNameListener = activeFileNameListener;
+    }
+
+    public  PlotterScale getPlotterScale() {
+        return plotterScale;
+    }
+
+    public boolean isParallelParsing() {
+        return parallelParsing;
+    }
+
+    /**
+     * Enables multi-threaded parsing for the processors created by this source file.
+     *
+     * @see FileProcessor#setParallelParsing(boolean)
+     */
+    public void setParallelParsing(boolean parallelParsing) {
+        this.parallelParsing = parallelParsing;
+    }
+
+    public boolean isFixedPointCoordinates() {
+        return fixedPointCoordinates;
+    }
+
+    /**
+     * Keeps the geometry of processed files in raw plotter units. Cached results processed in
+     * the other mode are not reused.
+     *
+     * @see FileProcessor#setFixedPointCoordinates(boolean)
+     */
+    public void setFixedPointCoordinates(boolean fixedPointCoordinates) {
+        this.fixedPointCoordinates = fixedPointCoordinates;
+    }
+
+    public boolean isSharedVertices() {
+        return sharedVertices;
+    }
+
+    /**
+     * Stores the vertices of each processed file in one shared pool. Cached results processed
+     * without it, or with it, are not reused in the other mode.
+     *
+     * @see FileProcessor#setSharedVertices(boolean)
+     */
+    public void setSharedVertices(boolean sharedVertices) {
+        this.sharedVertices = sharedVertices;
+    }
+
+    public boolean isOffHeapGeometry() {
+        return offHeapGeometry;
+    }
+
+    /**
+     * Keeps the piece coordinates of processed files outside the Java heap until the
+     * processor's clearAll is called.
+     *
+     * @see FileProcessor#setOffHeapGeometry(boolean)
+     */
+    public void setOffHeapGeometry(boolean offHeapGeometry) {
+        this.offHeapGeometry = offHeapGeometry;
+    }
+
+    public double getOverlapTolerance() {
+        return overlapTolerance;
+    }
+
+    /**
+     * Sets how far a piece may reach into another before the overlap warning is raised.
+     * Cached results checked with another tolerance are not reused.
+     *
+     * @see FileProcessor#setOverlapTolerance(double)
+     */
+    public void setOverlapTolerance(double overlapTolerance) {
+        if (!(overlapTolerance >= 0)) {
+            throw new IllegalArgumentException("Overlap tolerance must not be negative: " + overlapTolerance);
+        }
+        this.overlapTolerance = overlapTolerance;
+    }
+
+
+    public ProcessedMarkerCache getProcessedMarkerCache() {
+        return markerCache;
+    }
+
+    /**
+     * Reuses the results of earlier runs for files whose content, unit and plotter scale are unchanged.
+     *
+     * @param markerCache The cache to read and fill, or null to always process the file
+     */
+    public void setProcessedMarkerCache(ProcessedMarkerCache markerCache) {
+        this.markerCache = markerCache;
+    }
+
+
+    public ProcessedResultCache getResultCache() {
+        return resultCache;
+    }
+
+    /**
+     * Keeps recent results in memory, so reopening an unchanged file with the same settings
+     * skips processing. It is consulted before the processed-marker cache.
+     *
+     * @param resultCache The cache to read and fill, or null to disable it
+     */
+    public void setResultCache(ProcessedResultCache resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    // ==================== File Processing ====================
+
+    /**
+     * Reads a CAD file and processes it using the appropriate processor based on file extension.
+     * The start of the content is checked first, so a mislabelled file still gets the right processor.
+     * Gzip files and zip archives are decompressed on the fly; for them the name of the
+     * compressed file takes the place of the given extension.
+     * With a processed-marker cache set, an unchanged file is restored from the cache instead.
+     *
+     * @param file The file to process
+     * @param extension The file extension type
+     * @param unit The unit system to use for processing (IN or MM)
+     * @return The FileProcessor that handled the file
+     */
+    public FileProcessor readAndSendToTheProcessing(File file, FileExtension extension, Unit unit)
+            throws Exception {
+
+        validateInputs(file, extension, unit);
+
+        return process(file, extension, unit);
+    }
+
+    /**
+     * Reads a CAD file whose format is worked out from its name and content alone,
+     * e.g. when ingesting a folder of mixed files.
+     *
+     * @param file The file to process
+     * @param unit The unit system to use for processing (IN or MM)
+     * @return The FileProcessor that handled the file
+     */
+    public FileProcessor readAndSendToTheProcessing(File file, Unit unit) throws Exception {
+
+        validateInputs(file, unit);
+
+        return process(file, FileExtension.fromFileName(file.getName()), unit);
+    }
+
+    // ==================== Private Helper Methods ====================
+
+    private FileProcessor process(File file, FileExtension extension, Unit unit) throws Exception {
+
+        FileProcessor.unit = unit;
+
+
+        try {
+            FileProcessor processor;
+            ProcessedResultCache.Key resultKey = null;
+
+            if (resultCache != null) {
+                resultKey = ProcessedResultCache.Key.of(file, extension, unit, plotterScale,
+                        fixedPointCoordinates, sharedVertices, offHeapGeometry, overlapTolerance);
+                processor = resultCache.get(resultKey);
+                if (processor != null) {
+                    setActiveFileName(file.getName());
+                    return processor;
+                }
+            }
+
+            // A buffer cannot address more than Integer.MAX_VALUE bytes, so larger files are streamed;
+            // they skip the processed-marker cache, as hashing them would read them twice
+            MappedByteBuffer rawContent = Files.size(file.toPath()) <= Integer.MAX_VALUE ? Util.mapFile(file.toPath()) : null;
+            byte[] contentHash = null;
+
+            if (markerCache != null && rawContent != null) {
+                contentHash = ProcessedMarkerCache.hashContent(rawContent);
+                processor = markerCache.load(file.toPath(), contentHash, unit, plotterScale,
+                        fixedPointCoordinates, sharedVertices, offHeapGeometry, overlapTolerance);
+                if (processor != null && hasSettings(processor)) {
+                    if (resultCache != null) {
+                        resultCache.put(resultKey, processor);
+                    }
+                    setActiveFileName(file.getName());
+                    return processor;
+                }
+            }
+
+            if (CompressedFile.isCompressed(file.toPath())) {
+                try (CompressedFile compressed = CompressedFile.open(file.toPath())) {
+                    FileExtension innerExtension = compressed.getEntryExtension();
+                    InputStream content = new BufferedInputStream(compressed.getStream(), STREAM_BUFFER_SIZE);
+                    FileExtension format = requireFormat(FormatDetector.detect(content,
+                            innerExtension != null ? innerExtension : extension), file);
+
+                    processor = createProcessor(format, content);
+                    startProcessing(processor);
+                }
+            } else if (rawContent == null) {
+                try (InputStream content = new BufferedInputStream(Files.newInputStream(file.toPath()), STREAM_BUFFER_SIZE)) {
+                    FileExtension format = requireFormat(FormatDetector.detect(content, extension), file);
+
+                    processor = createProcessor(format, content);
+                    startProcessing(processor);
+                }
+            } else {
+                FileExtension format = requireFormat(FormatDetector.detect(new ByteBufferCharSequence(rawContent), extension), file);
+
+                processor = createProcessor(format, rawContent);
+                startProcessing(processor);
+            }
+
+            if (contentHash != null) {
+                storeInCache(file, contentHash, unit, processor);
+            }
+            if (resultCache != null) {
+                resultCache.put(resultKey, processor);
+            }
+
+            setActiveFileName(file.getName());
+
+            return processor;
+
+        } catch (IOException e) {
+            throw new Exception("Failed to read file: " + file.getName() + " - " + e.getMessage());
+        }
+    }
+
+    /**
+     * A cache that cannot be written, e.g. on a read-only share, only costs the next open its speed-up.
+     */
+    private void storeInCache(File file, byte[] contentHash, Unit unit, FileProcessor processor) {
+        try {
+            markerCache.store(file.toPath(), contentHash, unit, plotterScale, processor);
+        } catch (IOException e) {
+            System.err.println("Could not write processed-marker cache for " + file.getName() + ": " + e.getMessage());
+        }
+    }
+
+    private void validateInputs(File file, FileExtension extension, Unit unit)  throws Exception{
+        validateInputs(file, unit);
+
+        if (extension == null) {
+            throw new Exception("File extension cannot be null");
+        }
+    }
+
+    private void validateInputs(File file, Unit unit)  throws Exception{
+        if (file == null) {
+            throw new Exception("File cannot be null");
+        }
+
+        if (!file.exists()) {
+            throw new Exception("File does not exist: " + file.getAbsolutePath());
+        }
+
+        if (!file.canRead()) {
+            throw new Exception("File is not readable: " + file.getAbsolutePath());
+        }
+
+        if (unit == null) {
+            throw new Exception("Unit cannot be null");
+        }
+    }
+
+    private void setActiveFileName(String name) {
+        activeFileName = name;
+        if (activeFileNameListener != null) {
+            activeFileNameListener.accept(name);
+        }
+    }
+
+    private FileExtension requireFormat(FileExtension format, File file) throws Exception {
+        if (format == null) {
+            throw new Exception("Unrecognised file format: " + file.getName());
+        }
+        return format;
+    }
+
+    private void startProcessing(FileProcessor processor) throws Exception {
+        processor.setParallelParsing(parallelParsing);
+        processor.setFixedPointCoordinates(fixedPointCoordinates);
+        processor.setSharedVertices(sharedVertices);
+        processor.setOffHeapGeometry(offHeapGeometry);
+        processor.setOverlapTolerance(overlapTolerance);
+        processor.startFileProcessing();
+    }
+
+    private boolean hasSettings(FileProcessor processor) {
+        return processor.isFixedPointCoordinates() == fixedPointCoordinates
+                && processor.isSharedVertices() == sharedVertices
+                && processor.isOffHeapGeometry() == offHeapGeometry
+                && processor.getOverlapTolerance() == overlapTolerance;
+    }
+
+    /**
+     * Creates the appropriate file processor based on the file extension.
+     * Every processor scans the memory-mapped bytes in place,
+     * so the content is never decoded into a String.
+     *
+     * @param extension The file extension
+     * @param content The mapped file content
+     * @return The appropriate FileProcessor instance
+     */
+    private FileProcessor createProcessor(FileExtension extension, MappedByteBuffer content) {
+
+        return switch (extension) {
+            case HPGL,PLT,HPG ->new HPGLFileProcessor(content);
+            case CUT,CAM ->new GerberFileProcessor(content);
+            case GGT ->new GGTFileProcessor(content);
+        };
+
+    }
+
+    /**
+     * Creates the appropriate file processor for content read incrementally from a stream.
+     *
+     * @param extension The file extension
+     * @param content The decompressed file content, or a file too large to map
+     * @return The appropriate FileProcessor instance
+     */
+    private FileProcessor createProcessor(FileExtension extension, InputStream content) {
+
+        return switch (extension) {
+            case HPGL,PLT,HPG ->new HPGLFileProcessor(content);
+            case CUT,CAM ->new GerberFileProcessor(content);
+            case GGT ->new GGTFileProcessor(content);
+        };
+    }
+}
\ No newline at end of file
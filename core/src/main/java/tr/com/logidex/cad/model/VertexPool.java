@@ -0,0 +1,130 @@
+package tr.com.logidex.cad.model;
+
+import java.util.Arrays;
+
+/**
+ * A per-marker table of distinct vertices. Coordinates are hashed after rounding to a quantum, so
+ * points closer than that, e.g. the end of one segment and the start of the next or a cut line
+ * shared by two pieces, get the same int index. The first point seen in a cell represents it.
+ * <p>
+ * Polylines built on a pool store one int per vertex. A distinct vertex costs its two doubles plus
+ * two to four table slots, about 24 to 32 bytes against 16 for a vertex stored in place, so a pool
+ * only saves memory where points repeat, on average more than twice.
+ * <p>
+ * Adding is synchronized, so chunks parsed in parallel can share a pool, but they then take turns
+ * on every vertex. Reads are not synchronized, and are meant for after the parsing threads have joined.
+ */
+public final class VertexPool {
+
+    /**
+     * Far below any plotter's resolution, so only points that are equal in practice are merged.
+     */
+    public static final double DEFAULT_QUANTUM = 1e-6;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int EMPTY = -1;
+
+    private final double quantum;
+    private double[] coords = new double[INITIAL_CAPACITY * 2];
+    private int size;
+
+    // Open addressing with linear probing; holds vertex indexes, EMPTY for a free slot.
+    // A vertex's cell is worked out again from its coordinates, which are those of the first point in the cell.
+    private int[] table = newTable(INITIAL_CAPACITY * 2);
+
+    public VertexPool() {
+        this(DEFAULT_QUANTUM);
+    }
+
+    /**
+     * @param quantum Points in the same cell of this size share a vertex
+     */
+    public VertexPool(double quantum) {
+        if (!(quantum > 0) || Double.isInfinite(quantum)) {
+            throw new IllegalArgumentException("Quantum must be a positive number: " + quantum);
+        }
+        this.quantum = quantum;
+    }
+
+    /**
+     * @return The index of the vertex at (x, y), added if no vertex is in its cell yet
+     */
+    public synchronized int indexOf(double x, double y) {
+        long keyX = key(x);
+        long keyY = key(y);
+
+        int mask = table.length - 1;
+        int slot = hash(keyX, keyY) & mask;
+        while (table[slot] != EMPTY) {
+            int vertex = table[slot];
+            if (key(coords[vertex * 2]) == keyX && key(coords[vertex * 2 + 1]) == keyY) {
+                return vertex;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (size * 2 == coords.length) {
+            coords = Arrays.copyOf(coords, coords.length * 2);
+        }
+        int vertex = size++;
+        coords[vertex * 2] = x;
+        coords[vertex * 2 + 1] = y;
+        table[slot] = vertex;
+
+        // Keep the load factor at or below one half
+        if (size * 2 > table.length) {
+            rehash();
+        }
+        return vertex;
+    }
+
+    public double x(int vertex) {
+        return coords[vertex * 2];
+    }
+
+    public double y(int vertex) {
+        return coords[vertex * 2 + 1];
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public double getQuantum() {
+        return quantum;
+    }
+
+    private void rehash() {
+        table = newTable(table.length * 2);
+        int mask = table.length - 1;
+        for (int vertex = 0; vertex < size; vertex++) {
+            int slot = hash(key(coords[vertex * 2]), key(coords[vertex * 2 + 1])) & mask;
+            while (table[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = vertex;
+        }
+    }
+
+    private long key(double coordinate) {
+        return Math.round(coordinate / quantum);
+    }
+
+    private static int[] newTable(int length) {
+        int[] table = new int[length];
+        Arrays.fill(table, EMPTY);
+        return table;
+    }
+
+    private static int hash(long keyX, long keyY) {
+        long h = keyX * 0x9E3779B97F4A7C15L + keyY;
+        h ^= h >>> 29;
+        h *= 0xBF58476D1CE4E5B9L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return "VertexPool[vertices=" + size() + ", quantum=" + quantum + "]";
+    }
+}
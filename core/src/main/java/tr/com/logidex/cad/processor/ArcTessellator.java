@@ -0,0 +1,110 @@
+package tr.com.logidex.cad.processor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Flattens circular arcs into chords. The chord count follows from the allowed deviation
+ * between chord and arc, so small notches get a few segments and large curves as many as they need.
+ * The rotations for a sweep/segment-count pair are cached as a unit-arc table, since markers repeat
+ * the same arcs over and over. Not thread-safe; each parser owns one.
+ */
+final class ArcTessellator {
+
+    // Chords never span more than a quarter turn, whatever the tolerance
+    private static final double MAX_CHORD_ANGLE = Math.PI / 2;
+    private static final int MAX_SEGMENTS = 4096;
+    private static final int MAX_CACHED_TABLES = 1024;
+
+    private final Map<ArcKey, double[]> unitArcs = new HashMap<>();
+
+    /**
+     * Writes the points of the arc after its start point into out, in drawing order.
+     *
+     * @param sweepDegrees Swept angle, counter-clockwise if positive
+     * @param tolerance Largest allowed distance between a chord and the arc, in the same units as the coordinates
+     * @return The number of points written; 0 for a degenerate arc
+     */
+    int tessellate(double centerX, double centerY, double startX, double startY,
+                   double sweepDegrees, double tolerance, CoordinateBuffer out) {
+        out.clear();
+
+        double vx = startX - centerX;
+        double vy = startY - centerY;
+        double radius = Math.hypot(vx, vy);
+        if (radius == 0 || sweepDegrees == 0 || !Double.isFinite(radius) || !Double.isFinite(sweepDegrees)) {
+            return 0;
+        }
+
+        int segments = segmentCount(radius, Math.abs(Math.toRadians(sweepDegrees)), tolerance);
+        double[] table = unitArc(sweepDegrees, segments);
+
+        for (int k = 0; k < segments; k++) {
+            double cos = table[2 * k];
+            double sin = table[2 * k + 1];
+            out.add(centerX + vx * cos - vy * sin, centerY + vx * sin + vy * cos);
+        }
+        return segments;
+    }
+
+    /**
+     * A chord spanning angle a deviates from the arc by r(1 - cos(a/2)), so the widest chord
+     * within tolerance spans 2 acos(1 - tolerance/r).
+     */
+    static int segmentCount(double radius, double sweepRadians, double tolerance) {
+        double maxChordAngle = tolerance < radius
+                ? Math.min(2 * Math.acos(1 - tolerance / radius), MAX_CHORD_ANGLE)
+                : MAX_CHORD_ANGLE;
+
+        double segments = Math.ceil(sweepRadians / maxChordAngle);
+        return (int) Math.max(1, Math.min(segments, MAX_SEGMENTS));
+    }
+
+    /**
+     * @return cos/sin pairs of k * sweep / segments for k = 1..segments
+     */
+    private double[] unitArc(double sweepDegrees, int segments) {
+        ArcKey key = new ArcKey(sweepDegrees, segments);
+        double[] table = unitArcs.get(key);
+        if (table != null) {
+            return table;
+        }
+
+        table = new double[2 * segments];
+        double step = Math.toRadians(sweepDegrees) / segments;
+        for (int k = 1; k <= segments; k++) {
+            table[2 * (k - 1)] = Math.cos(k * step);
+            table[2 * (k - 1) + 1] = Math.sin(k * step);
+        }
+
+        if (unitArcs.size() == MAX_CACHED_TABLES) {
+            unitArcs.clear();
+        }
+        unitArcs.put(key, table);
+        return table;
+    }
+
+    private static final class ArcKey {
+        final double sweepDegrees;
+        final int segments;
+
+        ArcKey(double sweepDegrees, int segments) {
+            this.sweepDegrees = sweepDegrees;
+            this.segments = segments;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ArcKey)) {
+                return false;
+            }
+            ArcKey other = (ArcKey) o;
+            return Double.compare(sweepDegrees, other.sweepDegrees) == 0 && segments == other.segments;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Double.hashCode(sweepDegrees) + segments;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package tr.com.logidex.cad.processor;
+
+/**
+ * Single-pass command scanner over raw file text.
+ * Splits the text on a fixed set of delimiter characters and exposes each command
+ * as a trimmed [start, end) range of the source, so no intermediate strings or lists are built.
+ */
+final class CommandReader {
+
+    private final CharSequence text;
+    private final boolean[] delimiters = new boolean[128];
+    private final int length;
+
+    private int position;
+    private int start;
+    private int end;
+
+    /**
+     * @param text The text to scan
+     * @param delimiterChars Every character that terminates a command (ASCII only)
+     */
+    CommandReader(CharSequence text, String delimiterChars) {
+        this(text, 0, text.length(), delimiterChars);
+    }
+
+    /**
+     * Scans only text[from, to). The commands match those of a whole-text scan as long as
+     * from and to are each 0, the text length, or the index directly after a delimiter.
+     *
+     * @param text The text to scan
+     * @param from Start index, inclusive
+     * @param to End index, exclusive
+     * @param delimiterChars Every character that terminates a command (ASCII only)
+     */
+    CommandReader(CharSequence text, int from, int to, String delimiterChars) {
+        this.text = text;
+        this.position = from;
+        this.length = to;
+        for (int i = 0; i < delimiterChars.length(); i++) {
+            delimiters[delimiterChars.charAt(i)] = true;
+        }
+    }
+
+    /**
+     * Advances to the next command that is not blank after trimming.
+     *
+     * @return false when the input is exhausted
+     */
+    boolean next() {
+        while (position < length) {
+            int s = position;
+            int e = s;
+            while (e < length && !isDelimiter(text.charAt(e))) {
+                e++;
+            }
+            position = e + 1;
+
+            // Same trimming rule as String.trim()
+            while (s < e && text.charAt(s) <= ' ') {
+                s++;
+            }
+            while (e > s && text.charAt(e - 1) <= ' ') {
+                e--;
+            }
+
+            if (s < e) {
+                start = s;
+                end = e;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isDelimiter(char c) {
+        return c < 128 && delimiters[c];
+    }
+
+    // ==================== Current Command ====================
+
+    CharSequence text() {
+        return text;
+    }
+
+    int start() {
+        return start;
+    }
+
+    int end() {
+        return end;
+    }
+
+    int length() {
+        return end - start;
+    }
+
+    /**
+     * @param index Offset relative to the start of the current command
+     */
+    char charAt(int index) {
+        return text.charAt(start + index);
+    }
+}
@@ -0,0 +1,84 @@
+package tr.com.logidex.cad.processor;
+
+import java.util.Arrays;
+
+/**
+ * Reusable primitive accumulator for coordinate runs such as HPGL "PD x1,y1,x2,y2,...".
+ * Pairs are parsed straight from the command text into growable double arrays,
+ * so reading a vertex allocates nothing once the arrays have grown to fit.
+ */
+final class CoordinateBuffer {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final char FIELD_DELIMITER = ',';
+
+    private double[] xs = new double[INITIAL_CAPACITY];
+    private double[] ys = new double[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Replaces the contents with the coordinate pairs in text[from, to).
+     * Pairs with an unparseable value are skipped and a trailing odd value is ignored,
+     * matching the old split-and-parseDouble behaviour.
+     *
+     * @return The number of pairs read
+     */
+    int parsePairs(CharSequence text, int from, int to) {
+        size = 0;
+
+        if (from >= to) {
+            return 0;
+        }
+
+        int fieldStart = from;
+        double pendingX = 0;
+        boolean havePendingX = false;
+
+        for (int i = from; i <= to; i++) {
+            if (i < to && text.charAt(i) != FIELD_DELIMITER) {
+                continue;
+            }
+
+            double value = NumberParser.parseDouble(text, fieldStart, i);
+            fieldStart = i + 1;
+
+            if (!havePendingX) {
+                pendingX = value;
+                havePendingX = true;
+            } else {
+                if (!Double.isNaN(pendingX) && !Double.isNaN(value)) {
+                    add(pendingX, value);
+                }
+                havePendingX = false;
+            }
+        }
+
+        return size;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    void add(double x, double y) {
+        if (size == xs.length) {
+            xs = Arrays.copyOf(xs, size * 2);
+            ys = Arrays.copyOf(ys, size * 2);
+        }
+        xs[size] = x;
+        ys[size] = y;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    double x(int index) {
+        return xs[index];
+    }
+
+    double y(int index) {
+        return ys[index];
+    }
+}
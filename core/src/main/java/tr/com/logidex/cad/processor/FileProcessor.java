@@ -0,0 +1,1089 @@
+package tr.com.logidex.cad.processor;
+
+import tr.com.logidex.cad.*;
+import tr.com.logidex.cad.geometry.BoundingBox;
+import tr.com.logidex.cad.geometry.Dimension2D;
+import tr.com.logidex.cad.geometry.Point2D;
+import tr.com.logidex.cad.helper.LabelGroupingManager;
+import tr.com.logidex.cad.helper.StringPool;
+import tr.com.logidex.cad.model.ClosedShape;
+import tr.com.logidex.cad.model.GeometryFingerprint;
+import tr.com.logidex.cad.model.GeometryStore;
+import tr.com.logidex.cad.model.Lbl;
+import tr.com.logidex.cad.model.OverlapChecker;
+import tr.com.logidex.cad.model.PackedPolyline;
+import tr.com.logidex.cad.model.ShapeIndex;
+import tr.com.logidex.cad.model.VertexPool;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static tr.com.logidex.cad.SvgGenerationService.generateSvgForShape;
+
+/**
+ * Abstract base class for processing CAD files of different formats.
+ * Handles common operations like shape creation, label organization, and transformations.
+ */
+public sealed abstract class FileProcessor permits GerberFileProcessor,GGTFileProcessor,HPGLFileProcessor {
+
+    // Constants
+    public static final String REFERENCE_SIGN = "+";
+    /**
+     * Shown when pieces overlap; getOverlappingPieces gives the IDs of the pieces involved.
+     */
+    public static final String OVERLAP_WARNING =
+            "Ic ice gecmis parcalar var! Bazi parcalar birbirinin alanina tasiyor."
+                    + "\n\n"
+                    + "There are overlapped patterns! Some pieces reach into each other's area.";
+    private static final double DRAWING_SPLIT_WIDTH = 50;
+    private static final double PLOTTER_SCALE = 40;
+    private static final int DEFAULT_STREAM_WINDOW_SIZE = 1 << 16;
+
+    // Static state
+    public static Unit unit;
+    public static PlotterScale plotterScale = PlotterScale.DEFAULT;
+    /**
+     * Receives the overlap warning text. The core has no UI, so it only prints by default;
+     * a desktop front end replaces this with a dialog.
+     */
+    public static Consumer<String> overlapWarningHandler = System.err::println;
+
+    // Collections
+    private List<Lbl> sortedAndOptimizedLbls = new ArrayList<>();
+    private List<ClosedShape> shapes = new ArrayList<>();
+    private ShapeIndex shapeIndex;
+    protected List<Lbl> labels = new ArrayList<>();
+    private List<Lbl> sortedLbls = new ArrayList<>();
+    // One polyline per piece, in file order; the shapes share them
+    List<PackedPolyline> polylines = new ArrayList<>();
+    protected List<String> commands;
+    protected HashMap<Integer, PackedPolyline> linesForClosedShapes = new HashMap<>();
+
+    // Configuration
+    protected List<String> UNWANTED_CHARS;
+    protected String SPLIT_REGEX;
+
+    // State
+    public Dimension2D drawingDimensions = new Dimension2D(0, 0);
+    private CharSequence fileContent;
+    private InputStream contentStream;
+    int streamWindowSize = DEFAULT_STREAM_WINDOW_SIZE;
+    private final StringPool labelTexts = new StringPool();
+    private final LabelGroupingManager labelGroupingManager = new LabelGroupingManager(labelTexts);
+    private final List<GGTPattern> GGTParcalar = new ArrayList<>();
+    private FlipHorizontally flipHorizontally = FlipHorizontally.NO;
+    private FlipVertically flipVertically = FlipVertically.NO;
+    private boolean err = false;
+    private List<OverlapChecker.Pair> overlappingPieces;
+    private boolean parallelParsing = false;
+    private boolean fixedPointCoordinates = false;
+    private boolean sharedVertices = false;
+    VertexPool vertexPool;
+    private boolean offHeapGeometry = false;
+    private double overlapTolerance = OverlapChecker.DEFAULT_TOLERANCE;
+    private GeometryStore geometryStore;
+
+    // Streaming (only set while startFileProcessing(Flow.Subscriber) runs)
+    private SubmissionPublisher<ClosedShape> shapePublisher;
+    private Map<Integer, ClosedShape> streamedShapes;
+    private List<ClosedShape> heldBackShapes;
+
+    // Outlines of the pieces kept so far, so a contour written twice becomes one piece. Filled by
+    // addPiece while streaming, so a duplicate is never published, and by createPieces, which drops it.
+    private Set<GeometryFingerprint> pieceFingerprints;
+
+    public FileProcessor(CharSequence fileContent) {
+        this.fileContent = fileContent;
+        initUnwantedChars();
+        initSplitRegex();
+    }
+
+    /**
+     * Creates a processor that reads its content incrementally from the stream, e.g. a
+     * decompressing stream. Only a small window of the content is held in memory at a time.
+     * The stream is read during startFileProcessing and is not closed by the processor.
+     *
+     * @param contentStream The file content
+     */
+    public FileProcessor(InputStream contentStream) {
+        this((CharSequence) null);
+        this.contentStream = contentStream;
+    }
+
+
+
+
+
+    // ==================== Abstract Methods ====================
+
+    protected abstract void interpretCommands();
+
+    // ==================== Tokenization Hooks ====================
+
+    /**
+     * Sets the tokens dropped after splitting. Only needed by processors that split with SPLIT_REGEX.
+     */
+    protected void initUnwantedChars() {
+    }
+
+    /**
+     * Sets the regex used by splitCommands. Only needed by processors that split with SPLIT_REGEX.
+     */
+    protected void initSplitRegex() {
+    }
+
+    /**
+     * Turns the file content into the command list consumed by interpretCommands.
+     * Processors that scan the content themselves override this with a no-op.
+     */
+    protected void prepareCommands() {
+        splitCommands();
+        removeUnwantedCharacters();
+    }
+
+    // ==================== Public API ====================
+
+    public void startFileProcessing() throws Exception {
+        try {
+            prepareCommands();
+            interpretCommands();
+            determineDrawingDimension();
+            groupSortLabelsAndOptimizeRoutes(FlipHorizontally.NO, FlipVertically.NO);
+            createPieces();
+            removeTheLabelsWithoutPattern();
+            mergeLabelsIfPatternHasTwoLabels();
+            checkOverlapError();
+        } catch (Exception e) {
+            e.printStackTrace();
+            throw new Exception("Error occurred during file processing \n" + e.getMessage());
+        }
+    }
+
+    /**
+     * Processes the file like startFileProcessing, but publishes each valid piece to the subscriber
+     * as soon as the parser closes it, so pieces can be shown or cut before the whole file is read.
+     * Delivery is asynchronous and honours the subscriber's requests: once its buffer is full,
+     * parsing waits for the subscriber to catch up.
+     * <p>
+     * Labels, bounding-frame filtering and the overlap check need every piece, so they still run
+     * after parsing. onComplete is signalled once they are done; shape labels are final from then on.
+     * A piece's id, geometry and center are fixed before it is published, but its label is set and
+     * moved afterwards on the processing thread, so onNext must not read getLabel or the label's
+     * state; read them once onComplete has been signalled.
+     * Four-line shapes may be the marker's bounding frame, so they are only published at that point
+     * and only if they were kept. On failure the subscriber gets onError and the exception is rethrown.
+     * Parallel parsing publishes each piece when its chunk is merged rather than when it is closed.
+     *
+     * @param subscriber Receives the pieces in file order
+     */
+    public void startFileProcessing(Flow.Subscriber<? super ClosedShape> subscriber) throws Exception {
+        try (SubmissionPublisher<ClosedShape> publisher = new SubmissionPublisher<>()) {
+            publisher.subscribe(subscriber);
+            shapePublisher = publisher;
+            streamedShapes = new HashMap<>();
+            heldBackShapes = new ArrayList<>();
+            pieceFingerprints = new HashSet<>();
+
+            try {
+                startFileProcessing();
+                heldBackShapes.stream().filter(shapes::contains).forEach(publisher::submit);
+            } catch (Exception e) {
+                publisher.closeExceptionally(e);
+                throw e;
+            } finally {
+                shapePublisher = null;
+                streamedShapes = null;
+                heldBackShapes = null;
+                pieceFingerprints = null;
+            }
+        }
+    }
+
+    public void invertFlipH() {
+        flipHorizontally = flipHorizontally == FlipHorizontally.YES ? FlipHorizontally.NO : FlipHorizontally.YES;
+
+        if (this instanceof GGTFileProcessor) {
+            flipShapes(Flipping.HORIZONTAL);
+        } else {
+            groupSortLabelsAndOptimizeRoutes(flipHorizontally, flipVertically);
+            flipShapes(Flipping.HORIZONTAL);
+            mergeLabelsWithSameShape();
+            removeTheLabelsWithoutPattern();
+
+
+        }
+    }
+
+    public void invertFlipV() {
+        flipVertically = flipVertically == FlipVertically.YES ? FlipVertically.NO : FlipVertically.YES;
+
+        if (this instanceof GGTFileProcessor) {
+            flipShapes(Flipping.VERTICAL);
+        } else {
+            groupSortLabelsAndOptimizeRoutes(flipHorizontally, flipVertically);
+            flipShapes(Flipping.VERTICAL);
+            mergeLabelsWithSameShape();
+            removeTheLabelsWithoutPattern();
+
+
+        }
+    }
+
+    public void clearAll() {
+        commands = null;
+        linesForClosedShapes = null;
+        sortedAndOptimizedLbls = null;
+        shapes = null;
+        shapeIndex = null;
+        labels = null;
+        sortedLbls = null;
+        polylines = null;
+        vertexPool = null;
+        if (geometryStore != null) {
+            geometryStore.release();
+            geometryStore = null;
+        }
+        fileContent = null;
+        contentStream = null;
+        labelTexts.clear();
+        labelGroupingManager.clear();
+    }
+
+    /**
+     * Installs the results of an earlier run instead of parsing, e.g. read back from the
+     * processed-marker cache. The overlap warning is shown again, as processing would have.
+     */
+    void restore(Dimension2D drawingDimensions, List<PackedPolyline> polylines, List<ClosedShape> shapes,
+                 List<Lbl> labels, List<Lbl> sortedAndOptimizedLbls, boolean overlapError) {
+        this.drawingDimensions = drawingDimensions;
+        this.polylines = polylines;
+        this.shapes = shapes;
+        this.shapeIndex = null;
+        this.labels = labels;
+        this.sortedAndOptimizedLbls = sortedAndOptimizedLbls;
+        this.linesForClosedShapes = new HashMap<>();
+        for (ClosedShape shape : shapes) {
+            linesForClosedShapes.put(shape.getId(), shape.getPolyline());
+        }
+        this.err = overlapError;
+        this.overlappingPieces = null;
+        this.fileContent = null;
+
+        if (err) {
+            showOverlapWarning();
+        }
+    }
+
+    /**
+     * @return true if a piece's center falls inside another piece or a piece reaches into another
+     */
+    boolean hasOverlapError() {
+        return err;
+    }
+
+    /**
+     * @return The pairs of pieces that overlap, by piece ID; empty if the marker has no overlap error
+     */
+    public List<OverlapChecker.Pair> getOverlappingPieces() {
+        if (overlappingPieces == null) {
+            overlappingPieces = OverlapChecker.findOverlaps(shapes, overlapTolerance);
+        }
+        return overlappingPieces;
+    }
+
+    // ==================== Getters ====================
+
+    public List<ClosedShape> getShapes() {
+        return shapes;
+    }
+
+    /**
+     * Finds the pieces that have at least one segment in common with the given piece, i.e. pieces
+     * cut along a shared line. Only pooled geometry records which points coincide, so without
+     * shared vertices the result is always empty.
+     *
+     * @param shape A piece of this marker
+     * @return The adjacent pieces, in shape order
+     */
+    public List<ClosedShape> findAdjacentShapes(ClosedShape shape) {
+        PackedPolyline polyline = shape.getPolyline();
+        if (!polyline.isPooled()) {
+            return new ArrayList<>();
+        }
+
+        Set<Long> edges = new HashSet<>();
+        for (int k = 0; k < polyline.segmentCount(); k++) {
+            edges.add(polyline.edgeKey(k));
+        }
+
+        List<ClosedShape> adjacent = new ArrayList<>();
+        for (ClosedShape other : shapes) {
+            PackedPolyline otherPolyline = other.getPolyline();
+            if (other == shape || otherPolyline.getPool() != polyline.getPool()) {
+                continue;
+            }
+            for (int k = 0; k < otherPolyline.segmentCount(); k++) {
+                if (edges.contains(otherPolyline.edgeKey(k))) {
+                    adjacent.add(other);
+                    break;
+                }
+            }
+        }
+        return adjacent;
+    }
+
+    public LabelGroupingManager getLabelGroupingManager() {
+        return labelGroupingManager;
+    }
+
+
+    public List<Lbl> getSortedAndOptimizedLbls() {
+        return sortedAndOptimizedLbls;
+    }
+
+    /**
+     * @return The geometry of the whole marker, one polyline per piece in file order
+     */
+    public List<PackedPolyline> getPolylines() {
+        return polylines;
+    }
+
+    public Dimension2D getDrawingDimensions() {
+        return drawingDimensions;
+    }
+
+    public List<GGTPattern> getGGTParcalar() {
+        return GGTParcalar;
+    }
+
+    public String getPrintableDimensions() {
+        String formattedW = String.format("%.2f", drawingDimensions.getWidth());
+        String formattedH = String.format("%.2f", drawingDimensions.getHeight());
+        return "L: " + formattedW + ", W: " + formattedH;
+    }
+
+    public FlipHorizontally getFlipHorizontally() {
+        return flipHorizontally;
+    }
+
+    public FlipVertically getFlipVertically() {
+        return flipVertically;
+    }
+
+    public boolean isParallelParsing() {
+        return parallelParsing;
+    }
+
+    /**
+     * Enables multi-threaded parsing for formats that support it (currently GGT and HPGL).
+     * The result is identical to sequential parsing. Must be set before startFileProcessing.
+     * Content read from a stream is always parsed sequentially.
+     *
+     * @param parallelParsing true to parse on the common ForkJoin pool
+     */
+    public void setParallelParsing(boolean parallelParsing) {
+        this.parallelParsing = parallelParsing;
+    }
+
+    public boolean isFixedPointCoordinates() {
+        return fixedPointCoordinates;
+    }
+
+    /**
+     * Keeps piece geometry as int counts of raw plotter units instead of scaled doubles,
+     * which halves vertex memory and makes equal points exactly equal. The plotter scale is
+     * then applied whenever a coordinate is read (see getCoordinateUnit).
+     * Fractional plotter positions, e.g. on tessellated arcs, snap to the nearest unit.
+     * Must be set before startFileProcessing.
+     *
+     * @param fixedPointCoordinates true to store fixed-point polylines
+     */
+    public void setFixedPointCoordinates(boolean fixedPointCoordinates) {
+        this.fixedPointCoordinates = fixedPointCoordinates;
+    }
+
+    /**
+     * @return The drawing size of one raw plotter unit, with the plotter scale applied
+     */
+    public double getCoordinateUnit() {
+        return scale(1);
+    }
+
+    public boolean isSharedVertices() {
+        return sharedVertices;
+    }
+
+    /**
+     * Stores the vertices of all pieces once, in a per-marker VertexPool, with each piece
+     * keeping only int indexes into it, and lets findAdjacentShapes find pieces that share a cut line.
+     * A point stored once costs more than one kept in place, so this saves memory only where points
+     * repeat across pieces; the sample markers, whose pieces rarely share exact vertices, take two to
+     * three times the room of plain doubles. In parallel parsing the chunks take turns on the pool.
+     * With fixed-point coordinates also on, points in the same plotter unit are merged.
+     * Must be set before startFileProcessing.
+     *
+     * @param sharedVertices true to store pooled polylines
+     */
+    public void setSharedVertices(boolean sharedVertices) {
+        this.sharedVertices = sharedVertices;
+    }
+
+    /**
+     * @return The marker's vertex pool, or null if vertices are not shared
+     */
+    public synchronized VertexPool getVertexPool() {
+        if (sharedVertices && vertexPool == null) {
+            vertexPool = new VertexPool(fixedPointCoordinates ? getCoordinateUnit() : VertexPool.DEFAULT_QUANTUM);
+        }
+        return vertexPool;
+    }
+
+    public boolean isOffHeapGeometry() {
+        return offHeapGeometry;
+    }
+
+    /**
+     * Moves the coordinates of each completed piece into a per-marker GeometryStore outside the
+     * Java heap, so that very large nests do not lengthen GC pauses. clearAll frees that memory
+     * right away; the marker's polylines and shapes must not be used after that.
+     * Applies to pieces with double coordinates, not to fixed-point or pooled ones.
+     * Must be set before startFileProcessing.
+     *
+     * @param offHeapGeometry true to keep piece coordinates off-heap
+     */
+    public void setOffHeapGeometry(boolean offHeapGeometry) {
+        this.offHeapGeometry = offHeapGeometry;
+    }
+
+    /**
+     * @return The marker's off-heap store, or null if geometry is kept on the heap
+     */
+    public synchronized GeometryStore getGeometryStore() {
+        if (offHeapGeometry && geometryStore == null) {
+            geometryStore = new GeometryStore();
+        }
+        return geometryStore;
+    }
+
+    public double getOverlapTolerance() {
+        return overlapTolerance;
+    }
+
+    /**
+     * Sets how far, in drawing units, a piece may reach into another before the two count as
+     * overlapping. Pieces cut along a shared line cross each other by up to about this much.
+     * Must be set before startFileProcessing.
+     *
+     * @param overlapTolerance A distance >= 0
+     */
+    public void setOverlapTolerance(double overlapTolerance) {
+        if (!(overlapTolerance >= 0)) {
+            throw new IllegalArgumentException("Overlap tolerance must not be negative: " + overlapTolerance);
+        }
+        this.overlapTolerance = overlapTolerance;
+    }
+
+    /**
+     * Returns the marker's shared copy of a label text, so that labels repeating the same size or
+     * bundle do not each hold their own String.
+     */
+    protected String internLabelText(CharSequence text, int from, int to) {
+        return labelTexts.intern(text, from, to);
+    }
+
+    protected String internLabelText(String text) {
+        return labelTexts.intern(text);
+    }
+
+    /**
+     * Creates the polyline a processor collects a piece's segments in, in the configured storage mode.
+     */
+    protected PackedPolyline newPiecePolyline(boolean reversed) {
+        if (sharedVertices) {
+            return PackedPolyline.pooled(reversed, getVertexPool());
+        }
+        return fixedPointCoordinates ? PackedPolyline.fixedPoint(reversed, getCoordinateUnit()) : new PackedPolyline(reversed);
+    }
+
+    // ==================== Processing Methods ====================
+
+    protected CharSequence getFileContent() {
+        return fileContent;
+    }
+
+    /**
+     * @return true if the content is read from a stream rather than held as a whole
+     */
+    protected boolean isStreamed() {
+        return contentStream != null;
+    }
+
+    /**
+     * Reads the content stream to its end, one window at a time.
+     */
+    void readContentStream(StreamWindowReader.WindowHandler handler) {
+        try {
+            StreamWindowReader.read(contentStream, streamWindowSize, handler);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    protected void splitCommands() {
+        commands = new ArrayList<>(Arrays.asList(fileContent.toString().split(SPLIT_REGEX)));
+        fileContent = null;
+    }
+
+    /**
+     * Registers the segments of a closed piece. Processors call this once per piece, in file order.
+     *
+     * @param id The piece id
+     * @param pieceLines The segments of the piece, complete
+     */
+    protected void addPiece(int id, PackedPolyline pieceLines) {
+        pieceLines.trimToSize();
+        if (offHeapGeometry) {
+            pieceLines.moveOffHeap(getGeometryStore());
+        }
+        linesForClosedShapes.put(id, pieceLines);
+
+        if (shapePublisher == null) {
+            return;
+        }
+
+        ClosedShape cs = createShape(id, pieceLines);
+        if (cs != null && !pieceFingerprints.add(GeometryFingerprint.of(pieceLines))) {
+            cs = null;
+        }
+        streamedShapes.put(id, cs);
+
+        if (cs == null) {
+            return;
+        }
+        if (!(this instanceof GGTFileProcessor) && isSimpleRectangle(cs)) {
+            heldBackShapes.add(cs);
+        } else {
+            shapePublisher.submit(cs);
+        }
+    }
+
+    protected void removeUnwantedCharacters() {
+        commands.removeAll(UNWANTED_CHARS);
+    }
+
+    protected void determineDrawingDimension() {
+        drawingDimensions = calculateDrawingDimensions(polylines);
+    }
+
+    protected Dimension2D calculateDrawingDimensions(List<PackedPolyline> polylines) {
+        double lengthOfTheDrawing = 0;
+        double widthOfTheDrawing = 0;
+
+        for (PackedPolyline polyline : polylines) {
+            for (int k = 0; k < polyline.segmentCount(); k++) {
+                if (polyline.endX(k) > lengthOfTheDrawing) {
+                    lengthOfTheDrawing = polyline.endX(k);
+                }
+                if (polyline.endY(k) > widthOfTheDrawing) {
+                    widthOfTheDrawing = polyline.endY(k);
+                }
+            }
+        }
+
+        return new Dimension2D(lengthOfTheDrawing, widthOfTheDrawing);
+    }
+
+    protected double getMinPosInX() {
+        double xMin = Double.MAX_VALUE;
+        for (PackedPolyline polyline : polylines) {
+            for (int k = 0; k < polyline.segmentCount(); k++) {
+                if (polyline.startX(k) < xMin) {
+                    xMin = polyline.startX(k);
+                }
+            }
+        }
+        return xMin;
+    }
+
+    protected double scale(double number) {
+        return number / PLOTTER_SCALE * plotterScale.getValue();
+    }
+
+    // ==================== Label Management ====================
+
+    public void groupSortLabelsAndOptimizeRoutes(FlipHorizontally flipH, FlipVertically flipV) {
+        if (!labels.isEmpty()) {
+            double minPosX = getMinPosInX();
+            double width = drawingDimensions.getWidth();
+            double height = drawingDimensions.getHeight();
+            sortedLbls = labelGroupingManager.groupAndSortLabels(labels, minPosX, width, height, flipH, flipV);
+            sortedAndOptimizedLbls = organizeLabels(sortedLbls, drawingDimensions.getWidth(), DRAWING_SPLIT_WIDTH);
+            addReferenceLabelToTheFinalList();
+        }
+    }
+
+    private void removeTheLabelsWithoutPattern() {
+
+        var listToRemove = sortedAndOptimizedLbls.stream().filter(label -> label.getShape() == null && !label.getText().equals(REFERENCE_SIGN)).collect(Collectors.toList());
+        sortedAndOptimizedLbls.removeAll(listToRemove);
+
+    }
+
+    private void addReferenceLabelToTheFinalList() {
+        Lbl referenceLabel = new Lbl(REFERENCE_SIGN, new Point2D(0, 0), 0, 0, 0, 0);
+        sortedAndOptimizedLbls.add(0, referenceLabel);
+    }
+
+    /**
+     * Organizes labels in an optimal processing order using a snake pattern.
+     *
+     * @param labels List of labels to organize
+     * @param drawingWidth Width of the drawing area
+     * @param stripWidth Width of each vertical strip for processing
+     * @return List of labels in optimal processing order
+     */
+    public static List<Lbl> organizeLabels(List<Lbl> labels, double drawingWidth, double stripWidth) {
+        if (labels == null || labels.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        int stripCount = (int) Math.ceil(drawingWidth / stripWidth);
+        List<List<Lbl>> strips = createStrips(stripCount);
+
+        assignLabelsToStrips(labels, strips, stripWidth, stripCount);
+        sortStripsInSnakePattern(strips);
+
+        return combineStrips(strips, labels.size());
+    }
+
+    private static List<List<Lbl>> createStrips(int stripCount) {
+        List<List<Lbl>> strips = new ArrayList<>(stripCount);
+        for (int i = 0; i < stripCount; i++) {
+            strips.add(new ArrayList<>());
+        }
+        return strips;
+    }
+
+    private static void assignLabelsToStrips(List<Lbl> labels, List<List<Lbl>> strips,
+                                             double stripWidth, int stripCount) {
+        for (Lbl label : labels) {
+            if (label == null) {
+                continue;
+            }
+
+            double x = label.getPosition().getX();
+            int stripIndex = (int) (x / stripWidth);
+
+            if (stripIndex == stripCount) {
+                stripIndex = stripCount - 1;
+            }
+
+            if (stripIndex >= 0 && stripIndex < stripCount) {
+                strips.get(stripIndex).add(label);
+            }
+        }
+    }
+
+    private static void sortStripsInSnakePattern(List<List<Lbl>> strips) {
+        for (int i = 0; i < strips.size(); i++) {
+            Collections.sort(strips.get(i), Comparator.comparingDouble(l -> l.getPosition().getY()));
+
+            if (i % 2 == 1) {
+                Collections.reverse(strips.get(i));
+            }
+        }
+    }
+
+    private static List<Lbl> combineStrips(List<List<Lbl>> strips, int estimatedSize) {
+        List<Lbl> result = new ArrayList<>(estimatedSize);
+        for (List<Lbl> strip : strips) {
+            result.addAll(strip);
+        }
+        return result;
+    }
+
+    /**
+     * Finds labels bound to the same shape and merges them.
+     */
+    public void mergeLabelsWithSameShape() {
+
+
+        Map<ClosedShape, List<Lbl>> duplicatedShapes = sortedAndOptimizedLbls.stream()
+                .filter(lbl -> lbl.getShape() != null)
+                .collect(Collectors.groupingBy(Lbl::getShape));
+
+        List<Lbl> toRemove = new ArrayList<>();
+
+        duplicatedShapes.forEach((shape, lblList) -> {
+            if (lblList.size() > 1) {
+                Lbl longest = lblList.stream()
+                        .max(Comparator.comparingInt(lbl -> lbl.getText().length()))
+                        .orElse(lblList.get(0));
+
+                lblList.stream()
+                        .filter(lbl -> lbl != longest)
+                        .forEach(shortLbl -> {
+                            String currentText = longest.getText();
+                            String textToAdd = shortLbl.getText();
+                            longest.setText(internLabelText(currentText + "\n" + textToAdd));
+                            toRemove.add(shortLbl);
+                        });
+            }
+        });
+
+        sortedAndOptimizedLbls.removeAll(toRemove);
+    }
+
+    public void mergeLabelsIfPatternHasTwoLabels() {
+
+
+
+        System.out.println("mergeLabelsIfPatternHasTwoLabels");
+
+        List<Lbl> notHaveAShape = sortedAndOptimizedLbls.stream()
+                .filter(lbl -> lbl.getShape() == null && !lbl.getText().equals(REFERENCE_SIGN))
+                .collect(Collectors.toList());
+
+        Map<Lbl, ClosedShape> map = findShapesForLabels(notHaveAShape);
+
+        sortedAndOptimizedLbls.removeAll(notHaveAShape);
+        mergeLabelsIntoShapes(map);
+    }
+
+    private Map<Lbl, ClosedShape> findShapesForLabels(List<Lbl> labels) {
+        Map<Lbl, ClosedShape> map = new HashMap<>();
+        ShapeIndex index = getShapeIndex();
+
+        labels.forEach(lbl -> {
+            ClosedShape s = index.find(lbl.getX(), lbl.getY());
+            if (s != null) {
+                map.put(lbl, s);
+            }
+        });
+
+        return map;
+    }
+
+    private void mergeLabelsIntoShapes(Map<Lbl, ClosedShape> map) {
+        map.entrySet().forEach(entry -> {
+            Lbl existingLabel = entry.getValue().getLabel();
+
+            if (existingLabel != null) {
+                String labelText = existingLabel.getText();
+                String textToAdd = entry.getKey().getText();
+                existingLabel.setText(internLabelText(labelText + "\n" + textToAdd));
+            }
+        });
+    }
+
+    // ==================== Shape Management ====================
+
+    protected void createPieces() {
+        if (this instanceof GGTFileProcessor) {
+            initializeLabelsForGGT();
+        }
+
+        // Step 1: Create all shapes without label assignment, keeping the ones already streamed;
+        // streamedShapes holds null for the pieces addPiece found invalid or duplicate
+        if (pieceFingerprints == null) {
+            pieceFingerprints = new HashSet<>();
+        }
+        for (Map.Entry<Integer, PackedPolyline> entry : linesForClosedShapes.entrySet()) {
+            if (streamedShapes != null && streamedShapes.containsKey(entry.getKey())) {
+                ClosedShape cs = streamedShapes.get(entry.getKey());
+                if (cs != null) {
+                    shapes.add(cs);
+                }
+                continue;
+            }
+
+            ClosedShape cs = createShape(entry.getKey(), entry.getValue());
+            if (cs != null) {
+                addShapeIfUnique(cs);
+            }
+        }
+        pieceFingerprints = null;
+
+        // Step 2: Filter out bounding frames (only for non-GGT files)
+        if (!(this instanceof GGTFileProcessor)) {
+            filterOutBoundingFrames();
+        }
+
+        // Step 3: Assign labels to shapes
+        shapeIndex = null;
+        if (this instanceof GGTFileProcessor) {
+            for (ClosedShape cs : shapes) {
+                processGGTShape(cs);
+            }
+        } else {
+            assignLabelsToShapes();
+        }
+    }
+
+    /**
+     * The spatial index over the current shapes, built on first use after the shapes changed.
+     */
+    private ShapeIndex getShapeIndex() {
+        if (shapeIndex == null || !shapeIndex.isBuiltFrom(shapes)) {
+            shapeIndex = new ShapeIndex(shapes);
+        }
+        return shapeIndex;
+    }
+
+    /**
+     * @return The shape for the piece, or null if it is not a valid piece
+     */
+    private ClosedShape createShape(Integer id, PackedPolyline pieceLines) {
+        ClosedShape cs = new ClosedShape(pieceLines, (this instanceof GGTFileProcessor));
+
+        if (!cs.isValidPiece()) {
+            return null;
+        }
+
+        cs.relocateOriginX();
+        cs.setId(id);
+        return cs;
+    }
+
+    private void initializeLabelsForGGT() {
+        for (int i = 0; i < linesForClosedShapes.size() + 1; i++) {
+            labels.add(null);
+        }
+    }
+
+    private void processGGTShape(ClosedShape cs) {
+        for (GGTPattern p : getGGTParcalar()) {
+            if (cs.getId().equals(p.getId())) {
+                Lbl label = p.getLabel();
+
+                if (label != null) {
+                    label.changeLabelPosition(cs.getCenter());
+                    cs.setLabel(label);
+                    label.setShape(cs);
+                    labels.set(cs.getId(), cs.getLabel());
+                    labels.set(0, new Lbl(REFERENCE_SIGN, new Point2D(0, 0), 0, 0, 0, 0));
+                } else {
+                    continue;
+                }
+            }
+        }
+
+        sortedAndOptimizedLbls = organizeLabels(labels, drawingDimensions.getWidth(), DRAWING_SPLIT_WIDTH);
+    }
+
+    /**
+     * Gives each shape whose center lies inside it the first label that falls on it.
+     * Shapes are visited in list order per label, and a label moves to the center of each shape it
+     * is given to, so the outcome is the same as testing every label against every shape in turn.
+     */
+    private void assignLabelsToShapes() {
+        ShapeIndex index = getShapeIndex();
+
+        for (Lbl lbl : sortedAndOptimizedLbls) {
+            if (lbl == null) {
+                continue;
+            }
+
+            int k = -1;
+            while ((k = index.next(lbl.getX(), lbl.getY(), k,
+                    cs -> cs.isCalculatedCenterPointIsInThisShape() && cs.getLabel() == null)) >= 0) {
+                ClosedShape cs = shapes.get(k);
+                cs.setLabel(lbl);
+                lbl.setShape(cs);
+            }
+        }
+    }
+
+    /**
+     * Adds the shape unless a piece with the same outline was added before; some CAD exports
+     * write a contour twice.
+     */
+    private void addShapeIfUnique(ClosedShape cs) {
+        if (pieceFingerprints.add(GeometryFingerprint.of(cs.getPolyline()))) {
+            shapes.add(cs);
+        }
+    }
+
+    /**
+     * Detects and removes bounding frame rectangles that span the entire drawing area.
+     * A shape is considered a bounding frame if:
+     * - It is a simple rectangle (4 lines forming 90-degree angles)
+     * - It starts near (0,0) and extends to the maximum drawing dimensions
+     * This is a very conservative approach to avoid removing legitimate pattern pieces.
+     */
+    private void filterOutBoundingFrames() {
+        if (shapes.size() <= 1) {
+            return; // Need at least 2 shapes to detect a bounding frame
+        }
+
+        // Get the actual drawing dimensions
+        double maxX = drawingDimensions.getWidth();
+        double maxY = drawingDimensions.getHeight();
+        double tolerance = Math.max(maxX, maxY) * 0.01; // 1% tolerance for floating point comparison
+
+        List<ClosedShape> framesToRemove = new ArrayList<>();
+
+        for (ClosedShape shape : shapes) {
+            // Check if it's a rectangle spanning the full drawing area
+            if (isRectangleAtMaxBounds(shape, maxX, maxY, tolerance)) {
+                framesToRemove.add(shape);
+                System.out.println("Detected bounding frame rectangle (ID: " + shape.getId() +
+                    ") at max bounds [" + maxX + " x " + maxY + "]. Removing it.");
+            }
+        }
+
+        // Remove the detected frames
+        shapes.removeAll(framesToRemove);
+    }
+
+    /**
+     * Checks if a shape is a rectangle that spans the full drawing area.
+     *
+     * @param shape The shape to check
+     * @param maxX Maximum X coordinate of the drawing
+     * @param maxY Maximum Y coordinate of the drawing
+     * @param tolerance Tolerance for floating point comparison
+     * @return true if the shape is a bounding frame rectangle
+     */
+    private boolean isRectangleAtMaxBounds(ClosedShape shape, double maxX, double maxY, double tolerance) {
+        // First check if it's actually a rectangle (must have exactly 4 lines)
+        if (!isSimpleRectangle(shape)) {
+            return false;
+        }
+
+        // Check if bounds span nearly the full drawing area
+        BoundingBox bounds = shape.getBounds();
+
+        boolean startsNearZero = bounds.getMinX() <= tolerance && bounds.getMinY() <= tolerance;
+        boolean spansMaxX = Math.abs(bounds.getMaxX() - maxX) <= tolerance;
+        boolean spansMaxY = Math.abs(bounds.getMaxY() - maxY) <= tolerance;
+
+        return startsNearZero && spansMaxX && spansMaxY;
+    }
+
+    /**
+     * Checks if a shape is a simple rectangle with 4 lines.
+     *
+     * @param shape The shape to check
+     * @return true if the shape has exactly 4 lines (rectangle or quadrilateral)
+     */
+    private boolean isSimpleRectangle(ClosedShape shape) {
+        // A rectangle should have exactly 4 lines
+        return shape.getPolyline().segmentCount() == 4;
+    }
+
+    private void flipShapes(Flipping flipping) {
+        for (ClosedShape cs : shapes) {
+            cs.restoreColor();
+
+            if (flipping == Flipping.HORIZONTAL) {
+                cs.mirrorX(drawingDimensions.getWidth());
+            }
+            if (flipping == Flipping.VERTICAL) {
+                cs.mirrorY(drawingDimensions.getHeight());
+            }
+
+            if (this instanceof GGTFileProcessor) {
+                updateGGTShapeLabel(cs);
+            }
+        }
+
+        if (this instanceof GerberFileProcessor) {
+            ((GerberFileProcessor) this).mirrorArcs(flipping, drawingDimensions.getWidth(), drawingDimensions.getHeight());
+        }
+
+        // The shapes moved, so the index is rebuilt on its next use
+        shapeIndex = null;
+
+        if (this instanceof GGTFileProcessor) {
+            sortedAndOptimizedLbls = organizeLabels(labels, drawingDimensions.getWidth(), DRAWING_SPLIT_WIDTH);
+        } else {
+            reassignLabelsToShapes();
+        }
+    }
+
+    private void updateGGTShapeLabel(ClosedShape cs) {
+        Lbl currentLabel = cs.getLabel();
+        if (currentLabel != null) {
+            currentLabel.changeLabelPosition(cs.getCenter());
+            cs.setLabel(currentLabel);
+            currentLabel.setShape(cs);
+        }
+    }
+
+    /**
+     * Binds every label to the shapes it falls on after a flip; a shape keeps the last such label.
+     * As in assignLabelsToShapes, shapes are visited in list order while the label follows the centers.
+     */
+    private void reassignLabelsToShapes() {
+        ShapeIndex index = getShapeIndex();
+
+        for (Lbl lbl : sortedAndOptimizedLbls) {
+            if (lbl == null) {
+                continue;
+            }
+
+            int k = -1;
+            while ((k = index.next(lbl.getX(), lbl.getY(), k, cs -> true)) >= 0) {
+                ClosedShape cs = shapes.get(k);
+                cs.setLabel(lbl);
+                lbl.setShape(cs);
+            }
+        }
+    }
+
+    // ==================== Validation ====================
+
+    private void checkOverlapError() {
+        overlappingPieces = OverlapChecker.findOverlaps(shapes, overlapTolerance);
+        err = !overlappingPieces.isEmpty();
+
+        if (err) {
+            showOverlapWarning();
+        }
+    }
+
+    private void showOverlapWarning() {
+        overlapWarningHandler.accept(OVERLAP_WARNING);
+    }
+
+    /**
+     *
+     * @param scale must be > 0
+     * @param strokeColorName
+     * @param fillColorName
+     * @return returns the drawing in svg
+     */
+    public  String generateFullSvg(double scale,String strokeColorName,String fillColorName) {
+
+
+        if (scale <= 0){
+            scale = 1;
+        }
+
+        int width = (int) (drawingDimensions.getWidth() * scale);
+        int height = (int) (drawingDimensions.getHeight() * scale);
+
+        double finalScale = scale;
+        String svgContent = shapes.stream()
+                .map(shape -> generateSvgForShape(shape, finalScale ,strokeColorName,fillColorName))
+                .collect(Collectors.joining("\n    "));
+
+        // SVG wrapper etiketini oluştur
+        return String.format(
+                "<svg width=\"%d\" height=\"%d\" viewBox=\"0 0 %d %d\" xmlns=\"http://www.w3.org/2000/svg\">\n" +
+                        "    <!-- Ham Koordinatlarla Çizilen Şekiller -->\n" +
+                        "    %s\n" +
+                        "</svg>",
+                width, height, width, height, svgContent.trim()
+        );
+    }
+
+
+}
\ No newline at end of file
@@ -0,0 +1,216 @@
+package tr.com.logidex.cad.processor;
+
+import tr.com.logidex.cad.FileExtension;
+import tr.com.logidex.cad.helper.ByteBufferCharSequence;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Works out which processor a file needs from the first few KB of its content, so a
+ * mislabelled file is routed correctly before it is loaded and parsed in full.
+ * HPGL is recognised by its two-letter mnemonics ("IN;", "PA;", "CO\"..."); Gerber and GGT share
+ * the '*'-separated N/M/D/X..Y.. codes and are told apart by GGT's M19 discontinuities
+ * and Gerber's X..Y..M31 attached labels.
+ */
+public final class FormatDetector {
+
+    /** Number of chars inspected from the start of the content. */
+    public static final int PREFIX_LENGTH = 4096;
+
+    // Fewer recognised commands than this is not enough to overrule the file name
+    private static final int MIN_EVIDENCE = 3;
+
+    private static final String HPGL_TERMINATORS = ";\n\r\u0003";
+    private static final char GERBER_DELIMITER = '*';
+    private static final String[] HPGL_MNEMONICS = {
+            "AA", "AR", "CI", "CO", "DF", "DI", "DT", "IN", "LB", "LM", "LO", "LT",
+            "PA", "PD", "PE", "PR", "PU", "SI", "SP", "VS"
+    };
+
+    private FormatDetector() {
+    }
+
+    /**
+     * Detects the format from the start of the text; anything past PREFIX_LENGTH is ignored.
+     *
+     * @param text The file content
+     * @param hint The extension the file claims to have, or null
+     * @return HPGL, CUT or GGT, or the hint when it agrees with the content or the content is not conclusive.
+     *         Null only if the content is not conclusive and there is no hint.
+     */
+    public static FileExtension detect(CharSequence text, FileExtension hint) {
+        int to = Math.min(text.length(), PREFIX_LENGTH);
+
+        int hpglEvidence = countHpglCommands(text, to);
+        GerberEvidence gerber = countGerberCommands(text, to);
+
+        if (hpglEvidence >= MIN_EVIDENCE && hpglEvidence > gerber.commands) {
+            return isHpgl(hint) ? hint : FileExtension.HPGL;
+        }
+
+        if (gerber.commands < MIN_EVIDENCE || gerber.commands <= hpglEvidence) {
+            return hint;
+        }
+
+        FileExtension detected;
+        if (gerber.ggtMarkers > gerber.cutMarkers) {
+            detected = FileExtension.GGT;
+        } else if (gerber.cutMarkers > gerber.ggtMarkers) {
+            detected = FileExtension.CUT;
+        } else {
+            // Gerber family, but no dialect markers in the prefix
+            return isGerberFamily(hint) ? hint : FileExtension.CUT;
+        }
+
+        return usesSameProcessor(hint, detected) ? hint : detected;
+    }
+
+    /**
+     * Detects the format from the start of the stream without consuming it.
+     *
+     * @param in A stream that supports mark and reset
+     * @param hint The extension the file claims to have, or null
+     * @return See detect(CharSequence, FileExtension)
+     */
+    public static FileExtension detect(InputStream in, FileExtension hint) throws IOException {
+        if (!in.markSupported()) {
+            throw new IllegalArgumentException("Stream must support mark/reset");
+        }
+
+        in.mark(PREFIX_LENGTH);
+        byte[] prefix = in.readNBytes(PREFIX_LENGTH);
+        in.reset();
+
+        return detect(new ByteBufferCharSequence(ByteBuffer.wrap(prefix)), hint);
+    }
+
+    // ==================== Evidence ====================
+
+    private static int countHpglCommands(CharSequence text, int to) {
+        int count = 0;
+        int start = 0;
+
+        // The last command may be cut off by the prefix limit, so only terminated ones count
+        for (int i = 0; i < to; i++) {
+            if (HPGL_TERMINATORS.indexOf(text.charAt(i)) < 0) {
+                continue;
+            }
+            if (isHpglCommand(text, start, i)) {
+                count++;
+            }
+            start = i + 1;
+        }
+        return count;
+    }
+
+    private static boolean isHpglCommand(CharSequence text, int start, int end) {
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        if (end - start < 2) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == GERBER_DELIMITER) {
+                return false;
+            }
+        }
+        for (String mnemonic : HPGL_MNEMONICS) {
+            if (TextRange.startsWith(text, start, end, mnemonic)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static GerberEvidence countGerberCommands(CharSequence text, int to) {
+        GerberEvidence evidence = new GerberEvidence();
+        int start = 0;
+
+        for (int i = 0; i < to; i++) {
+            if (text.charAt(i) != GERBER_DELIMITER) {
+                continue;
+            }
+            countGerberCommand(text, start, i, evidence);
+            start = i + 1;
+        }
+        return evidence;
+    }
+
+    private static void countGerberCommand(CharSequence text, int start, int end, GerberEvidence evidence) {
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return;
+        }
+
+        char code = text.charAt(start);
+        if ((code == 'N' || code == 'M' || code == 'D' || code == 'G' || code == 'H')
+                && skipDigits(text, start + 1, end) == end && end - start > 1) {
+            evidence.commands++;
+            if (TextRange.equals(text, start, end, "M19")) {
+                evidence.ggtMarkers++;
+            }
+            return;
+        }
+
+        if (code == 'X') {
+            int xDigits = skipSign(text, start + 1, end);
+            int yIndex = skipDigits(text, xDigits, end);
+            if (yIndex == xDigits || yIndex >= end || text.charAt(yIndex) != 'Y') {
+                return;
+            }
+            int yDigits = skipSign(text, yIndex + 1, end);
+            int mIndex = skipDigits(text, yDigits, end);
+            if (mIndex == yDigits) {
+                return;
+            }
+            if (mIndex == end) {
+                evidence.commands++;
+            } else if (TextRange.equals(text, mIndex, end, "M31")) {
+                evidence.commands++;
+                evidence.cutMarkers++;
+            }
+        }
+    }
+
+    private static int skipSign(CharSequence text, int i, int end) {
+        return i < end && text.charAt(i) == '-' ? i + 1 : i;
+    }
+
+    private static int skipDigits(CharSequence text, int i, int end) {
+        while (i < end && text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+            i++;
+        }
+        return i;
+    }
+
+    // ==================== Extension Groups ====================
+
+    private static boolean isHpgl(FileExtension extension) {
+        return extension == FileExtension.HPGL || extension == FileExtension.PLT || extension == FileExtension.HPG;
+    }
+
+    private static boolean isGerberFamily(FileExtension extension) {
+        return extension == FileExtension.CUT || extension == FileExtension.CAM || extension == FileExtension.GGT;
+    }
+
+    private static boolean usesSameProcessor(FileExtension hint, FileExtension detected) {
+        if (detected == FileExtension.CUT) {
+            return hint == FileExtension.CUT || hint == FileExtension.CAM;
+        }
+        return hint == detected;
+    }
+
+    private static class GerberEvidence {
+        int commands;
+        int ggtMarkers;
+        int cutMarkers;
+    }
+}
@@ -0,0 +1,252 @@
+package tr.com.logidex.cad.processor;
+
+import tr.com.logidex.cad.PlotterScale;
+import tr.com.logidex.cad.helper.ByteBufferCharSequence;
+import tr.com.logidex.cad.model.PackedPolyline;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Processor for GGT format CAD files.
+ * Handles pattern parsing, label extraction, and coordinate scaling.
+ */
+public final  class GGTFileProcessor extends FileProcessor {
+
+    private static final double SCALE_BASE = 0.025;
+    private static final double SCALE_MULTIPLIER_2 = 10.0f;
+
+    // Parallel mode: work units per pool thread, so uneven piece sizes still balance out
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private List<GGTPattern> patterns;
+
+    public GGTFileProcessor(String fileContent) {
+        super(fileContent);
+        this.patterns = new ArrayList<>();
+    }
+
+    /**
+     * Creates a processor over raw file bytes, e.g. a memory-mapped file.
+     * The bytes are read as ISO-8859-1 without being copied into a String.
+     *
+     * @param fileContent The file content
+     */
+    public GGTFileProcessor(ByteBuffer fileContent) {
+        super(new ByteBufferCharSequence(fileContent));
+        this.patterns = new ArrayList<>();
+    }
+
+    /**
+     * Creates a processor that reads the content incrementally, e.g. from a decompressing stream.
+     *
+     * @param fileContent The file content
+     */
+    public GGTFileProcessor(InputStream fileContent) {
+        super(fileContent);
+        this.patterns = new ArrayList<>();
+    }
+
+    @Override
+    protected void prepareCommands() {
+        // The whole file is lexed in a single pass by interpretCommands
+    }
+
+    @Override
+    protected void interpretCommands() {
+        if (isStreamed()) {
+            interpretStream();
+            return;
+        }
+
+        CharSequence fileContent = getFileContent();
+
+        if (!isParallelParsing()) {
+            // Each pattern is handed over as soon as its N-block ends
+            patterns = new ArrayList<>();
+            GGTLexer.lex(fileContent, 0, fileContent.length(), this::acceptPattern);
+            return;
+        }
+
+        patterns = parseInParallel(fileContent);
+
+        List<PackedPolyline> scaledLinesPerPattern = patterns.parallelStream()
+                .map(pattern -> scaleLines(pattern.getPolyline()))
+                .collect(Collectors.toList());
+
+        for (int i = 0; i < patterns.size(); i++) {
+            addPattern(patterns.get(i), scaledLinesPerPattern.get(i));
+        }
+    }
+
+    /**
+     * Lexes the content stream window by window. Every window after the first starts with an
+     * N-block and the lexer carries no state from one block to the next, so each window is lexed on its own.
+     */
+    private void interpretStream() {
+        patterns = new ArrayList<>();
+
+        readContentStream((window, last) -> {
+            int end = last ? window.length() : Math.max(0, GGTLexer.findLastPieceStart(window, 0, window.length()));
+            if (end > 0) {
+                GGTLexer.lex(window, 0, end, this::acceptPattern);
+            }
+            return end;
+        });
+    }
+
+    private void acceptPattern(GGTPattern pattern) {
+        patterns.add(pattern);
+        addPattern(pattern, scaleLines(pattern.getPolyline()));
+    }
+
+    private void addPattern(GGTPattern pattern, PackedPolyline scaledLines) {
+        System.out.println("=== Pattern: " + pattern.getId() + " ===");
+
+        if (pattern.getLabel() != null) {
+            pattern.getLabel().setText(internLabelText(pattern.getLabel().getText()));
+        }
+
+        super.polylines.add(scaledLines);
+        addPiece(pattern.getId(), scaledLines);
+        super.getGGTParcalar().add(pattern);
+
+        // Compact geometry would otherwise stay on the heap as the pattern's unscaled double copy
+        if (isOffHeapGeometry() || isFixedPointCoordinates()) {
+            pattern.shareScaledPolyline(scaledLines, getCoordinateUnit());
+        }
+
+        System.out.println("Line count: " + scaledLines.segmentCount());
+        System.out.println("------------------------");
+        System.out.println(pattern.getId() + " -> " + pattern.getLabel());
+    }
+
+    /**
+     * Puts back the patterns of a marker restored from the processed-marker cache.
+     */
+    void restorePatterns(List<GGTPattern> restored) {
+        patterns = restored;
+        getGGTParcalar().clear();
+        getGGTParcalar().addAll(restored);
+    }
+
+    // ==================== Parsing Methods ====================
+
+    /**
+     * Parses the GGT file content into a list of GGTPattern objects.
+     * N-blocks, M31 labels, the M19/M15/M14 discontinuity rules and coordinates
+     * are all handled in one forward pass by GGTLexer.
+     *
+     * @param fileContent The raw file content
+     * @return List of parsed patterns
+     */
+    public List<GGTPattern> parse(CharSequence fileContent) {
+        patterns = isParallelParsing()
+                ? parseInParallel(fileContent)
+                : GGTLexer.lex(fileContent, 0, fileContent.length());
+        return patterns;
+    }
+
+    /**
+     * Splits the file at N-block boundaries and lexes the chunks on the common ForkJoin pool.
+     * Every chunk starts with its own N-block, so the chunks share no parser state and
+     * concatenating their patterns in chunk order gives the sequential result.
+     *
+     * @param fileContent The raw file content
+     * @return List of parsed patterns, in file order
+     */
+    private List<GGTPattern> parseInParallel(CharSequence fileContent) {
+        int[] pieceStarts = GGTLexer.findPieceStarts(fileContent, 0, fileContent.length());
+        int chunkCount = Math.min(pieceStarts.length, ForkJoinPool.getCommonPoolParallelism() * CHUNKS_PER_THREAD);
+
+        if (chunkCount < 2) {
+            return GGTLexer.lex(fileContent, 0, fileContent.length());
+        }
+
+        int[] chunkBounds = new int[chunkCount + 1];
+        for (int i = 0; i < chunkCount; i++) {
+            chunkBounds[i] = pieceStarts[(int) ((long) i * pieceStarts.length / chunkCount)];
+        }
+        chunkBounds[chunkCount] = fileContent.length();
+
+        return IntStream.range(0, chunkCount)
+                .parallel()
+                .mapToObj(i -> GGTLexer.lex(fileContent, chunkBounds[i], chunkBounds[i + 1]))
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+    }
+
+    // ==================== Utility Methods ====================
+
+    /**
+     * Scales all lines using the GGT-specific scale factor.
+     * In fixed-point mode the raw GGT units are kept and the factor becomes the polyline's unit;
+     * with shared vertices the scaled points go to the marker's vertex pool.
+     *
+     * @param originalLines The original lines to scale
+     * @return The scaled lines, a new polyline
+     */
+    private PackedPolyline scaleLines(PackedPolyline originalLines) {
+        if (isSharedVertices()) {
+            return originalLines.map(this::scale).toPooled(getVertexPool());
+        }
+        if (isFixedPointCoordinates()) {
+            return originalLines.toFixedPoint(1).withUnit(getCoordinateUnit());
+        }
+        return originalLines.map(this::scale);
+    }
+
+    @Override
+    protected double scale(double number) {
+        double value = number * SCALE_BASE * plotterScale.getValue();
+        return value * SCALE_MULTIPLIER_2;
+    }
+
+    /**
+     * Gets all parsed patterns.
+     *
+     * @return List of all patterns
+     */
+    public List<GGTPattern> getPatterns() {
+        return patterns;
+    }
+
+    /**
+     * Turkish compatibility method for getPatterns.
+     *
+     * @return List of all patterns
+     */
+    public List<GGTPattern> getParcalar() {
+        return getPatterns();
+    }
+
+    /**
+     * Gets a pattern by its ID.
+     *
+     * @param id The pattern ID to search for
+     * @return The pattern with the given ID, or null if not found
+     */
+    public GGTPattern getPatternById(String id) {
+        for (GGTPattern pattern : patterns) {
+            if (pattern.getId().equals(id)) {
+                return pattern;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Turkish compatibility method for getPatternById.
+     *
+     * @param id The pattern ID to search for
+     * @return The pattern with the given ID, or null if not found
+     */
+    public GGTPattern getParcaById(String id) {
+        return getPatternById(id);
+    }
+}
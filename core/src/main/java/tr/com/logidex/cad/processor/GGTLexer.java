@@ -0,0 +1,478 @@
+package tr.com.logidex.cad.processor;
+
+import tr.com.logidex.cad.geometry.Point2D;
+import tr.com.logidex.cad.model.Lbl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Hand-written single-pass lexer for GGT files.
+ * Walks the '*'-separated command stream once and builds one GGTPattern per "N[id]" block,
+ * collecting M31 labels and knife-down cut runs on the way. The M19 discontinuity rules are
+ * applied through two short token look-ahead windows instead of regex rewrites of the text.
+ */
+final class GGTLexer {
+
+    private static final char COMMAND_DELIMITER = '*';
+
+    // Token windows for the M19 rules, applied in this order:
+    // 1. M19*C1*M15*C2*M14 -> C1      (cut continues through the discontinuity)
+    // 2. M19*C1*M15*M31... -> M19*C1*M31...
+    private static final int DISCONTINUITY_LENGTH = 5;
+    private static final int M15_BEFORE_M31_LENGTH = 4;
+
+    // Label recognition states: M31*X[num]Y[num]*[text]*
+    private static final int LABEL_IDLE = 0;
+    private static final int LABEL_EXPECT_POSITION = 1;
+    private static final int LABEL_EXPECT_TEXT = 2;
+
+    private final CharSequence text;
+    private final int from;
+    private final int to;
+    private final Consumer<GGTPattern> sink;
+
+    private final int[] discontinuityStart = new int[DISCONTINUITY_LENGTH];
+    private final int[] discontinuityEnd = new int[DISCONTINUITY_LENGTH];
+    private int discontinuityCount;
+
+    private final int[] m15Start = new int[M15_BEFORE_M31_LENGTH];
+    private final int[] m15End = new int[M15_BEFORE_M31_LENGTH];
+    private int m15Count;
+
+    private GGTPattern activePattern;
+    private int labelState = LABEL_IDLE;
+    private double labelX;
+    private double labelY;
+    private boolean cutting;
+    private final CoordinateBuffer cuttingPoints = new CoordinateBuffer();
+    private final long[] coordinate = new long[2];
+
+    private GGTLexer(CharSequence text, int from, int to, Consumer<GGTPattern> sink) {
+        this.text = text;
+        this.from = from;
+        this.to = to;
+        this.sink = sink;
+    }
+
+    /**
+     * Lexes text[from, to) into patterns, in file order.
+     * Anything before the first "N[id]" block is ignored.
+     */
+    static List<GGTPattern> lex(CharSequence text, int from, int to) {
+        List<GGTPattern> patterns = new ArrayList<>();
+        lex(text, from, to, patterns::add);
+        return patterns;
+    }
+
+    /**
+     * Lexes text[from, to) and hands each pattern to the sink as soon as its block ends.
+     */
+    static void lex(CharSequence text, int from, int to, Consumer<GGTPattern> sink) {
+        new GGTLexer(text, from, to, sink).run();
+    }
+
+    /**
+     * Finds where each "N[id]" block starts, using the same rule as the lexer.
+     * Lexing text[starts[i], starts[i + 1]) yields exactly the i-th pattern.
+     *
+     * @return Start offsets of the piece tokens, in file order
+     */
+    static int[] findPieceStarts(CharSequence text, int from, int to) {
+        int[] starts = new int[64];
+        int count = 0;
+        int tokenStart = from;
+
+        for (int i = from; i < to; i++) {
+            if (text.charAt(i) != COMMAND_DELIMITER) {
+                continue;
+            }
+            if (parsePieceStart(text, tokenStart, i) >= 0) {
+                if (count == starts.length) {
+                    starts = Arrays.copyOf(starts, count * 2);
+                }
+                starts[count++] = tokenStart;
+            }
+            tokenStart = i + 1;
+        }
+
+        return Arrays.copyOf(starts, count);
+    }
+
+    /**
+     * Finds the last "N[id]" block that starts in text[from, to), using the same rule as the lexer.
+     *
+     * @return Start offset of the last piece token, or -1 if there is none
+     */
+    static int findLastPieceStart(CharSequence text, int from, int to) {
+        int tokenEnd = -1;
+
+        for (int i = to - 1; i >= from - 1; i--) {
+            if (i >= from && text.charAt(i) != COMMAND_DELIMITER) {
+                continue;
+            }
+            // Only tokens closed by a delimiter count, as in findPieceStarts
+            if (tokenEnd >= 0 && parsePieceStart(text, i + 1, tokenEnd) >= 0) {
+                return i + 1;
+            }
+            tokenEnd = i;
+        }
+        return -1;
+    }
+
+    private void run() {
+        int tokenStart = from;
+
+        for (int i = from; i <= to; i++) {
+            if (i < to && text.charAt(i) != COMMAND_DELIMITER) {
+                continue;
+            }
+            onToken(tokenStart, i, i < to);
+            tokenStart = i + 1;
+        }
+
+        finishPattern();
+    }
+
+    private void onToken(int start, int end, boolean terminated) {
+        int patternId = terminated ? parsePieceStart(text, start, end) : -1;
+        if (patternId >= 0) {
+            finishPattern();
+            activePattern = new GGTPattern(patternId);
+            return;
+        }
+
+        if (activePattern == null) {
+            return;
+        }
+
+        matchLabel(start, end, terminated);
+        pushDiscontinuityWindow(start, end);
+    }
+
+    private void finishPattern() {
+        if (activePattern == null) {
+            return;
+        }
+
+        flushDiscontinuityWindow();
+        flushM15Window();
+        assignLabel();
+        sink.accept(activePattern);
+
+        labelState = LABEL_IDLE;
+        cutting = false;
+        cuttingPoints.clear();
+    }
+
+    // ==================== Piece Blocks ====================
+
+    /**
+     * @return The id of an "N[digits]" token, or -1 if the token is not a piece start
+     */
+    private static int parsePieceStart(CharSequence text, int start, int end) {
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        if (end - start < 2 || text.charAt(start) != 'N') {
+            return -1;
+        }
+
+        long id = 0;
+        for (int i = start + 1; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            id = id * 10 + (c - '0');
+            if (id > Integer.MAX_VALUE) {
+                return -1;
+            }
+        }
+        return (int) id;
+    }
+
+    // ==================== Labels ====================
+
+    private void matchLabel(int start, int end, boolean terminated) {
+        switch (labelState) {
+            case LABEL_EXPECT_POSITION:
+                if (parseCoordinate(start, end, true)) {
+                    labelX = coordinate[0];
+                    labelY = coordinate[1];
+                    labelState = LABEL_EXPECT_TEXT;
+                    return;
+                }
+                break;
+
+            case LABEL_EXPECT_TEXT:
+                labelState = LABEL_IDLE;
+                if (terminated && end > start) {
+                    String labelText = text.subSequence(start, end).toString();
+                    activePattern.getParcaninEtiketleri().put(labelText, new Point2D(labelX, labelY));
+                    return;
+                }
+                break;
+
+            default:
+                break;
+        }
+
+        labelState = endsWith(start, end, "M31") ? LABEL_EXPECT_POSITION : LABEL_IDLE;
+    }
+
+    /**
+     * Assigns a consolidated label to the active piece from all label text entries.
+     */
+    private void assignLabel() {
+        Map<String, Point2D> labelData = activePattern.getLabelTextPositions();
+
+        if (!labelData.isEmpty()) {
+            StringBuilder labelTextBuilder = new StringBuilder();
+            Point2D position = new Point2D(0, 0);
+
+            for (Map.Entry<String, Point2D> entry : labelData.entrySet()) {
+                labelTextBuilder.append(entry.getKey()).append("\n");
+                position = entry.getValue();
+            }
+
+            activePattern.setLabel(new Lbl(labelTextBuilder.toString(), position, 0, 2, 12, 12));
+        }
+    }
+
+    // ==================== M19 Discontinuity Rules ====================
+
+    private void pushDiscontinuityWindow(int start, int end) {
+        discontinuityStart[discontinuityCount] = start;
+        discontinuityEnd[discontinuityCount] = end;
+        discontinuityCount++;
+
+        while (discontinuityCount > 0) {
+            if (!isDiscontinuityPrefix()) {
+                pushM15Window(discontinuityStart[0], discontinuityEnd[0]);
+                shift(discontinuityStart, discontinuityEnd, discontinuityCount--);
+            } else if (discontinuityCount == DISCONTINUITY_LENGTH) {
+                // Keep the M19 point only: the knife never lifts
+                pushM15Window(discontinuityStart[1], discontinuityEnd[1]);
+                discontinuityCount = 0;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private boolean isDiscontinuityPrefix() {
+        for (int i = 0; i < discontinuityCount; i++) {
+            int start = discontinuityStart[i];
+            int end = discontinuityEnd[i];
+            boolean matches = switch (i) {
+                case 0 -> equals(start, end, "M19");
+                case 1, 3 -> parseCoordinate(start, end, false);
+                case 2 -> equals(start, end, "M15");
+                default -> equals(start, end, "M14");
+            };
+            if (!matches) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void flushDiscontinuityWindow() {
+        for (int i = 0; i < discontinuityCount; i++) {
+            pushM15Window(discontinuityStart[i], discontinuityEnd[i]);
+        }
+        discontinuityCount = 0;
+    }
+
+    private void pushM15Window(int start, int end) {
+        m15Start[m15Count] = start;
+        m15End[m15Count] = end;
+        m15Count++;
+
+        while (m15Count > 0) {
+            if (!isM15BeforeM31Prefix()) {
+                interpretCommand(m15Start[0], m15End[0]);
+                shift(m15Start, m15End, m15Count--);
+            } else if (m15Count == M15_BEFORE_M31_LENGTH) {
+                // Drop the M15 so the label block does not end the cut
+                interpretCommand(m15Start[0], m15End[0]);
+                interpretCommand(m15Start[1], m15End[1]);
+                interpretCommand(m15Start[3], m15End[3]);
+                m15Count = 0;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private boolean isM15BeforeM31Prefix() {
+        for (int i = 0; i < m15Count; i++) {
+            int start = m15Start[i];
+            int end = m15End[i];
+            boolean matches = switch (i) {
+                case 0 -> equals(start, end, "M19");
+                case 1 -> parseCoordinate(start, end, false);
+                case 2 -> equals(start, end, "M15");
+                default -> startsWith(start, end, "M31");
+            };
+            if (!matches) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void flushM15Window() {
+        for (int i = 0; i < m15Count; i++) {
+            interpretCommand(m15Start[i], m15End[i]);
+        }
+        m15Count = 0;
+    }
+
+    private static void shift(int[] starts, int[] ends, int count) {
+        System.arraycopy(starts, 1, starts, 0, count - 1);
+        System.arraycopy(ends, 1, ends, 0, count - 1);
+    }
+
+    // ==================== Command Interpretation ====================
+
+    /**
+     * Applies one knife command (M14/M15) or coordinate to the active piece.
+     */
+    private void interpretCommand(int start, int end) {
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return;
+        }
+
+        if (equals(start, end, "M14")) {
+            cutting = true;
+            cuttingPoints.clear();
+        } else if (equals(start, end, "M15")) {
+            if (cutting && cuttingPoints.size() > 1) {
+                createLinesFromPoints();
+                closeShapeIfNeeded();
+            }
+            cutting = false;
+            cuttingPoints.clear();
+        } else if (text.charAt(start) == 'X' && findCoordinate(start, end)) {
+            if (cutting) {
+                cuttingPoints.add(coordinate[0], coordinate[1]);
+            }
+        }
+    }
+
+    /**
+     * Creates lines connecting consecutive cutting points.
+     */
+    private void createLinesFromPoints() {
+        for (int i = 0; i < cuttingPoints.size() - 1; i++) {
+            activePattern.addLine(cuttingPoints.x(i), cuttingPoints.y(i),
+                    cuttingPoints.x(i + 1), cuttingPoints.y(i + 1));
+        }
+    }
+
+    /**
+     * Closes the shape by connecting the last point to the first if they're not equal.
+     */
+    private void closeShapeIfNeeded() {
+        int last = cuttingPoints.size() - 1;
+        double firstX = cuttingPoints.x(0);
+        double firstY = cuttingPoints.y(0);
+        double lastX = cuttingPoints.x(last);
+        double lastY = cuttingPoints.y(last);
+
+        if (firstX != lastX || firstY != lastY) {
+            activePattern.addLine(lastX, lastY, firstX, firstY);
+        }
+    }
+
+    // ==================== Token Helpers ====================
+
+    /**
+     * Finds the first "X[num]Y[num]" inside the token and stores it in coordinate.
+     */
+    private boolean findCoordinate(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == 'X' && matchCoordinateAt(i, end, true) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks that the whole token is "X[num]Y[num]" and stores it in coordinate.
+     */
+    private boolean parseCoordinate(int start, int end, boolean allowNegative) {
+        return start < end && text.charAt(start) == 'X' && matchCoordinateAt(start, end, allowNegative) == end;
+    }
+
+    /**
+     * Matches X[num]Y[num] at the given 'X'.
+     *
+     * @return The index after the Y digits, or -1 if there is no match
+     */
+    private int matchCoordinateAt(int xIndex, int end, boolean allowNegative) {
+        int yIndex = matchInteger(xIndex + 1, end, allowNegative, 0);
+        if (yIndex < 0 || yIndex >= end || text.charAt(yIndex) != 'Y') {
+            return -1;
+        }
+        return matchInteger(yIndex + 1, end, allowNegative, 1);
+    }
+
+    /**
+     * Matches an optionally signed run of digits and stores its value in coordinate[slot].
+     *
+     * @return The index after the last digit, or -1 if there are no digits
+     */
+    private int matchInteger(int start, int end, boolean allowNegative, int slot) {
+        int i = start;
+        boolean negative = false;
+        if (allowNegative && i < end && text.charAt(i) == '-') {
+            negative = true;
+            i++;
+        }
+
+        int digitsStart = i;
+        long value = 0;
+        while (i < end) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            if (value > (Long.MAX_VALUE - 9) / 10) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+            i++;
+        }
+
+        if (i == digitsStart) {
+            return -1;
+        }
+        coordinate[slot] = negative ? -value : value;
+        return i;
+    }
+
+    private boolean equals(int start, int end, String command) {
+        return TextRange.equals(text, start, end, command);
+    }
+
+    private boolean startsWith(int start, int end, String prefix) {
+        return TextRange.startsWith(text, start, end, prefix);
+    }
+
+    private boolean endsWith(int start, int end, String suffix) {
+        return TextRange.endsWith(text, start, end, suffix);
+    }
+}
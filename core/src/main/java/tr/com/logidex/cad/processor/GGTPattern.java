@@ -1,13 +1,11 @@
 package tr.com.logidex.cad.processor;
 
 
-import javafx.geometry.Point2D;
-import javafx.scene.shape.Line;
+import tr.com.logidex.cad.geometry.Point2D;
 import tr.com.logidex.cad.model.Lbl;
+import tr.com.logidex.cad.model.PackedPolyline;
 
-import java.util.ArrayList;
 import java.util.LinkedHashMap;
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -18,13 +16,16 @@ import java.util.Map;
 public class GGTPattern {
 
     private final Integer id;
-    private final List<Line> lines;
+    private PackedPolyline lines;
+    // Set instead of lines once the processor keeps only the scaled geometry, e.g. off-heap
+    private PackedPolyline scaledLines;
+    private double scale;
     private final Map<String, Point2D> labelTextPositions;
     private Lbl consolidatedLabel;
 
     public GGTPattern(Integer id) {
         this.id = id;
-        this.lines = new ArrayList<>();
+        this.lines = new PackedPolyline(false);
         this.labelTextPositions = new LinkedHashMap<>();
         this.consolidatedLabel = null;
     }
@@ -55,11 +56,17 @@ public class GGTPattern {
         }
 
         if (!start.equals(end)) {
-            Line line = new Line(
-                    start.getX(), start.getY(),
-                    end.getX(), end.getY()
-            );
-            lines.add(line);
+            lines.addSegment(start.getX(), start.getY(), end.getX(), end.getY());
+        }
+    }
+
+    /**
+     * Adds a line to this pattern from (startX, startY) to (endX, endY).
+     * Lines with identical start and end points are ignored.
+     */
+    public void addLine(double startX, double startY, double endX, double endY) {
+        if (startX != endX || startY != endY) {
+            lines.addSegment(startX, startY, endX, endY);
         }
     }
 
@@ -74,12 +81,37 @@ public class GGTPattern {
     }
 
     /**
-     * Gets all lines that form this pattern's shape.
+     * Gets the segments that form this pattern's shape, unscaled. Once the pattern shares the
+     * piece's scaled polyline, this is a new copy worked back from it on every call.
+     *
+     * @return The pattern's polyline
+     */
+    public PackedPolyline getPolyline() {
+        if (lines != null) {
+            return lines;
+        }
+        double factor = scale;
+        return scaledLines.map(value -> value / factor);
+    }
+
+    /**
+     * Drops the pattern's own segments in favour of the piece's scaled polyline, so a marker kept
+     * in a compact form holds no second, unscaled copy of every piece on the heap.
      *
-     * @return The lines list
+     * @param scaledLines The pattern's segments multiplied by scale
+     * @param scale The factor the segments were scaled by
+     */
+    void shareScaledPolyline(PackedPolyline scaledLines, double scale) {
+        this.scaledLines = scaledLines;
+        this.scale = scale;
+        this.lines = null;
+    }
+
+    /**
+     * @return true if the pattern holds no segments of its own and getPolyline works them out from the piece's
      */
-    public List<Line> getLines() {
-        return lines;
+    public boolean isPolylineShared() {
+        return lines == null;
     }
 
     /**
@@ -88,7 +120,7 @@ public class GGTPattern {
      * @return The line count
      */
     public int getLineCount() {
-        return lines.size();
+        return lines != null ? lines.segmentCount() : scaledLines.segmentCount();
     }
 
     // ==================== Label Management ====================
@@ -174,7 +206,7 @@ public class GGTPattern {
     @Override
     public String toString() {
         return String.format("GGTPattern[id=%d, lines=%d, labels=%d, hasConsolidatedLabel=%b]",
-                id, lines.size(), labelTextPositions.size(), hasLabel());
+                id, getLineCount(), labelTextPositions.size(), hasLabel());
     }
 
     @Override
@@ -0,0 +1,156 @@
+package tr.com.logidex.cad.processor;
+
+/**
+ * Decodes Gerber "X[int]Y[int]" coordinate instructions in place, with optional "I[int]J[int]"
+ * arc centre offsets and an optional trailing "M31".
+ * Digits are accumulated into longs and converted to double once, so the values are exact
+ * for any coordinate a plotter can emit. The decoder is reusable and allocates nothing.
+ */
+final class GerberCoordinateDecoder {
+
+    private static final char AXIS_X = 'X';
+    private static final char AXIS_Y = 'Y';
+    private static final char OFFSET_I = 'I';
+    private static final char OFFSET_J = 'J';
+    private static final char MISC_PREFIX = 'M';
+
+    private double x;
+    private double y;
+    private double i;
+    private double j;
+    private boolean hasCenterOffset;
+    private boolean hasLabelCommand;
+
+    /**
+     * Decodes text[from, to), where from points at the X axis letter.
+     * I and J may follow Y in that order; a missing one is 0.
+     * Anything after an 'M' other than a leading "M31" is ignored.
+     *
+     * @return false if the instruction is not a valid coordinate pair
+     */
+    boolean decode(CharSequence text, int from, int to) {
+        if (from >= to || text.charAt(from) != AXIS_X) {
+            return false;
+        }
+
+        int yIndex = -1;
+        int iIndex = -1;
+        int jIndex = -1;
+        int end = to;
+        for (int k = from + 1; k < to; k++) {
+            char c = text.charAt(k);
+            if (c == AXIS_Y && yIndex < 0) {
+                yIndex = k;
+            } else if (c == OFFSET_I && yIndex >= 0 && iIndex < 0 && jIndex < 0) {
+                iIndex = k;
+            } else if (c == OFFSET_J && yIndex >= 0 && jIndex < 0) {
+                jIndex = k;
+            } else if (c == MISC_PREFIX) {
+                end = k;
+                break;
+            }
+        }
+
+        if (yIndex < 0) {
+            return false;
+        }
+
+        int jEnd = end;
+        int iEnd = jIndex >= 0 ? jIndex : end;
+        int yEnd = iIndex >= 0 ? iIndex : iEnd;
+
+        hasLabelCommand = end + 2 < to
+                && text.charAt(end + 1) == '3'
+                && text.charAt(end + 2) == '1';
+
+        double xValue = parseValue(text, from + 1, yIndex);
+        double yValue = parseValue(text, yIndex + 1, yEnd);
+        double iValue = iIndex >= 0 ? parseValue(text, iIndex + 1, iEnd) : 0;
+        double jValue = jIndex >= 0 ? parseValue(text, jIndex + 1, jEnd) : 0;
+        if (Double.isNaN(xValue) || Double.isNaN(yValue) || Double.isNaN(iValue) || Double.isNaN(jValue)) {
+            return false;
+        }
+
+        x = xValue;
+        y = yValue;
+        i = iValue;
+        j = jValue;
+        hasCenterOffset = iIndex >= 0 || jIndex >= 0;
+        return true;
+    }
+
+    /**
+     * Parses a signed integer, falling back to the general decimal parser for other forms.
+     */
+    private static double parseValue(CharSequence text, int from, int to) {
+        if (from >= to) {
+            return Double.NaN;
+        }
+
+        int i = from;
+        boolean negative = false;
+        char c = text.charAt(i);
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            i++;
+        }
+
+        long value = 0;
+        int digits = 0;
+        for (; i < to; i++) {
+            c = text.charAt(i);
+            if (c < '0' || c > '9' || digits == 18) {
+                return NumberParser.parseDouble(text, from, to);
+            }
+            value = value * 10 + (c - '0');
+            digits++;
+        }
+
+        if (digits == 0) {
+            return Double.NaN;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * @return The raw (unscaled) X value of the last decoded instruction
+     */
+    double x() {
+        return x;
+    }
+
+    /**
+     * @return The raw (unscaled) Y value of the last decoded instruction
+     */
+    double y() {
+        return y;
+    }
+
+    /**
+     * @return The raw X offset from the start point to the arc centre, 0 if absent
+     */
+    double i() {
+        return i;
+    }
+
+    /**
+     * @return The raw Y offset from the start point to the arc centre, 0 if absent
+     */
+    double j() {
+        return j;
+    }
+
+    /**
+     * @return true if the last decoded instruction had an I or J centre offset
+     */
+    boolean hasCenterOffset() {
+        return hasCenterOffset;
+    }
+
+    /**
+     * @return true if the last decoded instruction ended with an attached M31 label command
+     */
+    boolean hasLabelCommand() {
+        return hasLabelCommand;
+    }
+}
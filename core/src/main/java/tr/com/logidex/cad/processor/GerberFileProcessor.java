@@ -0,0 +1,368 @@
+package tr.com.logidex.cad.processor;
+
+import tr.com.logidex.cad.PlotterScale;
+import tr.com.logidex.cad.geometry.Arc;
+import tr.com.logidex.cad.geometry.Point2D;
+import tr.com.logidex.cad.helper.ByteBufferCharSequence;
+import tr.com.logidex.cad.helper.PieceSequenceNumberCreator;
+import tr.com.logidex.cad.model.Lbl;
+import tr.com.logidex.cad.model.PackedPolyline;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Processor for Gerber format CAD files (.CUT, .CAM extensions).
+ * Handles M14/M15 (knife down/up) commands, G01/G02/G03 linear and circular interpolation and M31 label commands.
+ * The '*'-separated commands are scanned in place, without splitting the content into Strings.
+ */
+public final class GerberFileProcessor extends FileProcessor {
+
+    private static final String LABEL_COMMAND_INDEPENDENT = "M31";
+    private static final String KNIFE_DOWN_COMMAND = "M14";
+    private static final String KNIFE_UP_COMMAND = "M15";
+    private static final char NEW_PIECE_PREFIX = 'N';
+    private static final char COORDINATE_PREFIX = 'X';
+    private static final char PREPARATORY_PREFIX = 'G';
+    private static final char PARAMETER_PREFIX = 'p';
+    private static final char COMMAND_DELIMITER = '*';
+    private static final String DELIMITERS = String.valueOf(COMMAND_DELIMITER);
+    // Single-character tokens that carry no command: SUB (end of file), LF, CR
+    private static final String SEPARATOR_CHARS = "\32\n\r";
+    private static final double SCALE_FACTOR = 10.0f;
+
+    // Interpolation modes set by G01, G02 and G03
+    private static final int LINEAR = 1;
+    private static final int CLOCKWISE = 2;
+    private static final int COUNTER_CLOCKWISE = 3;
+
+    private static final double DEFAULT_ARC_TOLERANCE = 0.01;
+    private static final double FULL_CIRCLE = 360;
+
+    private double arcTolerance = DEFAULT_ARC_TOLERANCE;
+    private final ArcTessellator arcTessellator = new ArcTessellator();
+    private final CoordinateBuffer arcPoints = new CoordinateBuffer();
+    Map<Integer, List<Arc>> arcsForClosedShapes = new HashMap<>();
+
+    public GerberFileProcessor(String fileContent) {
+        super(fileContent);
+    }
+
+    /**
+     * Creates a processor over raw file bytes, e.g. a memory-mapped file.
+     * The bytes are read as ISO-8859-1 without being copied into a String.
+     *
+     * @param fileContent The file content
+     */
+    public GerberFileProcessor(ByteBuffer fileContent) {
+        super(new ByteBufferCharSequence(fileContent));
+    }
+
+    /**
+     * Creates a processor that reads the content incrementally, e.g. from a decompressing stream.
+     *
+     * @param fileContent The file content
+     */
+    public GerberFileProcessor(InputStream fileContent) {
+        super(fileContent);
+    }
+
+    /**
+     * Sets the largest allowed distance between a G02/G03 arc and the chords that replace it.
+     * Must be set before processing starts.
+     *
+     * @param arcTolerance Tolerance in drawing units, must be > 0
+     */
+    public void setArcTolerance(double arcTolerance) {
+        if (!(arcTolerance > 0)) {
+            throw new IllegalArgumentException("Arc tolerance must be positive: " + arcTolerance);
+        }
+        this.arcTolerance = arcTolerance;
+    }
+
+    public double getArcTolerance() {
+        return arcTolerance;
+    }
+
+    /**
+     * The circular cuts of a piece as exact arcs, for exporters that can write arcs instead of
+     * the chords in the piece's lines. Coordinates are drawing units and follow the pieces when the
+     * drawing is flipped; angles are in degrees, counter-clockwise positive.
+     *
+     * @param pieceId The piece id
+     * @return The arcs in cutting order, empty if the piece has none
+     */
+    public List<Arc> getArcs(int pieceId) {
+        List<Arc> arcs = arcsForClosedShapes == null ? null : arcsForClosedShapes.get(pieceId);
+        return arcs == null ? List.of() : Collections.unmodifiableList(arcs);
+    }
+
+    /**
+     * Mirrors the stored arcs the way flipping mirrors the pieces, so they keep matching the chords.
+     * A mirror image runs the other way round, so each sweep changes sign.
+     */
+    void mirrorArcs(Flipping flipping, double width, double height) {
+        if (arcsForClosedShapes == null) {
+            return;
+        }
+        for (List<Arc> arcs : arcsForClosedShapes.values()) {
+            arcs.replaceAll(arc -> flipping == Flipping.HORIZONTAL
+                    ? new Arc(width - arc.getCenterX(), arc.getCenterY(), arc.getRadiusX(), arc.getRadiusY(),
+                            normalizeAngle(FULL_CIRCLE / 2 - arc.getStartAngle()), -arc.getLength())
+                    : new Arc(arc.getCenterX(), height - arc.getCenterY(), arc.getRadiusX(), arc.getRadiusY(),
+                            normalizeAngle(-arc.getStartAngle()), -arc.getLength()));
+        }
+    }
+
+    @Override
+    public void clearAll() {
+        super.clearAll();
+        arcsForClosedShapes = null;
+    }
+
+    @Override
+    protected void prepareCommands() {
+        // Commands are scanned in place by interpretCommands
+    }
+
+    @Override
+    protected void interpretCommands() {
+        CommandState state = new CommandState();
+
+        if (isStreamed()) {
+            // Commands are context-free between delimiters, so a window may end after any '*'
+            readContentStream((window, last) -> {
+                int end = last ? window.length() : StreamWindowReader.endOfLastCommand(window, DELIMITERS);
+                interpretRange(window, 0, end, state);
+                return end;
+            });
+        } else {
+            CharSequence text = getFileContent();
+            interpretRange(text, 0, text.length(), state);
+        }
+
+        savePieceIfNotEmpty(state);
+    }
+
+    /**
+     * Interprets the commands in text[from, to). The piece open at the end stays open.
+     */
+    private void interpretRange(CharSequence text, int from, int to, CommandState state) {
+        int start = from;
+
+        for (int end = from; end <= to; end++) {
+            if (end < to && text.charAt(end) != COMMAND_DELIMITER) {
+                continue;
+            }
+
+            int commandStart = start;
+            start = end + 1;
+
+            if (isUnwantedCommand(text, commandStart, end) || text.charAt(commandStart) == PARAMETER_PREFIX) {
+                continue; // Skip separators and parameter settings
+            }
+
+            if (text.charAt(commandStart) == NEW_PIECE_PREFIX) {
+                savePieceIfNotEmpty(state);
+                continue;
+            }
+
+            processKnifeCommands(text, commandStart, end, state);
+            processAttachedLabel(text, commandStart, end, state);
+            processCoordinateCommand(text, processInterpolationCommand(text, commandStart, end, state), end, state);
+            processIndependentLabel(text, commandStart, end, state);
+        }
+    }
+
+    /**
+     * Commands are not trimmed; only empty tokens and lone separator characters are dropped.
+     */
+    private static boolean isUnwantedCommand(CharSequence text, int from, int to) {
+        if (from == to) {
+            return true;
+        }
+        return to - from == 1 && SEPARATOR_CHARS.indexOf(text.charAt(from)) >= 0;
+    }
+
+    private void processKnifeCommands(CharSequence text, int from, int to, CommandState state) {
+        if (TextRange.startsWith(text, from, to, KNIFE_DOWN_COMMAND)) {
+            state.knifeDown = true;
+        } else if (TextRange.startsWith(text, from, to, KNIFE_UP_COMMAND)) {
+            state.knifeDown = false;
+        }
+    }
+
+    private void processAttachedLabel(CharSequence text, int from, int to, CommandState state) {
+        if (state.m31DetectedAttachedToXY) {
+            labels.add(createLabel(text, from, to, state));
+            state.m31DetectedAttachedToXY = false;
+        }
+    }
+
+    /**
+     * Sets the interpolation mode for a G01/G02/G03 prefix, which may carry a coordinate, e.g. "G02X10Y0I5J0".
+     *
+     * @return The index after the G code, or from if the command has none
+     */
+    private static int processInterpolationCommand(CharSequence text, int from, int to, CommandState state) {
+        if (text.charAt(from) != PREPARATORY_PREFIX) {
+            return from;
+        }
+
+        int code = 0;
+        int i = from + 1;
+        while (i < to && text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+            code = code * 10 + (text.charAt(i) - '0');
+            i++;
+        }
+
+        // Label text may start with a G as well
+        if (i == from + 1 || (i < to && text.charAt(i) != COORDINATE_PREFIX)) {
+            return from;
+        }
+        if (code == LINEAR || code == CLOCKWISE || code == COUNTER_CLOCKWISE) {
+            state.interpolation = code;
+        }
+        return i;
+    }
+
+    private void processCoordinateCommand(CharSequence text, int from, int to, CommandState state) {
+        if (from >= to || text.charAt(from) != COORDINATE_PREFIX) {
+            return;
+        }
+
+        GerberCoordinateDecoder decoder = state.decoder;
+
+        if (decoder.decode(text, from, to)) {
+            double x = scale(decoder.x());
+            double y = scale(decoder.y());
+
+            if (decoder.hasLabelCommand()) {
+                state.m31DetectedAttachedToXY = true;
+            }
+
+            if (state.knifeDown && state.interpolation != LINEAR && decoder.hasCenterOffset()) {
+                cutArc(x, y, scale(decoder.i()), scale(decoder.j()), state);
+            } else if (state.knifeDown) {
+                cutTo(x, y, state);
+            }
+
+            state.currentX = x;
+            state.currentY = y;
+        }
+    }
+
+    private void cutTo(double x, double y, CommandState state) {
+        if (state.currentPiece == null) {
+            state.currentPiece = newPiecePolyline(true);
+            polylines.add(state.currentPiece);
+        }
+        // A cut that does not start where the last one ended (knife lifted in between) starts a new run
+        state.currentPiece.addSegment(x, y, state.currentX, state.currentY);
+        state.currentX = x;
+        state.currentY = y;
+    }
+
+    /**
+     * Cuts a G02/G03 arc from the knife position to (x, y) around the centre at offset (i, j),
+     * as the fewest chords within the arc tolerance. A zero-length arc is a full circle.
+     * The chords end exactly on (x, y), even if the file's end point is slightly off the circle.
+     */
+    private void cutArc(double x, double y, double i, double j, CommandState state) {
+        double centerX = state.currentX + i;
+        double centerY = state.currentY + j;
+        double startAngle = normalizeAngle(Math.toDegrees(Math.atan2(-j, -i)));
+        double endAngle = normalizeAngle(Math.toDegrees(Math.atan2(y - centerY, x - centerX)));
+
+        double sweep = endAngle - startAngle;
+        if (state.interpolation == COUNTER_CLOCKWISE) {
+            sweep = sweep <= 0 ? sweep + FULL_CIRCLE : sweep;
+        } else {
+            sweep = sweep >= 0 ? sweep - FULL_CIRCLE : sweep;
+        }
+
+        int count = arcTessellator.tessellate(centerX, centerY, state.currentX, state.currentY,
+                sweep, arcTolerance, arcPoints);
+        if (count == 0) {
+            cutTo(x, y, state);
+            return;
+        }
+
+        for (int k = 0; k < count - 1; k++) {
+            cutTo(arcPoints.x(k), arcPoints.y(k), state);
+        }
+        cutTo(x, y, state);
+
+        double radius = Math.hypot(i, j);
+        state.currentPieceArcs.add(new Arc(centerX, centerY, radius, radius, startAngle, sweep));
+    }
+
+    /**
+     * @return The angle in [0, 360)
+     */
+    private static double normalizeAngle(double degrees) {
+        return degrees < 0 ? degrees + FULL_CIRCLE : degrees;
+    }
+
+    private void processIndependentLabel(CharSequence text, int from, int to, CommandState state) {
+        if (TextRange.equals(text, from, to, LABEL_COMMAND_INDEPENDENT)) {
+            state.m31DetectedIndependently = true;
+            return;
+        }
+
+        if (state.m31DetectedIndependently) {
+            state.xyCaughtFor31 = true;
+            state.m31DetectedIndependently = false;
+            return;
+        }
+
+        if (state.xyCaughtFor31) {
+            labels.add(createLabel(text, from, to, state));
+            state.xyCaughtFor31 = false;
+        }
+    }
+
+    private Lbl createLabel(CharSequence text, int from, int to, CommandState state) {
+        String labelText = internLabelText(text, from, to);
+        return new Lbl(labelText, new Point2D(state.currentX, state.currentY), 0, 2, 12, 12);
+    }
+
+    private void savePieceIfNotEmpty(CommandState state) {
+        if (state.currentPiece != null) {
+            int id = PieceSequenceNumberCreator.getSequenceNumber();
+            addPiece(id, state.currentPiece);
+            if (!state.currentPieceArcs.isEmpty()) {
+                arcsForClosedShapes.put(id, state.currentPieceArcs);
+            }
+        }
+        state.currentPiece = null;
+        state.currentPieceArcs = new ArrayList<>();
+    }
+
+    @Override
+    protected double scale(double number) {
+        return number / SCALE_FACTOR;
+    }
+
+    // ==================== Helper Classes ====================
+
+    private static class CommandState {
+        boolean knifeDown = false;
+        int interpolation = LINEAR;
+        boolean m31DetectedAttachedToXY = false;
+        boolean m31DetectedIndependently = false;
+        boolean xyCaughtFor31 = false;
+        // Last knife position, already scaled; also the start point of the next cut segment
+        double currentX = 0;
+        double currentY = 0;
+        final GerberCoordinateDecoder decoder = new GerberCoordinateDecoder();
+        // The piece being cut, null until its first segment
+        PackedPolyline currentPiece;
+        List<Arc> currentPieceArcs = new ArrayList<>();
+    }
+}
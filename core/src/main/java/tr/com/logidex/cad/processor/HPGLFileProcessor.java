@@ -0,0 +1,642 @@
+package tr.com.logidex.cad.processor;
+
+import tr.com.logidex.cad.PlotterScale;
+import tr.com.logidex.cad.geometry.Point2D;
+import tr.com.logidex.cad.helper.ByteBufferCharSequence;
+import tr.com.logidex.cad.helper.PieceSequenceNumberCreator;
+import tr.com.logidex.cad.model.Lbl;
+import tr.com.logidex.cad.model.PackedPolyline;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Processor for HPGL format CAD files (.HPGL, .PLT, .HPG extensions).
+ * Handles pen up/down commands in absolute and relative mode, arcs and circles, and label positioning.
+ * Commands are tokenized in a single pass straight from the file content.
+ * In parallel mode the file is cut at absolute PU commands and the ranges are interpreted concurrently.
+ */
+public final class HPGLFileProcessor extends FileProcessor {
+
+    private static final int COMMAND_PREFIX_LENGTH = 2;
+    private static final String COMMAND_TERMINATORS = ";\n\u0003\r";
+
+    // Parallel mode: work units per pool thread, and the smallest range worth a task
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int MIN_CHUNK_LENGTH = 1 << 16;
+
+    // Largest distance between an arc and the chords replacing it, in output units (mm at scale 1)
+    private static final double ARC_TOLERANCE = 0.01;
+    private static final double FULL_CIRCLE = 360;
+
+    // Plot mode found by scanning a range for its last PA/PR command
+    private static final int MODE_UNCHANGED = 0;
+    private static final int MODE_ABSOLUTE = 1;
+    private static final int MODE_RELATIVE = 2;
+
+    // Command opcodes (two ASCII characters packed into an int)
+    private static final int CMD_DIRECTION = opcode('D', 'I');
+    private static final int CMD_LABEL = opcode('L', 'B');
+    private static final int CMD_LABEL_ORIGIN = opcode('L', 'O');
+    private static final int CMD_PEN_DOWN = opcode('P', 'D');
+    private static final int CMD_PEN_UP = opcode('P', 'U');
+    private static final int CMD_CHAR_SIZE = opcode('S', 'I');
+    private static final int CMD_POLYLINE_ENCODED = opcode('P', 'E');
+    private static final int CMD_PLOT_ABSOLUTE = opcode('P', 'A');
+    private static final int CMD_PLOT_RELATIVE = opcode('P', 'R');
+    private static final int CMD_ARC_ABSOLUTE = opcode('A', 'A');
+    private static final int CMD_ARC_RELATIVE = opcode('A', 'R');
+    private static final int CMD_CIRCLE = opcode('C', 'I');
+
+    public HPGLFileProcessor(String fileContent) {
+        super(fileContent);
+    }
+
+    /**
+     * Creates a processor over raw file bytes, e.g. a memory-mapped file.
+     * The bytes are read as ISO-8859-1 without being copied into a String.
+     *
+     * @param fileContent The file content
+     */
+    public HPGLFileProcessor(ByteBuffer fileContent) {
+        super(new ByteBufferCharSequence(fileContent));
+    }
+
+    /**
+     * Creates a processor that reads the content incrementally, e.g. from a decompressing stream.
+     *
+     * @param fileContent The file content
+     */
+    public HPGLFileProcessor(InputStream fileContent) {
+        super(fileContent);
+    }
+
+    @Override
+    protected void prepareCommands() {
+        // Commands are tokenized on the fly by interpretCommands
+    }
+
+    @Override
+    protected void interpretCommands() {
+        if (isStreamed()) {
+            interpretStream();
+            return;
+        }
+
+        CharSequence text = getFileContent();
+        int[] chunkBounds = isParallelParsing()
+                ? findChunkBounds(text)
+                : new int[]{0, text.length()};
+        int chunkCount = chunkBounds.length - 1;
+
+        List<Chunk> chunks;
+        if (chunkCount < 2) {
+            // Sequential: pieces are handed over as soon as they are closed
+            chunks = List.of(parseChunk(text, 0, text.length(), true, false));
+        } else {
+            chunks = IntStream.range(0, chunkCount)
+                    .parallel()
+                    .mapToObj(i -> parseChunk(text, chunkBounds[i], chunkBounds[i + 1], i == 0, true))
+                    .collect(Collectors.toList());
+        }
+
+        mergeChunks(chunks);
+    }
+
+    /**
+     * Interprets the content stream window by window with one carried drawing state.
+     * Commands are context-free between terminators, so a window may end after any terminator.
+     */
+    private void interpretStream() {
+        Chunk chunk = new Chunk(true, false);
+
+        readContentStream((window, last) -> {
+            int end = last ? window.length() : StreamWindowReader.endOfLastCommand(window, COMMAND_TERMINATORS);
+            interpretRange(window, 0, end, chunk);
+            return end;
+        });
+
+        savePieceIfNotEmpty(chunk);
+        mergeChunks(List.of(chunk));
+    }
+
+    // ==================== Chunking ====================
+
+    /**
+     * Splits the file into roughly equal ranges for parallel parsing.
+     * Every range after the first starts with a PU command that has coordinates and is read in
+     * absolute mode, so the pen position is re-established before anything is drawn and
+     * a piece never spans two ranges.
+     *
+     * @param text The file content
+     * @return Range bounds; range i is [bounds[i], bounds[i + 1])
+     */
+    private static int[] findChunkBounds(CharSequence text) {
+        int length = text.length();
+        int chunkCount = Math.min(ForkJoinPool.getCommonPoolParallelism() * CHUNKS_PER_THREAD,
+                length / MIN_CHUNK_LENGTH);
+
+        if (chunkCount < 2) {
+            return new int[]{0, length};
+        }
+
+        CoordinateBuffer params = new CoordinateBuffer();
+        int[] bounds = new int[chunkCount + 1];
+        int count = 1;
+
+        for (int i = 1; i < chunkCount; i++) {
+            int target = (int) ((long) i * length / chunkCount);
+            int cut = findSafeCut(text, Math.max(target, bounds[count - 1]), length, params);
+            if (cut >= length) {
+                break;
+            }
+            if (cut > bounds[count - 1]) {
+                bounds[count++] = cut;
+            }
+        }
+
+        bounds[count++] = length;
+        return keepAbsoluteCuts(text, Arrays.copyOf(bounds, count));
+    }
+
+    /**
+     * Drops the cuts that fall in relative mode, where a PU moves by an offset from a position
+     * the next range cannot know. The last PA/PR of every range is found concurrently and
+     * the mode at each cut follows from those in one pass.
+     */
+    private static int[] keepAbsoluteCuts(CharSequence text, int[] bounds) {
+        int rangeCount = bounds.length - 1;
+        int[] lastModes = IntStream.range(0, rangeCount)
+                .parallel()
+                .map(i -> findLastPlotMode(text, bounds[i], bounds[i + 1]))
+                .toArray();
+
+        int[] kept = new int[bounds.length];
+        int count = 1;
+        boolean relative = false;
+
+        for (int i = 0; i < rangeCount; i++) {
+            if (i > 0 && !relative) {
+                kept[count++] = bounds[i];
+            }
+            if (lastModes[i] != MODE_UNCHANGED) {
+                relative = lastModes[i] == MODE_RELATIVE;
+            }
+        }
+
+        kept[count++] = text.length();
+        return Arrays.copyOf(kept, count);
+    }
+
+    private static int findLastPlotMode(CharSequence text, int from, int to) {
+        CommandReader reader = new CommandReader(text, from, to, COMMAND_TERMINATORS);
+        int mode = MODE_UNCHANGED;
+
+        while (reader.next()) {
+            if (reader.length() < COMMAND_PREFIX_LENGTH) {
+                continue;
+            }
+
+            int command = opcode(reader.charAt(0), reader.charAt(1));
+            if (command == CMD_PLOT_ABSOLUTE) {
+                mode = MODE_ABSOLUTE;
+            } else if (command == CMD_PLOT_RELATIVE) {
+                mode = MODE_RELATIVE;
+            }
+        }
+        return mode;
+    }
+
+    /**
+     * Finds the start of the first PU command after text[from] that sets the pen position.
+     *
+     * @return The index directly after the terminator preceding that command, or to if there is none
+     */
+    private static int findSafeCut(CharSequence text, int from, int to, CoordinateBuffer params) {
+        int i = from;
+        while (i < to) {
+            while (i < to && !isTerminator(text.charAt(i))) {
+                i++;
+            }
+            int commandStart = ++i;
+
+            int end = commandStart;
+            while (end < to && !isTerminator(text.charAt(end))) {
+                end++;
+            }
+            int start = commandStart;
+            while (start < end && text.charAt(start) <= ' ') {
+                start++;
+            }
+
+            if (end - start >= COMMAND_PREFIX_LENGTH
+                    && opcode(text.charAt(start), text.charAt(start + 1)) == CMD_PEN_UP
+                    && params.parsePairs(text, start + COMMAND_PREFIX_LENGTH, end) > 0) {
+                return commandStart;
+            }
+            i = end;
+        }
+        return to;
+    }
+
+    private static boolean isTerminator(char c) {
+        return COMMAND_TERMINATORS.indexOf(c) >= 0;
+    }
+
+    /**
+     * Appends the chunk results in file order. Piece IDs are drawn here, so they follow
+     * the sequential numbering, and labels get the DI/LO/SI state they inherited from earlier chunks.
+     */
+    private void mergeChunks(List<Chunk> chunks) {
+        DrawingState carried = new DrawingState(true);
+
+        for (Chunk chunk : chunks) {
+            polylines.addAll(chunk.polylines);
+
+            for (PackedPolyline pieceLines : chunk.pieces) {
+                addPiece(PieceSequenceNumberCreator.getSequenceNumber(), pieceLines);
+            }
+
+            for (PendingLabel label : chunk.labels) {
+                labels.add(label.resolve(carried));
+            }
+
+            carried.inheritFrom(chunk.state);
+        }
+    }
+
+    // ==================== Command Processing ====================
+
+    /**
+     * Interprets the commands in text[from, to).
+     *
+     * @param first true for the range at the start of the file, which begins in the default drawing state
+     * @param deferPieces true to keep the pieces for mergeChunks instead of numbering them right away
+     */
+    private Chunk parseChunk(CharSequence text, int from, int to, boolean first, boolean deferPieces) {
+        Chunk chunk = new Chunk(first, deferPieces);
+        interpretRange(text, from, to, chunk);
+        savePieceIfNotEmpty(chunk);
+        return chunk;
+    }
+
+    /**
+     * Interprets the commands in text[from, to) into the chunk. The piece open at the end stays open.
+     */
+    private void interpretRange(CharSequence text, int from, int to, Chunk chunk) {
+        DrawingState state = chunk.state;
+        CommandReader reader = new CommandReader(text, from, to, COMMAND_TERMINATORS);
+
+        while (reader.next()) {
+            if (reader.length() < COMMAND_PREFIX_LENGTH) {
+                continue;
+            }
+
+            int command = opcode(reader.charAt(0), reader.charAt(1));
+            int start = reader.start() + COMMAND_PREFIX_LENGTH;
+            int end = reader.end();
+
+            if (command == CMD_DIRECTION) {
+                processDirectionCommand(text, start, end, state);
+            } else if (command == CMD_LABEL) {
+                processLabelCommand(text, start, end, chunk);
+            } else if (command == CMD_LABEL_ORIGIN) {
+                processLabelOriginCommand(text, start, end, state);
+            } else if (command == CMD_PEN_DOWN) {
+                processPenDownCommand(text, start, end, chunk);
+            } else if (command == CMD_PEN_UP) {
+                processPenUpCommand(text, start, end, chunk);
+            } else if (command == CMD_CHAR_SIZE) {
+                processCharSizeCommand(text, start, end, state);
+            } else if (command == CMD_POLYLINE_ENCODED) {
+                processPolylineEncodedCommand(text, start, end, chunk);
+            } else if (command == CMD_PLOT_ABSOLUTE) {
+                state.relative = false;
+                plotPairs(text, start, end, chunk);
+            } else if (command == CMD_PLOT_RELATIVE) {
+                state.relative = true;
+                plotPairs(text, start, end, chunk);
+            } else if (command == CMD_ARC_ABSOLUTE) {
+                processArcCommand(text, start, end, chunk, false);
+            } else if (command == CMD_ARC_RELATIVE) {
+                processArcCommand(text, start, end, chunk, true);
+            } else if (command == CMD_CIRCLE) {
+                processCircleCommand(text, start, end, chunk);
+            }
+        }
+    }
+
+    private static int opcode(char first, char second) {
+        return (first << 16) | second;
+    }
+
+    private void processDirectionCommand(CharSequence text, int from, int to, DrawingState state) {
+        CoordinateBuffer params = state.coordinates;
+        if (params.parsePairs(text, from, to) == 0) {
+            return;
+        }
+
+        state.angle = Math.toDegrees(Math.atan2(params.y(0), params.x(0)));
+    }
+
+    private void processLabelCommand(CharSequence text, int from, int to, Chunk chunk) {
+        if (from >= to) {
+            return;
+        }
+
+        // Interned straight from the text, so a repeated label costs no copy
+        chunk.labels.add(new PendingLabel(internLabelText(text, from, to), chunk.state));
+    }
+
+    private void processLabelOriginCommand(CharSequence text, int from, int to, DrawingState state) {
+        double origin = NumberParser.parseDouble(text, from, to);
+        if (!Double.isNaN(origin)) {
+            state.origin = origin;
+        }
+    }
+
+    private void processPenDownCommand(CharSequence text, int from, int to, Chunk chunk) {
+        chunk.state.penDown = true;
+        plotPairs(text, from, to, chunk);
+    }
+
+    private void processPenUpCommand(CharSequence text, int from, int to, Chunk chunk) {
+        savePieceIfNotEmpty(chunk);
+        chunk.state.penDown = false;
+        plotPairs(text, from, to, chunk);
+    }
+
+    /**
+     * Moves through the coordinate pairs in text[from, to), drawing if the pen is down.
+     * Pairs are offsets from the previous point in relative mode.
+     */
+    private void plotPairs(CharSequence text, int from, int to, Chunk chunk) {
+        DrawingState state = chunk.state;
+        CoordinateBuffer params = state.coordinates;
+        int count = params.parsePairs(text, from, to);
+
+        if (count > 0 && !state.penDown) {
+            savePieceIfNotEmpty(chunk);
+        }
+
+        for (int i = 0; i < count; i++) {
+            double plotterX = state.relative ? state.plotterX + params.x(i) : params.x(i);
+            double plotterY = state.relative ? state.plotterY + params.y(i) : params.y(i);
+
+            if (state.penDown) {
+                drawTo(chunk, plotterX, plotterY);
+            } else {
+                moveTo(state, plotterX, plotterY);
+            }
+        }
+    }
+
+    /**
+     * AA x,y,sweep[,chord] and AR dx,dy,sweep[,chord]: an arc from the pen position around the given
+     * center. The chord parameter is ignored; chords are sized by ARC_TOLERANCE instead.
+     */
+    private void processArcCommand(CharSequence text, int from, int to, Chunk chunk, boolean relativeCenter) {
+        DrawingState state = chunk.state;
+        double[] params = state.arcParameters;
+        if (NumberParser.parseList(text, from, to, params) < 3) {
+            return;
+        }
+
+        double centerX = relativeCenter ? state.plotterX + params[0] : params[0];
+        double centerY = relativeCenter ? state.plotterY + params[1] : params[1];
+        CoordinateBuffer points = state.arcPoints;
+        int count = state.arcs.tessellate(centerX, centerY, state.plotterX, state.plotterY,
+                params[2], arcTolerance(), points);
+
+        if (count == 0) {
+            return;
+        }
+        if (!state.penDown) {
+            savePieceIfNotEmpty(chunk);
+            moveTo(state, points.x(count - 1), points.y(count - 1));
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            drawTo(chunk, points.x(i), points.y(i));
+        }
+    }
+
+    /**
+     * CI radius[,chord]: a circle around the pen position, drawn as a piece of its own whatever
+     * the pen state. The pen returns to the center afterwards.
+     */
+    private void processCircleCommand(CharSequence text, int from, int to, Chunk chunk) {
+        DrawingState state = chunk.state;
+        double[] params = state.arcParameters;
+        if (NumberParser.parseList(text, from, to, params) < 1) {
+            return;
+        }
+
+        double centerX = state.plotterX;
+        double centerY = state.plotterY;
+        double startX = centerX + params[0];
+        CoordinateBuffer points = state.arcPoints;
+        int count = state.arcs.tessellate(centerX, centerY, startX, centerY, FULL_CIRCLE, arcTolerance(), points);
+
+        if (count == 0) {
+            return;
+        }
+        savePieceIfNotEmpty(chunk);
+        moveTo(state, startX, centerY);
+        for (int i = 0; i < count; i++) {
+            drawTo(chunk, points.x(i), points.y(i));
+        }
+        savePieceIfNotEmpty(chunk);
+        moveTo(state, centerX, centerY);
+    }
+
+    /**
+     * @return ARC_TOLERANCE in plotter units
+     */
+    private double arcTolerance() {
+        return ARC_TOLERANCE / scale(1);
+    }
+
+    /**
+     * PE packs relative moves into base-64/32 digits; a pen-up pair ends the piece like PU does.
+     * The encoded data ends at the command terminator like any other parameter list.
+     */
+    private void processPolylineEncodedCommand(CharSequence text, int from, int to, Chunk chunk) {
+        DrawingState state = chunk.state;
+        PolylineEncodedDecoder decoder = state.polylineDecoder;
+        int count = decoder.decode(text, from, to);
+
+        for (int i = 0; i < count; i++) {
+            double plotterX = decoder.isAbsolute(i) ? decoder.x(i) : state.plotterX + decoder.x(i);
+            double plotterY = decoder.isAbsolute(i) ? decoder.y(i) : state.plotterY + decoder.y(i);
+
+            if (decoder.isPenUp(i)) {
+                savePieceIfNotEmpty(chunk);
+                moveTo(state, plotterX, plotterY);
+            } else {
+                drawTo(chunk, plotterX, plotterY);
+            }
+        }
+    }
+
+    /**
+     * Draws a segment from the pen position to the given point (plotter units) and moves the pen there.
+     */
+    private void drawTo(Chunk chunk, double plotterX, double plotterY) {
+        DrawingState state = chunk.state;
+        double x = scale(plotterX);
+        double y = scale(plotterY);
+
+        if (chunk.currentPiece == null) {
+            chunk.currentPiece = newPiecePolyline(true);
+            chunk.polylines.add(chunk.currentPiece);
+        }
+        chunk.currentPiece.addSegment(x, y, state.penX, state.penY);
+
+        state.plotterX = plotterX;
+        state.plotterY = plotterY;
+        state.penX = x;
+        state.penY = y;
+    }
+
+    private void moveTo(DrawingState state, double plotterX, double plotterY) {
+        state.plotterX = plotterX;
+        state.plotterY = plotterY;
+        state.penX = scale(plotterX);
+        state.penY = scale(plotterY);
+    }
+
+    private void processCharSizeCommand(CharSequence text, int from, int to, DrawingState state) {
+        CoordinateBuffer params = state.coordinates;
+        if (params.parsePairs(text, from, to) == 0) {
+            return;
+        }
+
+        state.charWidth = params.x(0);
+        state.charHeight = params.y(0);
+    }
+
+    private void savePieceIfNotEmpty(Chunk chunk) {
+        if (chunk.currentPiece == null) {
+            return;
+        }
+
+        if (chunk.deferPieces) {
+            chunk.pieces.add(chunk.currentPiece);
+        } else {
+            addPiece(PieceSequenceNumberCreator.getSequenceNumber(), chunk.currentPiece);
+        }
+        chunk.currentPiece = null;
+    }
+
+    // ==================== Helper Classes ====================
+
+    /**
+     * Drawing state while interpreting. A chunk that does not start the file begins with
+     * NaN label settings, meaning "not set in this chunk yet"; they are resolved at merge.
+     * None of the commands can produce NaN, since unparseable parameters are skipped.
+     * Every chunk starts in absolute mode with the pen up; findChunkBounds only cuts where that holds.
+     */
+    private static class DrawingState {
+        double angle;
+        double origin;
+        double charWidth;
+        double charHeight;
+        // Current pen position, already scaled; also the start point of the next PD segment
+        double penX = 0;
+        double penY = 0;
+        // The same position in plotter units, the base for relative moves
+        double plotterX = 0;
+        double plotterY = 0;
+        // PR/PA mode and the pen state set by PU/PD, which PA, PR and the arcs draw with
+        boolean relative;
+        boolean penDown;
+        final CoordinateBuffer coordinates = new CoordinateBuffer();
+        final PolylineEncodedDecoder polylineDecoder = new PolylineEncodedDecoder();
+        final ArcTessellator arcs = new ArcTessellator();
+        final CoordinateBuffer arcPoints = new CoordinateBuffer();
+        final double[] arcParameters = new double[3];
+
+        DrawingState(boolean defaults) {
+            angle = defaults ? 0 : Double.NaN;
+            origin = defaults ? 0 : Double.NaN;
+            charWidth = defaults ? 2 : Double.NaN;
+            charHeight = defaults ? 2 : Double.NaN;
+        }
+
+        void inheritFrom(DrawingState next) {
+            angle = resolve(next.angle, angle);
+            origin = resolve(next.origin, origin);
+            charWidth = resolve(next.charWidth, charWidth);
+            charHeight = resolve(next.charHeight, charHeight);
+            penX = next.penX;
+            penY = next.penY;
+            plotterX = next.plotterX;
+            plotterY = next.plotterY;
+            relative = next.relative;
+            penDown = next.penDown;
+        }
+    }
+
+    private static double resolve(double value, double carried) {
+        return Double.isNaN(value) ? carried : value;
+    }
+
+    /**
+     * Everything one range of commands produced, in file order.
+     */
+    private static class Chunk {
+        final DrawingState state;
+        final boolean deferPieces;
+        final List<PackedPolyline> polylines = new ArrayList<>();
+        final List<PackedPolyline> pieces = new ArrayList<>();
+        final List<PendingLabel> labels = new ArrayList<>();
+        // The piece being drawn, null until its first segment
+        PackedPolyline currentPiece;
+
+        Chunk(boolean first, boolean deferPieces) {
+            this.state = new DrawingState(first);
+            this.deferPieces = deferPieces;
+        }
+    }
+
+    /**
+     * A label whose DI/LO/SI settings may still refer to an earlier chunk.
+     */
+    private static class PendingLabel {
+        final String text;
+        final double x;
+        final double y;
+        final double angle;
+        final double origin;
+        final double charWidth;
+        final double charHeight;
+
+        PendingLabel(String text, DrawingState state) {
+            this.text = text;
+            this.x = state.penX;
+            this.y = state.penY;
+            this.angle = state.angle;
+            this.origin = state.origin;
+            this.charWidth = state.charWidth;
+            this.charHeight = state.charHeight;
+        }
+
+        Lbl resolve(DrawingState carried) {
+            return new Lbl(
+                    text,
+                    new Point2D(x, y),
+                    HPGLFileProcessor.resolve(angle, carried.angle),
+                    HPGLFileProcessor.resolve(origin, carried.origin),
+                    HPGLFileProcessor.resolve(charWidth, carried.charWidth),
+                    HPGLFileProcessor.resolve(charHeight, carried.charHeight)
+            );
+        }
+    }
+}
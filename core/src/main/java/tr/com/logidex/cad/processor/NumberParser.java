@@ -0,0 +1,113 @@
+package tr.com.logidex.cad.processor;
+
+/**
+ * Parses decimal numbers straight from a range of command text without creating strings.
+ * Plain integers and short fixed-point decimals, which is what plotter files contain,
+ * are converted exactly; anything else falls back to Double.parseDouble.
+ */
+final class NumberParser {
+
+    /** Largest mantissa that converts to a double without rounding (2^53). */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    /** Powers of ten that are exactly representable as doubles. */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private NumberParser() {
+    }
+
+    /**
+     * Parses text[from, to) the same way Double.parseDouble parses the equivalent string.
+     *
+     * @param text The source text
+     * @param from Start index, inclusive
+     * @param to End index, exclusive
+     * @return The parsed value, or NaN if the range is not a valid number
+     */
+    static double parseDouble(CharSequence text, int from, int to) {
+        while (from < to && text.charAt(from) <= ' ') {
+            from++;
+        }
+        while (to > from && text.charAt(to - 1) <= ' ') {
+            to--;
+        }
+        if (from == to) {
+            return Double.NaN;
+        }
+
+        int i = from;
+        boolean negative = false;
+        char c = text.charAt(i);
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean inFraction = false;
+
+        for (; i < to; i++) {
+            c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (inFraction) {
+                    fractionDigits++;
+                }
+                if (mantissa > MAX_EXACT_MANTISSA) {
+                    return parseSlow(text, from, to);
+                }
+            } else if (c == '.' && !inFraction) {
+                inFraction = true;
+            } else {
+                return parseSlow(text, from, to);
+            }
+        }
+
+        if (digits == 0 || fractionDigits >= POWERS_OF_TEN.length) {
+            return parseSlow(text, from, to);
+        }
+
+        // Both operands are exact doubles, so the division is correctly rounded
+        double value = fractionDigits == 0 ? mantissa : mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses the comma-separated numbers in text[from, to) into out, up to out.length values.
+     *
+     * @return The number of values read before the first unparseable one
+     */
+    static int parseList(CharSequence text, int from, int to, double[] out) {
+        int count = 0;
+        int fieldStart = from;
+
+        for (int i = from; i <= to && count < out.length; i++) {
+            if (i < to && text.charAt(i) != ',') {
+                continue;
+            }
+
+            double value = parseDouble(text, fieldStart, i);
+            if (Double.isNaN(value)) {
+                break;
+            }
+            out[count++] = value;
+            fieldStart = i + 1;
+        }
+
+        return count;
+    }
+
+    private static double parseSlow(CharSequence text, int from, int to) {
+        try {
+            return Double.parseDouble(text.subSequence(from, to).toString());
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package tr.com.logidex.cad.processor;
+
+import java.util.Arrays;
+
+/**
+ * Decodes the parameters of an HP-GL/2 PE (Polyline Encoded) command into coordinate pairs.
+ * <p>
+ * Every number is stored with its sign in the lowest bit and written least significant digit first,
+ * in base 64 (digits '?'..'~', last digit 191..254) or, after the '7' flag, base 32
+ * (digits '?'..'^', last digit '_'..'~'). Flags: ':' selects a pen, '<' lifts the pen for the next pair,
+ * '>' sets the number of fractional bits, '=' makes the next pair absolute. Pairs are relative otherwise.
+ * The decoder is reusable and allocates nothing once its arrays have grown to fit.
+ */
+final class PolylineEncodedDecoder {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private static final char FLAG_SELECT_PEN = ':';
+    private static final char FLAG_PEN_UP = '<';
+    private static final char FLAG_FRACTIONAL_BITS = '>';
+    private static final char FLAG_ABSOLUTE = '=';
+    private static final char FLAG_SEVEN_BIT = '7';
+
+    private static final int DIGIT_BASE = 63;
+    private static final int TERMINATOR_BASE_64 = 191;
+    private static final int TERMINATOR_BASE_32 = 95;
+    // Digit weights stay below this, so a number can never overflow a long
+    private static final long MAX_WEIGHT = 1L << 56;
+
+    private double[] xs = new double[INITIAL_CAPACITY];
+    private double[] ys = new double[INITIAL_CAPACITY];
+    private boolean[] penUp = new boolean[INITIAL_CAPACITY];
+    private boolean[] absolute = new boolean[INITIAL_CAPACITY];
+    private int size;
+
+    // Number decoding state
+    private int position;
+    private long value;
+
+    /**
+     * Decodes text[from, to). Characters that are neither flags nor digits are ignored,
+     * and decoding stops at the first malformed number.
+     *
+     * @return The number of coordinate pairs read
+     */
+    int decode(CharSequence text, int from, int to) {
+        size = 0;
+        position = from;
+
+        boolean sevenBit = false;
+        boolean nextPenUp = false;
+        boolean nextAbsolute = false;
+        double divisor = 1;
+
+        while (position < to) {
+            char c = text.charAt(position);
+
+            if (c == FLAG_SEVEN_BIT && !sevenBit) {
+                sevenBit = true;
+                position++;
+            } else if (c == FLAG_PEN_UP) {
+                nextPenUp = true;
+                position++;
+            } else if (c == FLAG_ABSOLUTE) {
+                nextAbsolute = true;
+                position++;
+            } else if (c == FLAG_SELECT_PEN) {
+                // There is no pen model; the pen number is read and dropped
+                position++;
+                if (!readNumber(text, to, sevenBit)) {
+                    break;
+                }
+            } else if (c == FLAG_FRACTIONAL_BITS) {
+                position++;
+                if (!readNumber(text, to, sevenBit) || value < 0 || value > Double.MAX_EXPONENT) {
+                    break;
+                }
+                divisor = Math.scalb(1.0, (int) value);
+            } else if (isDigit(c, sevenBit)) {
+                if (!readNumber(text, to, sevenBit)) {
+                    break;
+                }
+                double x = value / divisor;
+                if (!readNumber(text, to, sevenBit)) {
+                    break;
+                }
+                add(x, value / divisor, nextPenUp, nextAbsolute);
+                nextPenUp = false;
+                nextAbsolute = false;
+            } else {
+                position++;
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * Reads one signed number starting at position, skipping ignorable characters between digits.
+     *
+     * @return false if the text ends, a flag appears before the number's last digit, or the number is too long
+     */
+    private boolean readNumber(CharSequence text, int to, boolean sevenBit) {
+        int base = sevenBit ? 32 : 64;
+        int terminator = sevenBit ? TERMINATOR_BASE_32 : TERMINATOR_BASE_64;
+        long magnitude = 0;
+        long weight = 1;
+
+        while (position < to) {
+            char c = text.charAt(position);
+
+            if (c >= terminator && c < terminator + base) {
+                position++;
+                magnitude += (c - terminator) * weight;
+                // Sign is carried in the lowest bit
+                value = (magnitude & 1) == 0 ? magnitude >>> 1 : -(magnitude >>> 1);
+                return true;
+            }
+
+            if (c >= DIGIT_BASE && c < DIGIT_BASE + base) {
+                if (weight > MAX_WEIGHT) {
+                    return false;
+                }
+                position++;
+                magnitude += (c - DIGIT_BASE) * weight;
+                weight *= base;
+            } else if (isFlag(c)) {
+                return false;
+            } else {
+                position++;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isDigit(char c, boolean sevenBit) {
+        if (sevenBit) {
+            return c >= DIGIT_BASE && c < TERMINATOR_BASE_32 + 32;
+        }
+        return (c >= DIGIT_BASE && c < DIGIT_BASE + 64) || (c >= TERMINATOR_BASE_64 && c < TERMINATOR_BASE_64 + 64);
+    }
+
+    private static boolean isFlag(char c) {
+        return c == FLAG_SELECT_PEN || c == FLAG_PEN_UP || c == FLAG_FRACTIONAL_BITS
+                || c == FLAG_ABSOLUTE || c == FLAG_SEVEN_BIT;
+    }
+
+    private void add(double x, double y, boolean pairPenUp, boolean pairAbsolute) {
+        if (size == xs.length) {
+            xs = Arrays.copyOf(xs, size * 2);
+            ys = Arrays.copyOf(ys, size * 2);
+            penUp = Arrays.copyOf(penUp, size * 2);
+            absolute = Arrays.copyOf(absolute, size * 2);
+        }
+        xs[size] = x;
+        ys[size] = y;
+        penUp[size] = pairPenUp;
+        absolute[size] = pairAbsolute;
+        size++;
+    }
+
+    // ==================== Decoded Pairs ====================
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return The X value in plotter units; a delta unless isAbsolute
+     */
+    double x(int index) {
+        return xs[index];
+    }
+
+    /**
+     * @return The Y value in plotter units; a delta unless isAbsolute
+     */
+    double y(int index) {
+        return ys[index];
+    }
+
+    /**
+     * @return true if the pen travels to this pair without drawing
+     */
+    boolean isPenUp(int index) {
+        return penUp[index];
+    }
+
+    boolean isAbsolute(int index) {
+        return absolute[index];
+    }
+}
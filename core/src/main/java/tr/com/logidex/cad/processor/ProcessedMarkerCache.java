@@ -0,0 +1,630 @@
+package tr.com.logidex.cad.processor;
+
+import tr.com.logidex.cad.FileExtension;
+import tr.com.logidex.cad.PlotterScale;
+import tr.com.logidex.cad.Unit;
+import tr.com.logidex.cad.geometry.Arc;
+import tr.com.logidex.cad.geometry.Dimension2D;
+import tr.com.logidex.cad.geometry.Point2D;
+import tr.com.logidex.cad.helper.Util;
+import tr.com.logidex.cad.model.ClosedShape;
+import tr.com.logidex.cad.model.Lbl;
+import tr.com.logidex.cad.model.OverlapChecker;
+import tr.com.logidex.cad.model.PackedPolyline;
+import tr.com.logidex.cad.model.VertexPool;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores the outcome of processing a marker (shapes with their centers, labels, drawing
+ * dimensions) in a compact binary file, so reopening the same marker skips the parsers,
+ * piece creation, label grouping and the overlap check.
+ * <p>
+ * Entries are keyed by the SHA-256 of the file content together with the Unit, PlotterScale,
+ * geometry storage flags and overlap tolerance. They are written either next to the source file,
+ * as "name.unit-scale.lxpm" plus any non-default settings, or into a cache directory, named after
+ * the key, so identical content under different names shares one entry.
+ * Entries are read back through a memory mapping once their header shows they are current.
+ * A stale or damaged entry counts as a miss and is overwritten by the next store.
+ * <p>
+ * GGT patterns are stored with their id and labels and share their piece's restored polyline.
+ * The label grouping state is not stored.
+ */
+public final class ProcessedMarkerCache {
+
+    public static final String FILE_SUFFIX = ".lxpm";
+
+    private static final int MAGIC = 0x4C58504D; // "LXPM"
+    private static final int VERSION = 7;
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final int HASH_LENGTH = 32;
+    // Magic, version and content hash
+    private static final int HEADER_LENGTH = Integer.BYTES * 2 + HASH_LENGTH;
+    private static final int NONE = -1;
+    // How a polyline's vertices are stored
+    private static final byte DOUBLES = 0;
+    private static final byte FIXED_POINT = 1;
+    private static final byte POOLED = 2;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Path directory;
+
+    private ProcessedMarkerCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return A cache that writes each entry next to its source file
+     */
+    public static ProcessedMarkerCache besideSources() {
+        return new ProcessedMarkerCache(null);
+    }
+
+    /**
+     * @param directory The cache directory; created on the first store if missing
+     * @return A cache that keeps its entries in the given directory
+     */
+    public static ProcessedMarkerCache inDirectory(Path directory) {
+        if (directory == null) {
+            throw new IllegalArgumentException("Cache directory cannot be null");
+        }
+        return new ProcessedMarkerCache(directory);
+    }
+
+    /**
+     * @param content The raw file content; its position is left unchanged
+     * @return The SHA-256 digest of the content
+     */
+    public static byte[] hashContent(ByteBuffer content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
+            digest.update(content.duplicate());
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(HASH_ALGORITHM + " is not available", e);
+        }
+    }
+
+    /**
+     * @return The file the entry for this source and key is kept in, for geometry stored the default way
+     */
+    public Path entryPath(Path source, byte[] contentHash, Unit unit, PlotterScale plotterScale) {
+        return entryPath(source, contentHash, unit, plotterScale, false, false, false, OverlapChecker.DEFAULT_TOLERANCE);
+    }
+
+    /**
+     * Settings that change the stored geometry or overlap result each get their own entry, so switching
+     * between them does not overwrite the other's entry on every open.
+     *
+     * @return The file the entry for this source and key is kept in
+     */
+    public Path entryPath(Path source, byte[] contentHash, Unit unit, PlotterScale plotterScale,
+                          boolean fixedPointCoordinates, boolean sharedVertices, boolean offHeapGeometry,
+                          double overlapTolerance) {
+        StringBuilder name = new StringBuilder(unit.name()).append('-').append(plotterScale.name());
+        if (fixedPointCoordinates) {
+            name.append("-fixed");
+        }
+        if (sharedVertices) {
+            name.append("-shared");
+        }
+        if (offHeapGeometry) {
+            name.append("-offheap");
+        }
+        if (Double.compare(overlapTolerance, OverlapChecker.DEFAULT_TOLERANCE) != 0) {
+            name.append("-tol").append(overlapTolerance);
+        }
+        String variant = name.append(FILE_SUFFIX).toString();
+        if (directory == null) {
+            return source.resolveSibling(source.getFileName() + "." + variant);
+        }
+        return directory.resolve(toHex(contentHash) + "-" + variant);
+    }
+
+    // ==================== In-Memory Snapshots ====================
+
+    /**
+     * Encodes the outcome of a finished startFileProcessing run in the entry format, without a content hash,
+     * so it can be kept in memory and turned into independent processors with fromSnapshot.
+     */
+    public static byte[] toSnapshot(FileProcessor processor, Unit unit, PlotterScale plotterScale) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            write(out, new byte[HASH_LENGTH], unit, plotterScale, processor);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Rebuilds a new processor from a snapshot made by toSnapshot. The snapshot is not modified.
+     *
+     * @return The restored processor, or null if the snapshot was made for another Unit or PlotterScale
+     */
+    public static FileProcessor fromSnapshot(byte[] snapshot, Unit unit, PlotterScale plotterScale) {
+        return read(ByteBuffer.wrap(snapshot), null, unit, plotterScale);
+    }
+
+    // ==================== Reading ====================
+
+    /**
+     * Rebuilds a processor from the cached entry for geometry stored the default way, without touching the parsers.
+     *
+     * @return The restored processor, or null if there is no valid entry for the key
+     */
+    public FileProcessor load(Path source, byte[] contentHash, Unit unit, PlotterScale plotterScale) {
+        return load(source, contentHash, unit, plotterScale, false, false, false, OverlapChecker.DEFAULT_TOLERANCE);
+    }
+
+    /**
+     * Rebuilds a processor from the cached entry, without touching the parsers.
+     *
+     * @return The restored processor, or null if there is no valid entry for the key
+     */
+    public FileProcessor load(Path source, byte[] contentHash, Unit unit, PlotterScale plotterScale,
+                              boolean fixedPointCoordinates, boolean sharedVertices, boolean offHeapGeometry,
+                              double overlapTolerance) {
+        Path entry = entryPath(source, contentHash, unit, plotterScale,
+                fixedPointCoordinates, sharedVertices, offHeapGeometry, overlapTolerance);
+        ByteBuffer in;
+        try {
+            // A stale entry is replaced by the next store, which fails on Windows while the file is
+            // mapped, so only a current one is mapped
+            if (!hasCurrentHeader(entry, contentHash)) {
+                return null;
+            }
+            in = Util.mapFile(entry);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            System.err.println("Could not read processed-marker cache: " + e.getMessage());
+            return null;
+        }
+
+        try {
+            return read(in, contentHash, unit, plotterScale);
+        } catch (RuntimeException e) {
+            // Truncated or corrupt entry
+            return null;
+        }
+    }
+
+    /**
+     * Reads the magic, version and content hash of an entry onto the heap.
+     */
+    private static boolean hasCurrentHeader(Path entry, byte[] contentHash) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+        try (FileChannel channel = FileChannel.open(entry, StandardOpenOption.READ)) {
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Keep reading until the header is complete or the file ends
+            }
+        }
+        if (header.hasRemaining()) {
+            return false;
+        }
+        header.flip();
+
+        byte[] storedHash = new byte[HASH_LENGTH];
+        boolean current = header.getInt() == MAGIC && header.getInt() == VERSION;
+        header.get(storedHash);
+        return current && Arrays.equals(storedHash, contentHash);
+    }
+
+    /**
+     * @param contentHash The expected content hash, or null to accept any
+     */
+    private static FileProcessor read(ByteBuffer in, byte[] contentHash, Unit unit, PlotterScale plotterScale) {
+        if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+            return null;
+        }
+
+        byte[] storedHash = new byte[HASH_LENGTH];
+        in.get(storedHash);
+        if ((contentHash != null && !Arrays.equals(storedHash, contentHash))
+                || !readString(in).equals(unit.name())
+                || !readString(in).equals(plotterScale.name())) {
+            return null;
+        }
+
+        FileProcessor processor = createProcessor(FileExtension.valueOf(readString(in)));
+        Dimension2D drawingDimensions = new Dimension2D(in.getDouble(), in.getDouble());
+        boolean overlapError = in.get() != 0;
+        processor.setOverlapTolerance(in.getDouble());
+        processor.setFixedPointCoordinates(in.get() != 0);
+        processor.setSharedVertices(in.get() != 0);
+        processor.setOffHeapGeometry(in.get() != 0);
+
+        // Adding the pooled points in index order gives every one its old index back
+        VertexPool pool = null;
+        if (processor.isSharedVertices()) {
+            pool = new VertexPool(in.getDouble());
+            for (int i = in.getInt(); i > 0; i--) {
+                pool.indexOf(in.getDouble(), in.getDouble());
+            }
+            processor.vertexPool = pool;
+        }
+
+        int polylineCount = in.getInt();
+        List<PackedPolyline> polylines = new ArrayList<>(polylineCount);
+        for (int i = 0; i < polylineCount; i++) {
+            PackedPolyline polyline = readPolyline(in, pool);
+            if (processor.isOffHeapGeometry()) {
+                polyline.moveOffHeap(processor.getGeometryStore());
+            }
+            polylines.add(polyline);
+        }
+        int drawingPolylineCount = in.getInt();
+
+        Lbl[] labels = new Lbl[in.getInt()];
+        int[] labelShapes = new int[labels.length];
+        Point2D[] labelPositions = new Point2D[labels.length];
+        for (int i = 0; i < labels.length; i++) {
+            String text = processor.internLabelText(readString(in));
+            labelPositions[i] = new Point2D(in.getDouble(), in.getDouble());
+            Point2D original = new Point2D(in.getDouble(), in.getDouble());
+            labels[i] = new Lbl(text, original, in.getDouble(), in.getDouble(), in.getDouble(), in.getDouble());
+            labelShapes[i] = in.getInt();
+        }
+        List<Lbl> rawLabels = readLabelList(in, labels);
+        List<Lbl> sortedLabels = readLabelList(in, labels);
+
+        List<ClosedShape> shapes = new ArrayList<>();
+        for (int i = in.getInt(); i > 0; i--) {
+            int id = in.getInt();
+            boolean ggt = in.get() != 0;
+            Point2D center = new Point2D(in.getDouble(), in.getDouble());
+            boolean centerInside = in.get() != 0;
+            int label = in.getInt();
+
+            ClosedShape shape = new ClosedShape(polylines.get(in.getInt()), ggt, center, centerInside);
+            shape.setId(id);
+            if (label != NONE) {
+                shape.setLabel(labels[label]);
+            }
+            shapes.add(shape);
+        }
+
+        // setLabel moves labels to the shape centers, so positions are applied afterwards
+        for (int i = 0; i < labels.length; i++) {
+            labels[i].setShape(labelShapes[i] == NONE ? null : shapes.get(labelShapes[i]));
+            labels[i].changeLabelPosition(labelPositions[i]);
+        }
+
+        Map<Integer, List<Arc>> arcs = new HashMap<>();
+        for (int i = in.getInt(); i > 0; i--) {
+            Arc arc = new Arc(in.getDouble(), in.getDouble(), in.getDouble(), in.getDouble(), in.getDouble(), in.getDouble());
+            arcs.computeIfAbsent(in.getInt(), id -> new ArrayList<>()).add(arc);
+        }
+        if (processor instanceof GerberFileProcessor) {
+            ((GerberFileProcessor) processor).arcsForClosedShapes = arcs;
+        }
+
+        List<GGTPattern> patterns = new ArrayList<>();
+        for (int i = in.getInt(); i > 0; i--) {
+            GGTPattern pattern = new GGTPattern(in.getInt());
+            int label = in.getInt();
+            if (label != NONE) {
+                pattern.setLabel(labels[label]);
+            }
+            for (int t = in.getInt(); t > 0; t--) {
+                pattern.addLabelText(processor.internLabelText(readString(in)), new Point2D(in.getDouble(), in.getDouble()));
+            }
+            pattern.shareScaledPolyline(polylines.get(in.getInt()), processor.getCoordinateUnit());
+            patterns.add(pattern);
+        }
+        if (processor instanceof GGTFileProcessor) {
+            ((GGTFileProcessor) processor).restorePatterns(patterns);
+        }
+
+        processor.restore(drawingDimensions, new ArrayList<>(polylines.subList(0, drawingPolylineCount)),
+                shapes, rawLabels, sortedLabels, overlapError);
+        return processor;
+    }
+
+    /**
+     * @return An extension that selects the processor's class; entries need nothing more specific
+     */
+    private static FileExtension formatOf(FileProcessor processor) {
+        if (processor instanceof HPGLFileProcessor) {
+            return FileExtension.HPGL;
+        }
+        if (processor instanceof GerberFileProcessor) {
+            return FileExtension.CUT;
+        }
+        return FileExtension.GGT;
+    }
+
+    private static FileProcessor createProcessor(FileExtension format) {
+        return switch (format) {
+            case HPGL, PLT, HPG -> new HPGLFileProcessor("");
+            case CUT, CAM -> new GerberFileProcessor("");
+            case GGT -> new GGTFileProcessor("");
+        };
+    }
+
+    private static PackedPolyline readPolyline(ByteBuffer in, VertexPool pool) {
+        boolean reversed = in.get() != 0;
+        byte storage = in.get();
+        double unit = storage == FIXED_POINT ? in.getDouble() : 0;
+        PackedPolyline polyline = switch (storage) {
+            case FIXED_POINT -> PackedPolyline.fixedPoint(reversed, unit);
+            case POOLED -> PackedPolyline.pooled(reversed, pool);
+            default -> new PackedPolyline(reversed);
+        };
+        int vertexCount = in.getInt();
+        int[] runStarts = new int[in.getInt()];
+        for (int r = 0; r < runStarts.length; r++) {
+            runStarts[r] = in.getInt();
+        }
+
+        int run = 0;
+        for (int i = 0; i < vertexCount; i++) {
+            // Fixed-point coordinates are stored in units; scaling and snapping back restores the same ints
+            double x;
+            double y;
+            if (storage == POOLED) {
+                int vertex = in.getInt();
+                x = pool.x(vertex);
+                y = pool.y(vertex);
+            } else if (storage == FIXED_POINT) {
+                x = in.getInt() * unit;
+                y = in.getInt() * unit;
+            } else {
+                x = in.getDouble();
+                y = in.getDouble();
+            }
+            if (run < runStarts.length && runStarts[run] == i) {
+                polyline.moveTo(x, y);
+                run++;
+            } else {
+                polyline.lineTo(x, y);
+            }
+        }
+        polyline.trimToSize();
+        return polyline;
+    }
+
+    private static List<Lbl> readLabelList(ByteBuffer in, Lbl[] labels) {
+        int size = in.getInt();
+        List<Lbl> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int index = in.getInt();
+            list.add(index == NONE ? null : labels[index]);
+        }
+        return list;
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // ==================== Writing ====================
+
+    /**
+     * Writes the outcome of a finished startFileProcessing run. The entry is written to a
+     * temporary file first and moved into place, so readers never see a partial entry.
+     */
+    public void store(Path source, byte[] contentHash, Unit unit, PlotterScale plotterScale,
+                      FileProcessor processor) throws IOException {
+        Path target = entryPath(source, contentHash, unit, plotterScale, processor.isFixedPointCoordinates(),
+                processor.isSharedVertices(), processor.isOffHeapGeometry(), processor.getOverlapTolerance());
+        Path parent = target.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, target.getFileName().toString(), ".tmp");
+
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp), BUFFER_SIZE))) {
+                write(out, contentHash, unit, plotterScale, processor);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void write(DataOutputStream out, byte[] contentHash, Unit unit, PlotterScale plotterScale,
+                              FileProcessor processor) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.write(contentHash);
+        writeString(out, unit.name());
+        writeString(out, plotterScale.name());
+        writeString(out, formatOf(processor).name());
+        out.writeDouble(processor.drawingDimensions.getWidth());
+        out.writeDouble(processor.drawingDimensions.getHeight());
+        out.writeBoolean(processor.hasOverlapError());
+        out.writeDouble(processor.getOverlapTolerance());
+        out.writeBoolean(processor.isFixedPointCoordinates());
+        out.writeBoolean(processor.isSharedVertices());
+        out.writeBoolean(processor.isOffHeapGeometry());
+        if (processor.isSharedVertices()) {
+            VertexPool pool = processor.getVertexPool();
+            out.writeDouble(pool.getQuantum());
+            int size = pool.size();
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                out.writeDouble(pool.x(i));
+                out.writeDouble(pool.y(i));
+            }
+        }
+
+        // Shapes share their polylines with the drawing, so each is written once and referenced by index
+        List<PackedPolyline> polylines = new ArrayList<>(processor.getPolylines());
+        Map<PackedPolyline, Integer> polylineIndexes = new IdentityHashMap<>();
+        for (PackedPolyline polyline : polylines) {
+            polylineIndexes.putIfAbsent(polyline, polylineIndexes.size());
+        }
+        int drawingPolylineCount = polylines.size();
+        List<ClosedShape> shapes = processor.getShapes();
+        for (ClosedShape shape : shapes) {
+            if (polylineIndexes.putIfAbsent(shape.getPolyline(), polylines.size()) == null) {
+                polylines.add(shape.getPolyline());
+            }
+        }
+
+        out.writeInt(polylines.size());
+        for (PackedPolyline polyline : polylines) {
+            writePolyline(out, polyline);
+        }
+        out.writeInt(drawingPolylineCount);
+
+        Map<ClosedShape, Integer> shapeIndexes = new IdentityHashMap<>();
+        for (ClosedShape shape : shapes) {
+            shapeIndexes.put(shape, shapeIndexes.size());
+        }
+
+        List<Lbl> labels = new ArrayList<>();
+        Map<Lbl, Integer> labelIndexes = new IdentityHashMap<>();
+        collectLabels(processor.labels, labels, labelIndexes);
+        collectLabels(processor.getSortedAndOptimizedLbls(), labels, labelIndexes);
+        for (ClosedShape shape : shapes) {
+            collectLabels(Arrays.asList(shape.getLabel()), labels, labelIndexes);
+        }
+        List<GGTPattern> patterns = processor instanceof GGTFileProcessor
+                ? ((GGTFileProcessor) processor).getPatterns()
+                : List.of();
+        for (GGTPattern pattern : patterns) {
+            collectLabels(Arrays.asList(pattern.getLabel()), labels, labelIndexes);
+        }
+
+        out.writeInt(labels.size());
+        for (Lbl label : labels) {
+            writeString(out, label.getText());
+            out.writeDouble(label.getPosition().getX());
+            out.writeDouble(label.getPosition().getY());
+            out.writeDouble(label.getOriginalXY().getX());
+            out.writeDouble(label.getOriginalXY().getY());
+            out.writeDouble(label.getAngle());
+            out.writeDouble(label.getOrigin());
+            out.writeDouble(label.getWidth());
+            out.writeDouble(label.getHeight());
+            out.writeInt(label.getShape() == null ? NONE : shapeIndexes.getOrDefault(label.getShape(), NONE));
+        }
+        writeLabelList(out, processor.labels, labelIndexes);
+        writeLabelList(out, processor.getSortedAndOptimizedLbls(), labelIndexes);
+
+        out.writeInt(shapes.size());
+        for (ClosedShape shape : shapes) {
+            out.writeInt(shape.getId());
+            out.writeBoolean(shape.isGGTFile());
+            out.writeDouble(shape.getCenter().getX());
+            out.writeDouble(shape.getCenter().getY());
+            out.writeBoolean(shape.isCalculatedCenterPointIsInThisShape());
+            out.writeInt(shape.getLabel() == null ? NONE : labelIndexes.get(shape.getLabel()));
+            out.writeInt(polylineIndexes.get(shape.getPolyline()));
+        }
+
+        Map<Integer, List<Arc>> arcs = processor instanceof GerberFileProcessor
+                ? ((GerberFileProcessor) processor).arcsForClosedShapes
+                : Map.of();
+        out.writeInt(arcs.values().stream().mapToInt(List::size).sum());
+        for (Map.Entry<Integer, List<Arc>> entry : arcs.entrySet()) {
+            for (Arc arc : entry.getValue()) {
+                out.writeDouble(arc.getCenterX());
+                out.writeDouble(arc.getCenterY());
+                out.writeDouble(arc.getRadiusX());
+                out.writeDouble(arc.getRadiusY());
+                out.writeDouble(arc.getStartAngle());
+                out.writeDouble(arc.getLength());
+                out.writeInt(entry.getKey());
+            }
+        }
+
+        // Each GGT pattern adds its scaled polyline to the drawing, in pattern order
+        out.writeInt(patterns.size());
+        for (int i = 0; i < patterns.size(); i++) {
+            GGTPattern pattern = patterns.get(i);
+            out.writeInt(pattern.getId());
+            out.writeInt(pattern.getLabel() == null ? NONE : labelIndexes.get(pattern.getLabel()));
+            out.writeInt(pattern.getLabelTextPositions().size());
+            for (Map.Entry<String, Point2D> text : pattern.getLabelTextPositions().entrySet()) {
+                writeString(out, text.getKey());
+                out.writeDouble(text.getValue().getX());
+                out.writeDouble(text.getValue().getY());
+            }
+            out.writeInt(polylineIndexes.get(processor.getPolylines().get(i)));
+        }
+    }
+
+    private static void writePolyline(DataOutputStream out, PackedPolyline polyline) throws IOException {
+        out.writeBoolean(polyline.isReversed());
+        if (polyline.isPooled()) {
+            out.writeByte(POOLED);
+        } else if (polyline.isFixedPoint()) {
+            out.writeByte(FIXED_POINT);
+            out.writeDouble(polyline.getUnit());
+        } else {
+            out.writeByte(DOUBLES);
+        }
+        out.writeInt(polyline.vertexCount());
+        out.writeInt(polyline.runCount());
+        for (int r = 0; r < polyline.runCount(); r++) {
+            out.writeInt(polyline.runStart(r));
+        }
+        for (int i = 0; i < polyline.vertexCount(); i++) {
+            if (polyline.isPooled()) {
+                out.writeInt(polyline.poolIndex(i));
+            } else if (polyline.isFixedPoint()) {
+                out.writeInt(polyline.fixedX(i));
+                out.writeInt(polyline.fixedY(i));
+            } else {
+                out.writeDouble(polyline.vertexX(i));
+                out.writeDouble(polyline.vertexY(i));
+            }
+        }
+    }
+
+    private static void collectLabels(List<Lbl> source, List<Lbl> labels, Map<Lbl, Integer> labelIndexes) {
+        for (Lbl label : source) {
+            if (label != null && labelIndexes.putIfAbsent(label, labels.size()) == null) {
+                labels.add(label);
+            }
+        }
+    }
+
+    private static void writeLabelList(DataOutputStream out, List<Lbl> list, Map<Lbl, Integer> labelIndexes)
+            throws IOException {
+        out.writeInt(list.size());
+        for (Lbl label : list) {
+            out.writeInt(label == null ? NONE : labelIndexes.get(label));
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+}
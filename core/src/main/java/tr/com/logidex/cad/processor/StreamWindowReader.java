@@ -0,0 +1,78 @@
+package tr.com.logidex.cad.processor;
+
+import tr.com.logidex.cad.helper.ByteBufferCharSequence;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Reads a byte stream through a fixed-size window so that content of any length,
+ * e.g. a decompressing stream, can be tokenized without holding all of it in memory.
+ * Each window is handed to a handler as ISO-8859-1 text; the handler consumes the complete
+ * commands at its front and the unconsumed tail is carried over into the next window.
+ */
+final class StreamWindowReader {
+
+    /**
+     * Processes the complete commands of one window.
+     */
+    interface WindowHandler {
+
+        /**
+         * @param window The buffered text, starting where the previous window stopped
+         * @param last true if the stream is exhausted, in which case the whole window must be consumed
+         * @return The number of chars consumed; 0 makes the window grow until a command fits
+         */
+        int process(CharSequence window, boolean last);
+    }
+
+    private StreamWindowReader() {
+    }
+
+    /**
+     * Reads the stream to its end. The stream is not closed.
+     *
+     * @param in The stream to read
+     * @param windowSize The initial window size; it only grows for a single command longer than this
+     * @param handler Receives every window
+     */
+    static void read(InputStream in, int windowSize, WindowHandler handler) throws IOException {
+        byte[] buffer = new byte[windowSize];
+        int filled = 0;
+
+        while (true) {
+            int read = in.readNBytes(buffer, filled, buffer.length - filled);
+            filled += read;
+            // readNBytes only returns short at the end of the stream
+            boolean last = filled < buffer.length;
+
+            CharSequence window = new ByteBufferCharSequence(ByteBuffer.wrap(buffer, 0, filled));
+            int consumed = handler.process(window, last);
+
+            if (last) {
+                return;
+            }
+
+            if (consumed == 0) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            } else {
+                System.arraycopy(buffer, consumed, buffer, 0, filled - consumed);
+                filled -= consumed;
+            }
+        }
+    }
+
+    /**
+     * @return The index after the last occurrence of any of the delimiters, or 0 if there is none
+     */
+    static int endOfLastCommand(CharSequence window, String delimiters) {
+        for (int i = window.length() - 1; i >= 0; i--) {
+            if (delimiters.indexOf(window.charAt(i)) >= 0) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+}
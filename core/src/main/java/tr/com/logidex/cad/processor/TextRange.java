@@ -0,0 +1,31 @@
+package tr.com.logidex.cad.processor;
+
+/**
+ * String-style comparisons on a [start, end) range of command text, so tokens can be
+ * matched against command names without first being copied into Strings.
+ */
+final class TextRange {
+
+    private TextRange() {
+    }
+
+    static boolean equals(CharSequence text, int start, int end, String command) {
+        return end - start == command.length() && startsWith(text, start, end, command);
+    }
+
+    static boolean startsWith(CharSequence text, int start, int end, String prefix) {
+        if (end - start < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (text.charAt(start + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static boolean endsWith(CharSequence text, int start, int end, String suffix) {
+        return end - start >= suffix.length() && startsWith(text, end - suffix.length(), end, suffix);
+    }
+}
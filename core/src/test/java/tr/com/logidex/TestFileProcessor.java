@@ -0,0 +1,1018 @@
+package tr.com.logidex;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tr.com.logidex.cad.FileExtension;
+import tr.com.logidex.cad.PlotterScale;
+import tr.com.logidex.cad.Unit;
+import tr.com.logidex.cad.geometry.Dimension2D;
+import tr.com.logidex.cad.geometry.Point2D;
+import tr.com.logidex.cad.helper.PieceSequenceNumberCreator;
+import tr.com.logidex.cad.helper.Util;
+import tr.com.logidex.cad.model.ClosedShape;
+import tr.com.logidex.cad.model.GeometryStore;
+import tr.com.logidex.cad.model.Lbl;
+import tr.com.logidex.cad.model.LineText;
+import tr.com.logidex.cad.model.OverlapChecker;
+import tr.com.logidex.cad.model.PackedPolyline;
+import tr.com.logidex.cad.model.ProcessedResultCache;
+import tr.com.logidex.cad.model.SourceFile;
+import tr.com.logidex.cad.model.ShapeIndex;
+import tr.com.logidex.cad.processor.FileProcessor;
+import tr.com.logidex.cad.processor.GGTFileProcessor;
+import tr.com.logidex.cad.processor.GGTPattern;
+import tr.com.logidex.cad.processor.GerberFileProcessor;
+import tr.com.logidex.cad.processor.HPGLFileProcessor;
+import tr.com.logidex.cad.processor.ProcessedMarkerCache;
+
+
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class TestFileProcessor {
+
+
+    @BeforeEach
+    public void setUp() {
+
+        PieceSequenceNumberCreator.resetCounter();
+    }
+
+    @Test
+    public void testFileProcessorHPGL() throws Exception {
+
+        FileProcessor fileProcessor = new HPGLFileProcessor(Files.readString(Path.of("test.hpgl"), StandardCharsets.UTF_8));
+        fileProcessor.startFileProcessing();
+
+
+
+
+        AtomicReference<String> s = new AtomicReference<>("");
+        fileProcessor.getShapes().forEach(closedShape -> {
+
+            s.set(s.get() + LineText.of(closedShape.getPolyline()));
+
+
+        });
+
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+
+        String digestString  = "";
+
+        byte[] digest = md.digest(s.get().getBytes());
+
+        for (int i = 0; i < digest.length; i++) {
+            digestString += digest[i];
+        }
+
+        assertEquals("-61-73107-100-100-107-18-21-96-6947-86-63-1113-10-68-117-19-9156-50-23-60892139-113-1005-55-19", digestString);
+        assertEquals(159, fileProcessor.  getSortedAndOptimizedLbls().size());
+        assertEquals(new Dimension2D(6605.6256,1664.5128), fileProcessor.drawingDimensions);
+
+
+
+        Point2D expected = new Point2D(25.4, 1217.68);
+        Point2D actual =fileProcessor.getSortedAndOptimizedLbls().get(1).getPosition();
+        assertTrue(arePointsNearlyEqual(expected, actual, 0.01));
+
+        fileProcessor.invertFlipV();
+
+        expected = new Point2D(25.4, 446.84);
+        actual =fileProcessor.getSortedAndOptimizedLbls().get(1).getPosition();
+        assertTrue(arePointsNearlyEqual(expected, actual, 0.01));
+
+
+        fileProcessor.invertFlipV();
+
+        expected = new Point2D(25.4, 1217.68);
+        actual =fileProcessor.getSortedAndOptimizedLbls().get(1).getPosition();
+        assertTrue(arePointsNearlyEqual(expected, actual, 0.01));
+
+
+        fileProcessor.invertFlipH();
+
+        expected = new Point2D(101.44, 441.13);
+        actual =fileProcessor.getSortedAndOptimizedLbls().get(1).getPosition();
+        System.out.println("Expected:" + expected);
+        System.out.println("Actual:" + actual);
+        assertTrue(arePointsNearlyEqual(expected, actual, 0.01));
+
+
+        fileProcessor.invertFlipH();
+
+        expected = new Point2D(25.4, 1217.68);
+        actual =fileProcessor.getSortedAndOptimizedLbls().get(1).getPosition();
+        assertTrue(arePointsNearlyEqual(expected, actual, 0.01));
+
+        fileProcessor.invertFlipH();
+        fileProcessor.invertFlipV();
+
+        expected = new Point2D(103.82, 106.92);
+        actual =fileProcessor.getSortedAndOptimizedLbls().get(1).getPosition();
+        System.out.println("Expected:" + expected);
+        System.out.println("Actual:" + actual);
+        assertTrue(arePointsNearlyEqual(expected, actual, 0.01));
+
+        fileProcessor.invertFlipH();
+        fileProcessor.invertFlipV();
+
+        expected = new Point2D(25.4, 1217.68);
+        actual =fileProcessor.getSortedAndOptimizedLbls().get(1).getPosition();
+        assertTrue(arePointsNearlyEqual(expected, actual, 0.01));
+
+
+
+
+
+    }
+
+
+
+
+
+
+    @Test
+    public void testFileProcessorHPGLMapped() throws Exception {
+
+        FileProcessor fileProcessor = new HPGLFileProcessor(Util.mapFile(Path.of("test.hpgl")));
+        fileProcessor.startFileProcessing();
+
+        AtomicReference<String> s = new AtomicReference<>("");
+        fileProcessor.getShapes().forEach(closedShape -> s.set(s.get() + LineText.of(closedShape.getPolyline())));
+
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+
+        String digestString  = "";
+
+        byte[] digest = md.digest(s.get().getBytes());
+
+        for (int i = 0; i < digest.length; i++) {
+            digestString += digest[i];
+        }
+
+        assertEquals("-61-73107-100-100-107-18-21-96-6947-86-63-1113-10-68-117-19-9156-50-23-60892139-113-1005-55-19", digestString);
+        assertEquals(159, fileProcessor.getSortedAndOptimizedLbls().size());
+        assertEquals(new Dimension2D(6605.6256,1664.5128), fileProcessor.drawingDimensions);
+    }
+
+
+    @Test
+    public void testFileProcessorHPGLParallel() throws Exception {
+
+        FileProcessor fileProcessor = new HPGLFileProcessor(Util.mapFile(Path.of("test.hpgl")));
+        fileProcessor.setParallelParsing(true);
+        fileProcessor.startFileProcessing();
+
+        AtomicReference<String> s = new AtomicReference<>("");
+        fileProcessor.getShapes().forEach(closedShape -> s.set(s.get() + LineText.of(closedShape.getPolyline())));
+
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+
+        String digestString  = "";
+
+        byte[] digest = md.digest(s.get().getBytes());
+
+        for (int i = 0; i < digest.length; i++) {
+            digestString += digest[i];
+        }
+
+        assertEquals("-61-73107-100-100-107-18-21-96-6947-86-63-1113-10-68-117-19-9156-50-23-60892139-113-1005-55-19", digestString);
+        assertEquals(159, fileProcessor.getSortedAndOptimizedLbls().size());
+        assertEquals(new Dimension2D(6605.6256,1664.5128), fileProcessor.drawingDimensions);
+
+        // Labels must carry the same DI/LO/SI state across chunk seams as in a sequential run
+        PieceSequenceNumberCreator.resetCounter();
+        FileProcessor sequential = new HPGLFileProcessor(Util.mapFile(Path.of("test.hpgl")));
+        sequential.startFileProcessing();
+
+        assertEquals(describeLabels(sequential), describeLabels(fileProcessor));
+    }
+
+    @Test
+    public void testFileProcessorHPGLStreaming() throws Exception {
+
+        FileProcessor fileProcessor = new HPGLFileProcessor(Util.mapFile(Path.of("test.hpgl")));
+
+        List<ClosedShape> received = streamShapes(fileProcessor);
+        assertEquals(new HashSet<>(fileProcessor.getShapes()), new HashSet<>(received));
+        assertEquals(fileProcessor.getShapes().size(), received.size());
+        assertEquals(159, fileProcessor.getSortedAndOptimizedLbls().size());
+    }
+
+    @Test
+    public void testStreamingPublishesDuplicateContoursOnce() throws Exception {
+
+        // The first pentagon is written again from another corner and the other way round
+        FileProcessor fileProcessor = new HPGLFileProcessor("IN;PU2000,0;PD4000,1500,3200,4000,800,4000,0,1500,2000,0;"
+                + "PU3200,4000;PD4000,1500,2000,0,0,1500,800,4000,3200,4000;"
+                + "PU10000,0;PD12000,1500,11200,4000,8800,4000,8000,1500,10000,0;PU;");
+
+        List<ClosedShape> received = streamShapes(fileProcessor);
+        assertEquals(2, fileProcessor.getShapes().size());
+        assertEquals(fileProcessor.getShapes().size(), received.size());
+        assertEquals(new HashSet<>(fileProcessor.getShapes()), new HashSet<>(received));
+    }
+
+    /**
+     * Processes the file with a subscriber that takes one shape at a time.
+     *
+     * @return The shapes published, in order
+     */
+    private static List<ClosedShape> streamShapes(FileProcessor fileProcessor) throws Exception {
+        List<ClosedShape> received = new ArrayList<>();
+        CountDownLatch completed = new CountDownLatch(1);
+
+        fileProcessor.startFileProcessing(new Flow.Subscriber<ClosedShape>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(ClosedShape item) {
+                received.add(item);
+                subscription.request(1);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                completed.countDown();
+            }
+
+            @Override
+            public void onComplete() {
+                completed.countDown();
+            }
+        });
+
+        assertTrue(completed.await(30, TimeUnit.SECONDS));
+        return received;
+    }
+
+    @Test
+    public void testSourceFileMapsEveryFormat() throws Exception {
+
+        SourceFile sourceFile = new SourceFile();
+
+        FileProcessor cut = sourceFile.readAndSendToTheProcessing(new File("GEMINI.cut"), FileExtension.CUT, Unit.MM);
+        assertEquals("-476648-36-45-11518-5-51-97-105-101-4-24-7990-96-26-169-216850-103-2828-12128998164-42", digestOf(cut));
+        assertEquals(161, cut.getSortedAndOptimizedLbls().size());
+        assertEquals(new Dimension2D(9419.5,1800.0), cut.drawingDimensions);
+
+        FileProcessor ggt = sourceFile.readAndSendToTheProcessing(new File("ggttest.ggt"), FileExtension.GGT, Unit.MM);
+        assertEquals("69-87-126-47-6159-114-12226-44-71-14-128-65-10964-113-10672068-1211428-5-2682-331486-45-125", digestOf(ggt));
+        assertEquals(43, ggt.getSortedAndOptimizedLbls().size());
+        assertEquals(new Dimension2D(2905.252,1400.0480000000002), ggt.drawingDimensions);
+    }
+
+    @Test
+    public void testFixedPointCoordinatesKeepTheGeometry(@TempDir Path tempDir) throws Exception {
+
+        for (String name : new String[]{"test.hpgl", "GEMINI.cut", "ggttest.ggt"}) {
+            PieceSequenceNumberCreator.resetCounter();
+            FileProcessor scaled = new SourceFile().readAndSendToTheProcessing(new File(name), Unit.MM);
+
+            SourceFile sourceFile = new SourceFile();
+            sourceFile.setFixedPointCoordinates(true);
+            sourceFile.setProcessedMarkerCache(ProcessedMarkerCache.inDirectory(tempDir.resolve("cache")));
+            PieceSequenceNumberCreator.resetCounter();
+            FileProcessor fixed = sourceFile.readAndSendToTheProcessing(new File(name), Unit.MM);
+
+            assertTrue(fixed.isFixedPointCoordinates());
+            assertEquals(scaled.getShapes().size(), fixed.getShapes().size());
+            assertEquals(scaled.getSortedAndOptimizedLbls().size(), fixed.getSortedAndOptimizedLbls().size());
+
+            // Raw plotter positions are whole units, so only the rounding of the scaling differs
+            double unit = fixed.getCoordinateUnit();
+            for (int i = 0; i < scaled.getShapes().size(); i++) {
+                PackedPolyline expected = scaled.getShapes().get(i).getPolyline();
+                PackedPolyline actual = fixed.getShapes().get(i).getPolyline();
+                assertTrue(actual.isFixedPoint());
+                assertEquals(expected.segmentCount(), actual.segmentCount());
+                for (int k = 0; k < expected.segmentCount(); k++) {
+                    assertEquals(expected.startX(k), actual.startX(k), unit / 2);
+                    assertEquals(expected.startY(k), actual.startY(k), unit / 2);
+                }
+            }
+
+            // GGT patterns drop their double copy and work the raw units back from the int piece
+            if (fixed instanceof GGTFileProcessor ggt) {
+                List<GGTPattern> expectedPatterns = ((GGTFileProcessor) scaled).getPatterns();
+                for (int i = 0; i < expectedPatterns.size(); i++) {
+                    PackedPolyline expected = expectedPatterns.get(i).getPolyline();
+                    GGTPattern pattern = ggt.getPatterns().get(i);
+                    assertTrue(pattern.isPolylineShared());
+                    assertEquals(expected.segmentCount(), pattern.getLineCount());
+                    assertEquals(expected.startX(0), pattern.getPolyline().startX(0), 1e-6);
+                }
+            }
+
+            // The cache keeps the int coordinates, and is not reused once the mode changes
+            FileProcessor restored = sourceFile.readAndSendToTheProcessing(new File(name), Unit.MM);
+            assertEquals(digestOf(fixed), digestOf(restored));
+            assertTrue(restored.getShapes().get(0).getPolyline().isFixedPoint());
+
+            sourceFile.setFixedPointCoordinates(false);
+            PieceSequenceNumberCreator.resetCounter();
+            assertEquals(digestOf(scaled), digestOf(sourceFile.readAndSendToTheProcessing(new File(name), Unit.MM)));
+
+            // Each mode has its own entry, so switching back and forth does not overwrite either
+            ProcessedMarkerCache cache = ProcessedMarkerCache.inDirectory(tempDir.resolve("cache"));
+            byte[] hash = ProcessedMarkerCache.hashContent(ByteBuffer.wrap(Files.readAllBytes(Path.of(name))));
+            Path fixedEntry = cache.entryPath(Path.of(name), hash, Unit.MM, PlotterScale.DEFAULT,
+                    true, false, false, OverlapChecker.DEFAULT_TOLERANCE);
+            assertTrue(Files.exists(fixedEntry));
+            assertTrue(Files.exists(cache.entryPath(Path.of(name), hash, Unit.MM, PlotterScale.DEFAULT)));
+            assertTrue(cache.load(Path.of(name), hash, Unit.MM, PlotterScale.DEFAULT,
+                    true, false, false, OverlapChecker.DEFAULT_TOLERANCE).isFixedPointCoordinates());
+        }
+    }
+
+    @Test
+    public void testSharedVerticesKeepTheGeometry(@TempDir Path tempDir) throws Exception {
+
+        SourceFile sourceFile = new SourceFile();
+        sourceFile.setSharedVertices(true);
+        sourceFile.setProcessedMarkerCache(ProcessedMarkerCache.inDirectory(tempDir.resolve("cache")));
+
+        for (String name : new String[]{"test.hpgl", "GEMINI.cut", "ggttest.ggt"}) {
+            PieceSequenceNumberCreator.resetCounter();
+            FileProcessor scaled = new SourceFile().readAndSendToTheProcessing(new File(name), Unit.MM);
+            PieceSequenceNumberCreator.resetCounter();
+            FileProcessor pooled = sourceFile.readAndSendToTheProcessing(new File(name), Unit.MM);
+
+            assertTrue(pooled.getShapes().get(0).getPolyline().isPooled());
+            assertEquals(digestOf(scaled), digestOf(pooled));
+            assertEquals(describeLabels(scaled), describeLabels(pooled));
+
+            // Points repeated across the drawing are stored once
+            int vertexCount = pooled.getPolylines().stream().mapToInt(PackedPolyline::vertexCount).sum();
+            assertTrue(pooled.getVertexPool().size() < vertexCount, name);
+
+            FileProcessor restored = sourceFile.readAndSendToTheProcessing(new File(name), Unit.MM);
+            assertEquals(digestOf(pooled), digestOf(restored));
+            assertEquals(pooled.getVertexPool().size(), restored.getVertexPool().size());
+
+            // Flipping twice pools the mirrored points and comes back to the same vertices
+            pooled.invertFlipH();
+            pooled.invertFlipH();
+            assertEquals(digestOf(scaled), digestOf(pooled));
+        }
+    }
+
+    @Test
+    public void testOffHeapGeometryIsReleasedByClearAll() throws Exception {
+
+        SourceFile sourceFile = new SourceFile();
+        sourceFile.setOffHeapGeometry(true);
+
+        for (String name : new String[]{"test.hpgl", "GEMINI.cut", "ggttest.ggt"}) {
+            PieceSequenceNumberCreator.resetCounter();
+            FileProcessor onHeap = new SourceFile().readAndSendToTheProcessing(new File(name), Unit.MM);
+            PieceSequenceNumberCreator.resetCounter();
+            FileProcessor offHeap = sourceFile.readAndSendToTheProcessing(new File(name), Unit.MM);
+
+            PackedPolyline polyline = offHeap.getShapes().get(0).getPolyline();
+            assertTrue(polyline.isOffHeap());
+            assertEquals(digestOf(onHeap), digestOf(offHeap));
+            assertEquals(describeLabels(onHeap), describeLabels(offHeap));
+
+            // GGT patterns keep no unscaled copy of their piece on the heap
+            List<GGTPattern> patterns = offHeap instanceof GGTFileProcessor ggt ? ggt.getPatterns() : List.of();
+            assertEquals(name.endsWith(".ggt"), !patterns.isEmpty());
+            for (GGTPattern pattern : patterns) {
+                assertTrue(pattern.isPolylineShared());
+            }
+
+            GeometryStore store = offHeap.getGeometryStore();
+            assertTrue(store.getAllocatedBytes() > 0);
+            offHeap.clearAll();
+            assertTrue(store.isReleased());
+            assertThrows(IllegalStateException.class, () -> polyline.startX(0));
+            assertThrows(IllegalStateException.class, () -> polyline.contains(0, 0));
+            for (GGTPattern pattern : patterns) {
+                assertThrows(IllegalStateException.class, pattern::getPolyline);
+            }
+        }
+    }
+
+    @Test
+    public void testRepeatedLabelTextsAreShared() throws Exception {
+
+        // Squares far apart, each labelled with the same size; the first label becomes the reference sign
+        FileProcessor fileProcessor = new HPGLFileProcessor("IN;PU0,0;PD4000,0,4000,4000,0,4000,0,0;"
+                + "PU2000,2000;LBSIZE 38\u0003"
+                + "PU8000,0;PD12000,0,12000,4000,8000,4000,8000,0;"
+                + "PU10000,2000;LBSIZE 38\u0003"
+                + "PU16000,0;PD20000,0,20000,4000,16000,4000,16000,0;"
+                + "PU18000,2000;LBSIZE 38\u0003PU;");
+        fileProcessor.startFileProcessing();
+
+        List<Lbl> labels = fileProcessor.getSortedAndOptimizedLbls().stream()
+                .filter(lbl -> lbl.getText().startsWith("SIZE")).toList();
+        assertEquals(2, labels.size());
+        assertEquals("SIZE 38", labels.get(0).getText().strip());
+        assertSame(labels.get(0).getText(), labels.get(1).getText());
+
+        // A position listener, as the UI's observable wrapper uses, sees every move
+        Lbl label = labels.get(0);
+        Point2D position = label.getPosition();
+        List<Point2D> moves = new ArrayList<>();
+        label.setPositionListener(moves::add);
+        label.offsetLabelPosition(10, 0);
+        assertEquals(List.of(new Point2D(position.getX() + 10, position.getY())), moves);
+        assertEquals(moves.get(0), label.getPosition());
+        assertTrue(label.isLabelPositionChanged());
+    }
+
+    @Test
+    public void testShapeContainsMatchesPolyline() throws Exception {
+
+        FileProcessor fileProcessor = new HPGLFileProcessor(Util.mapFile(Path.of("test.hpgl")));
+        fileProcessor.startFileProcessing();
+
+        for (int pass = 0; pass < 2; pass++) {
+            for (ClosedShape shape : fileProcessor.getShapes()) {
+                double x0 = shape.getBounds().getMinX() - 10;
+                double y0 = shape.getBounds().getMinY() - 10;
+                for (int i = 0; i <= 20; i++) {
+                    for (int j = 0; j <= 20; j++) {
+                        double x = x0 + i * (shape.getBounds().getWidth() + 20) / 20;
+                        double y = y0 + j * (shape.getBounds().getHeight() + 20) / 20;
+                        assertEquals(shape.getPolyline().contains(x, y), shape.contains(x, y));
+                    }
+                }
+            }
+            // The cached outline must follow the mirrored polyline
+            fileProcessor.invertFlipH();
+        }
+    }
+
+    @Test
+    public void testShapeIndexFindsTheSameShapeAsAScan() throws Exception {
+
+        FileProcessor fileProcessor = new HPGLFileProcessor(Util.mapFile(Path.of("test.hpgl")));
+        fileProcessor.startFileProcessing();
+
+        List<ClosedShape> shapes = fileProcessor.getShapes();
+        ShapeIndex index = new ShapeIndex(shapes);
+        double width = fileProcessor.drawingDimensions.getWidth();
+        double height = fileProcessor.drawingDimensions.getHeight();
+
+        for (int i = 0; i <= 400; i++) {
+            for (int j = 0; j <= 100; j++) {
+                double x = i * width / 400;
+                double y = j * height / 100;
+                ClosedShape expected = shapes.stream().filter(s -> s.contains(x, y)).findFirst().orElse(null);
+                assertSame(expected, index.find(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void testOverlappingPiecesAreReportedByID() throws Exception {
+
+        // The second square crosses the corner of the first without covering either center;
+        // the third one only shares the first one's bottom line
+        FileProcessor fileProcessor = new HPGLFileProcessor("IN;PU0,0;PD4000,0,4000,4000,0,4000,0,0;"
+                + "PU3000,3000;PD7000,3000,7000,7000,3000,7000,3000,3000;"
+                + "PU0,-4000;PD4000,-4000,4000,0,0,0,0,-4000;PU;");
+        fileProcessor.startFileProcessing();
+
+        List<ClosedShape> shapes = fileProcessor.getShapes();
+        assertEquals(3, shapes.size());
+        ClosedShape first = shapes.stream().filter(s -> s.getBounds().getMinY() == 0 && s.getBounds().getMinX() == 0)
+                .findFirst().orElseThrow();
+        ClosedShape second = shapes.stream().filter(s -> s.getBounds().getMinX() > 0).findFirst().orElseThrow();
+
+        List<OverlapChecker.Pair> overlaps = fileProcessor.getOverlappingPieces();
+        assertEquals(1, overlaps.size());
+        assertEquals(Set.of(first.getId(), second.getId()),
+                Set.of(overlaps.get(0).getFirstId(), overlaps.get(0).getSecondId()));
+
+        // Neighbouring pieces of the sample markers cross each other's outlines only within the tolerance
+        for (String name : new String[]{"test.hpgl", "GEMINI.cut", "ggttest.ggt"}) {
+            PieceSequenceNumberCreator.resetCounter();
+            FileProcessor sample = new SourceFile().readAndSendToTheProcessing(new File(name), Unit.MM);
+            assertTrue(sample.getOverlappingPieces().isEmpty());
+        }
+
+        // The squares reach 25 mm into each other, so a wider tolerance lets them pass
+        PieceSequenceNumberCreator.resetCounter();
+        FileProcessor tolerant = new HPGLFileProcessor("IN;PU0,0;PD4000,0,4000,4000,0,4000,0,0;"
+                + "PU3000,3000;PD7000,3000,7000,7000,3000,7000,3000,3000;PU;");
+        tolerant.setOverlapTolerance(30);
+        tolerant.startFileProcessing();
+        assertTrue(tolerant.getOverlappingPieces().isEmpty());
+    }
+
+    @Test
+    public void testOverlapCheckerCountsCrossingEdges() {
+
+        // A U whose center lies in its notch
+        ClosedShape u = polygon(0, 0, 30, 0, 30, 30, 20, 30, 20, 10, 10, 10, 10, 30, 0, 30);
+        // A bar through the U's left arm; no vertex of either lies inside the other, nor does a center
+        ClosedShape bar = polygon(-20, 20, 12, 20, 12, 22, -20, 22);
+        assertFalse(u.contains(bar.getCenter()) || bar.contains(u.getCenter()));
+        assertTrue(OverlapChecker.overlap(u, bar, OverlapChecker.DEFAULT_TOLERANCE));
+
+        // The U's vertex at (10, 30) lies on the edge of its own bounds, and 4 mm inside the square
+        ClosedShape square = polygon(5, 26, 15, 26, 15, 36, 5, 36);
+        assertFalse(u.contains(square.getCenter()) || square.contains(u.getCenter()));
+        assertTrue(OverlapChecker.overlap(u, square, OverlapChecker.DEFAULT_TOLERANCE));
+        assertFalse(OverlapChecker.overlap(u, square, 5));
+
+        // A neighbour cut along the U's right side, slightly askew, crosses it but does not overlap
+        ClosedShape neighbour = polygon(30.5, 0, 60, 0, 60, 30, 29.5, 30);
+        assertFalse(OverlapChecker.overlap(u, neighbour, OverlapChecker.DEFAULT_TOLERANCE));
+
+        u.setId(1);
+        bar.setId(2);
+        square.setId(3);
+        neighbour.setId(4);
+        assertEquals(List.of(new OverlapChecker.Pair(1, 2), new OverlapChecker.Pair(1, 3)),
+                OverlapChecker.findOverlaps(List.of(u, bar, square, neighbour)));
+    }
+
+    /**
+     * @return A shape outlined by the given x, y pairs, closed back to the first one
+     */
+    private static ClosedShape polygon(double... xy) {
+        PackedPolyline polyline = new PackedPolyline(false);
+        polyline.moveTo(xy[0], xy[1]);
+        for (int i = 2; i < xy.length; i += 2) {
+            polyline.lineTo(xy[i], xy[i + 1]);
+        }
+        polyline.lineTo(xy[0], xy[1]);
+        return new ClosedShape(polyline, false);
+    }
+
+    @Test
+    public void testDuplicateContoursBecomeOnePiece() throws Exception {
+
+        // The first square is written again from another corner and the other way round
+        FileProcessor fileProcessor = new HPGLFileProcessor("IN;PU0,0;PD4000,0,4000,4000,0,4000,0,0;"
+                + "PU4000,4000;PD4000,0,0,0,0,4000,4000,4000;"
+                + "PU8000,0;PD12000,0,12000,4000,8000,4000,8000,0;PU;");
+        fileProcessor.startFileProcessing();
+
+        assertEquals(2, fileProcessor.getShapes().size());
+    }
+
+    @Test
+    public void testFindAdjacentShapes() throws Exception {
+
+        // Two squares cut along a common line at x = 4000, and a third one apart
+        FileProcessor fileProcessor = new HPGLFileProcessor("IN;PU0,0;PD4000,0,4000,4000,0,4000,0,0;"
+                + "PU8000,0;PD8000,4000,4000,4000,4000,0,8000,0;"
+                + "PU16000,0;PD20000,0,20000,4000,16000,4000,16000,0;PU;");
+        fileProcessor.setSharedVertices(true);
+        fileProcessor.startFileProcessing();
+
+        List<ClosedShape> shapes = new ArrayList<>(fileProcessor.getShapes());
+        shapes.sort((a, b) -> Double.compare(a.getBounds().getMinX(), b.getBounds().getMinX()));
+        assertEquals(3, shapes.size());
+        assertEquals(List.of(shapes.get(1)), fileProcessor.findAdjacentShapes(shapes.get(0)));
+        assertEquals(List.of(shapes.get(0)), fileProcessor.findAdjacentShapes(shapes.get(1)));
+        assertTrue(fileProcessor.findAdjacentShapes(shapes.get(2)).isEmpty());
+        assertEquals(10, fileProcessor.getVertexPool().size());
+    }
+
+    @Test
+    public void testSourceFileReadsCompressedFiles(@TempDir Path tempDir) throws Exception {
+
+        Path gzip = tempDir.resolve("test.hpgl.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzip))) {
+            Files.copy(Path.of("test.hpgl"), out);
+        }
+
+        Path zip = tempDir.resolve("markers.zip");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zip))) {
+            out.putNextEntry(new ZipEntry("readme.txt"));
+            out.write("not a marker".getBytes(StandardCharsets.ISO_8859_1));
+            out.putNextEntry(new ZipEntry("markers/GEMINI.cut"));
+            Files.copy(Path.of("GEMINI.cut"), out);
+        }
+
+        SourceFile sourceFile = new SourceFile();
+
+        // The inner file name and content decide the format, not the extension passed in
+        FileProcessor hpgl = sourceFile.readAndSendToTheProcessing(gzip.toFile(), FileExtension.GGT, Unit.MM);
+        assertTrue(hpgl instanceof HPGLFileProcessor);
+        assertEquals("-61-73107-100-100-107-18-21-96-6947-86-63-1113-10-68-117-19-9156-50-23-60892139-113-1005-55-19", digestOf(hpgl));
+        assertEquals(159, hpgl.getSortedAndOptimizedLbls().size());
+
+        PieceSequenceNumberCreator.resetCounter();
+        FileProcessor cut = sourceFile.readAndSendToTheProcessing(zip.toFile(), FileExtension.GGT, Unit.MM);
+        assertTrue(cut instanceof GerberFileProcessor);
+        assertEquals("-476648-36-45-11518-5-51-97-105-101-4-24-7990-96-26-169-216850-103-2828-12128998164-42", digestOf(cut));
+        assertEquals(161, cut.getSortedAndOptimizedLbls().size());
+    }
+
+    @Test
+    public void testSourceFileDetectsMislabelledFile(@TempDir Path tempDir) throws Exception {
+
+        Path mislabelled = tempDir.resolve("ggttest.plt");
+        Files.copy(Path.of("ggttest.ggt"), mislabelled);
+
+        FileProcessor ggt = new SourceFile().readAndSendToTheProcessing(mislabelled.toFile(), Unit.MM);
+        assertTrue(ggt instanceof GGTFileProcessor);
+        assertEquals("69-87-126-47-6159-114-12226-44-71-14-128-65-10964-113-10672068-1211428-5-2682-331486-45-125", digestOf(ggt));
+        assertEquals(43, ggt.getSortedAndOptimizedLbls().size());
+    }
+
+    @Test
+    public void testSourceFileReusesProcessedMarkerCache(@TempDir Path tempDir) throws Exception {
+
+        SourceFile sourceFile = new SourceFile();
+        sourceFile.setProcessedMarkerCache(ProcessedMarkerCache.inDirectory(tempDir.resolve("cache")));
+
+        for (String name : new String[]{"test.hpgl", "GEMINI.cut", "ggttest.ggt"}) {
+            PieceSequenceNumberCreator.resetCounter();
+            FileProcessor processed = sourceFile.readAndSendToTheProcessing(new File(name), Unit.MM);
+
+            // A restored processor draws no piece numbers, as nothing is parsed
+            int before = PieceSequenceNumberCreator.getSequenceNumber();
+            FileProcessor restored = sourceFile.readAndSendToTheProcessing(new File(name), Unit.MM);
+            assertEquals(before + 1, PieceSequenceNumberCreator.getSequenceNumber());
+
+            assertEquals(processed.getClass(), restored.getClass());
+            assertEquals(digestOf(processed), digestOf(restored));
+            assertEquals(describeLabels(processed), describeLabels(restored));
+            assertEquals(processed.drawingDimensions, restored.drawingDimensions);
+            assertEquals(linesOf(processed), linesOf(restored));
+            for (int i = 0; i < processed.getShapes().size(); i++) {
+                assertEquals(processed.getShapes().get(i).getCenter(), restored.getShapes().get(i).getCenter());
+                assertEquals(processed.getShapes().get(i).getBounds(), restored.getShapes().get(i).getBounds());
+            }
+
+            // GGT patterns come back with their ids, labels and geometry
+            if (processed instanceof GGTFileProcessor ggt) {
+                List<GGTPattern> restoredPatterns = ((GGTFileProcessor) restored).getPatterns();
+                assertEquals(ggt.getPatterns().size(), restoredPatterns.size());
+                assertFalse(restoredPatterns.isEmpty());
+                for (int i = 0; i < restoredPatterns.size(); i++) {
+                    GGTPattern expected = ggt.getPatterns().get(i);
+                    GGTPattern actual = restoredPatterns.get(i);
+                    assertEquals(expected.getId(), actual.getId());
+                    assertEquals(expected.getLabelTextPositions(), actual.getLabelTextPositions());
+                    assertEquals(expected.getLabel() == null ? null : expected.getLabel().getText(),
+                            actual.getLabel() == null ? null : actual.getLabel().getText());
+                    assertEquals(expected.getLineCount(), actual.getLineCount());
+                    assertEquals(expected.getPolyline().startX(0), actual.getPolyline().startX(0), 1e-6);
+                }
+                assertEquals(restored.getGGTParcalar(), restoredPatterns);
+            }
+        }
+
+        // An entry beside the source is ignored once the content changes
+        Path marker = tempDir.resolve("test.hpgl");
+        Files.copy(Path.of("test.hpgl"), marker);
+        sourceFile.setProcessedMarkerCache(ProcessedMarkerCache.besideSources());
+        sourceFile.readAndSendToTheProcessing(marker.toFile(), Unit.MM);
+        assertTrue(Files.exists(tempDir.resolve("test.hpgl.MM-DEFAULT" + ProcessedMarkerCache.FILE_SUFFIX)));
+
+        Files.writeString(marker, "IN;PU0,0;PD4000,0,4000,4000,0,4000,0,0;PU;");
+        FileProcessor changed = sourceFile.readAndSendToTheProcessing(marker.toFile(), Unit.MM);
+        assertEquals(1, changed.getShapes().size());
+
+        // The stale entry was not mapped, and has been replaced by one for the new content
+        byte[] hash = ProcessedMarkerCache.hashContent(ByteBuffer.wrap(Files.readAllBytes(marker)));
+        assertNotNull(ProcessedMarkerCache.besideSources().load(marker, hash, Unit.MM, PlotterScale.DEFAULT));
+    }
+
+    @Test
+    public void testSourceFileKeepsRecentResultsInMemory(@TempDir Path tempDir) throws Exception {
+
+        Path hpglFile = tempDir.resolve("test.hpgl");
+        Files.copy(Path.of("test.hpgl"), hpglFile);
+        File hpgl = hpglFile.toFile();
+
+        ProcessedResultCache cache = new ProcessedResultCache(64L << 20);
+        SourceFile sourceFile = new SourceFile();
+        sourceFile.setResultCache(cache);
+
+        FileProcessor processed = sourceFile.readAndSendToTheProcessing(hpgl, FileExtension.HPGL, Unit.MM);
+        FileProcessor first = sourceFile.readAndSendToTheProcessing(hpgl, FileExtension.HPGL, Unit.MM);
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(digestOf(processed), digestOf(first));
+        assertEquals(describeLabels(processed), describeLabels(first));
+
+        // Every hit is an independent copy
+        first.getShapes().get(0).mirrorX(first.drawingDimensions.getWidth());
+        FileProcessor second = sourceFile.readAndSendToTheProcessing(hpgl, FileExtension.HPGL, Unit.MM);
+        assertEquals(digestOf(processed), digestOf(second));
+
+        // Other settings and a touched file are misses
+        sourceFile.readAndSendToTheProcessing(hpgl, FileExtension.HPGL, Unit.IN);
+        assertTrue(hpgl.setLastModified(hpgl.lastModified() - 60_000));
+        sourceFile.readAndSendToTheProcessing(hpgl, FileExtension.HPGL, Unit.MM);
+        assertEquals(3, cache.getMissCount());
+        assertEquals(3, cache.getEntryCount());
+
+        // A budget for one result evicts the least recently used ones
+        long entrySize = cache.getSizeInBytes() / 3;
+        ProcessedResultCache small = new ProcessedResultCache(entrySize + entrySize / 2);
+        sourceFile.setResultCache(small);
+        sourceFile.readAndSendToTheProcessing(hpgl, FileExtension.HPGL, Unit.MM);
+        sourceFile.readAndSendToTheProcessing(hpgl, FileExtension.HPGL, Unit.IN);
+        assertEquals(1, small.getEntryCount());
+        assertEquals(1, small.getEvictionCount());
+        assertTrue(small.getSizeInBytes() <= small.getMaxBytes());
+
+        // Results in another storage mode are kept beside the default ones, not replacing them
+        sourceFile.setResultCache(cache);
+        sourceFile.setFixedPointCoordinates(true);
+        FileProcessor fixedPoint = sourceFile.readAndSendToTheProcessing(hpgl, FileExtension.HPGL, Unit.MM);
+        assertTrue(fixedPoint.isFixedPointCoordinates());
+        assertEquals(4, cache.getMissCount());
+        assertTrue(sourceFile.readAndSendToTheProcessing(hpgl, FileExtension.HPGL, Unit.MM).isFixedPointCoordinates());
+        sourceFile.setFixedPointCoordinates(false);
+        FileProcessor plain = sourceFile.readAndSendToTheProcessing(hpgl, FileExtension.HPGL, Unit.MM);
+        assertFalse(plain.isFixedPointCoordinates());
+        assertEquals(4, cache.getMissCount());
+        assertEquals(4, cache.getEntryCount());
+    }
+
+    private String digestOf(FileProcessor fileProcessor) throws Exception {
+        StringBuilder s = new StringBuilder();
+        fileProcessor.getShapes().forEach(closedShape -> s.append(LineText.of(closedShape.getPolyline())));
+
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(s.toString().getBytes());
+
+        StringBuilder digestString = new StringBuilder();
+        for (byte b : digest) {
+            digestString.append(b);
+        }
+        return digestString.toString();
+    }
+
+    private String linesOf(FileProcessor fileProcessor) {
+        StringBuilder s = new StringBuilder();
+        fileProcessor.getPolylines().forEach(polyline -> s.append(LineText.of(polyline)));
+        return s.toString();
+    }
+
+    private String describeLabels(FileProcessor fileProcessor) {
+        StringBuilder sb = new StringBuilder();
+        fileProcessor.getSortedAndOptimizedLbls().forEach(lbl -> sb.append(lbl.getText()).append(lbl.getPosition())
+                .append(lbl.getAngle()).append(lbl.getOrigin()).append(lbl.getWidth()).append(lbl.getHeight())
+                .append(lbl.getShape() == null ? "" : lbl.getShape().getId()).append('\n'));
+        return sb.toString();
+    }
+
+
+
+    @Test
+    public void testFileProcessorCUT()  throws Exception {
+
+        FileProcessor fileProcessor = new GerberFileProcessor(Files.readString(Path.of("GEMINI.cut"), StandardCharsets.UTF_8));
+        fileProcessor.startFileProcessing();
+
+
+
+
+        AtomicReference<String> s = new AtomicReference<>("");
+        fileProcessor.getShapes().forEach(closedShape -> {
+
+            s.set(s.get() + LineText.of(closedShape.getPolyline()));
+
+
+        });
+
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+
+        String digestString  = "";
+
+        byte[] digest = md.digest(s.get().getBytes());
+
+        for (int i = 0; i < digest.length; i++) {
+            digestString += digest[i];
+        }
+
+        assertEquals("-476648-36-45-11518-5-51-97-105-101-4-24-7990-96-26-169-216850-103-2828-12128998164-42", digestString);
+        assertEquals(161, fileProcessor.getSortedAndOptimizedLbls().size());
+        assertEquals(new Dimension2D(9419.5,1800.0), fileProcessor.drawingDimensions);
+
+
+
+        Point2D expected = new Point2D(147.33, 977.52);
+        Point2D actual =fileProcessor.getSortedAndOptimizedLbls().get(1).getPosition();
+        System.out.println("Expected:" + expected);
+        System.out.println("Actual:" + actual);
+        assertTrue(arePointsNearlyEqual(expected, actual, 0.01));
+
+        fileProcessor.invertFlipV();
+
+        expected = new Point2D(147.33, 822.48);
+        actual =fileProcessor.getSortedAndOptimizedLbls().get(1).getPosition();
+        assertTrue(arePointsNearlyEqual(expected, actual, 0.01));
+
+
+        fileProcessor.invertFlipV();
+
+        expected = new Point2D(147.33, 977.52);
+        actual =fileProcessor.getSortedAndOptimizedLbls().get(1).getPosition();
+        assertTrue(arePointsNearlyEqual(expected, actual, 0.01));
+
+
+        fileProcessor.invertFlipH();
+
+        expected = new Point2D(67.50, 409.95);
+        actual =fileProcessor.getSortedAndOptimizedLbls().get(1).getPosition();
+        System.out.println("Expected:" + expected);
+        System.out.println("Actual:" + actual);
+        assertTrue(arePointsNearlyEqual(expected, actual, 0.01));
+
+
+        fileProcessor.invertFlipH();
+
+        expected = new Point2D(147.33, 977.52);
+        actual =fileProcessor.getSortedAndOptimizedLbls().get(1).getPosition();
+        assertTrue(arePointsNearlyEqual(expected, actual, 0.01));
+
+        fileProcessor.invertFlipH();
+        fileProcessor.invertFlipV();
+
+        expected = new Point2D(67.50, 1390.05);
+        actual =fileProcessor.getSortedAndOptimizedLbls().get(1).getPosition();
+        System.out.println("Expected:" + expected);
+        System.out.println("Actual:" + actual);
+        assertTrue(arePointsNearlyEqual(expected, actual, 0.01));
+
+        fileProcessor.invertFlipH();
+        fileProcessor.invertFlipV();
+
+        expected = new Point2D(147.33, 977.52);
+        actual =fileProcessor.getSortedAndOptimizedLbls().get(1).getPosition();
+        assertTrue(arePointsNearlyEqual(expected, actual, 0.01));
+
+
+
+
+
+    }
+
+
+
+    @Test
+    public void testFileProcessorGGT()  throws Exception {
+
+        FileProcessor fileProcessor = new GGTFileProcessor(Files.readString(Path.of("ggttest.ggt"), StandardCharsets.UTF_8));
+        fileProcessor.startFileProcessing();
+
+
+
+
+        AtomicReference<String> s = new AtomicReference<>("");
+        fileProcessor.getShapes().forEach(closedShape -> {
+
+            s.set(s.get() + LineText.of(closedShape.getPolyline()));
+
+
+        });
+
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+
+        String digestString  = "";
+
+        byte[] digest = md.digest(s.get().getBytes());
+
+        for (int i = 0; i < digest.length; i++) {
+            digestString += digest[i];
+        }
+
+        assertEquals("69-87-126-47-6159-114-12226-44-71-14-128-65-10964-113-10672068-1211428-5-2682-331486-45-125", digestString);
+        assertEquals(43, fileProcessor.getSortedAndOptimizedLbls().size());
+        assertEquals(new Dimension2D(2905.252,1400.0480000000002), fileProcessor.drawingDimensions);
+
+
+
+
+        Point2D expected = new Point2D(19.94, 96.90);
+        Point2D actual =fileProcessor.getSortedAndOptimizedLbls().get(1).getPosition();
+        System.out.println("Expected:" + expected);
+        System.out.println("Actual:" + actual);
+        assertTrue(arePointsNearlyEqual(expected, actual, 0.01));
+
+        fileProcessor.invertFlipV();
+
+        expected = new Point2D(19.94, 1263.14);
+        actual =fileProcessor.getSortedAndOptimizedLbls().get(1).getPosition();
+        assertTrue(arePointsNearlyEqual(expected, actual, 0.01));
+
+
+        fileProcessor.invertFlipV();
+
+        expected = new Point2D(19.94, 96.90);
+        actual =fileProcessor.getSortedAndOptimizedLbls().get(1).getPosition();
+        assertTrue(arePointsNearlyEqual(expected, actual, 0.01));
+
+
+        fileProcessor.invertFlipH();
+
+        expected = new Point2D(56.53, 1062.98);
+        actual =fileProcessor.getSortedAndOptimizedLbls().get(1).getPosition();
+        System.out.println("Expected:" + expected);
+        System.out.println("Actual:" + actual);
+        assertTrue(arePointsNearlyEqual(expected, actual, 0.01));
+
+
+        fileProcessor.invertFlipH();
+
+        expected = new Point2D(19.94, 96.90);
+        actual =fileProcessor.getSortedAndOptimizedLbls().get(1).getPosition();
+        assertTrue(arePointsNearlyEqual(expected, actual, 0.01));
+
+        fileProcessor.invertFlipH();
+        fileProcessor.invertFlipV();
+
+        expected = new Point2D(55.36, 1209.98);
+        actual =fileProcessor.getSortedAndOptimizedLbls().get(1).getPosition();
+        System.out.println("Expected:" + expected);
+        System.out.println("Actual:" + actual);
+        assertTrue(arePointsNearlyEqual(expected, actual, 0.01));
+
+        fileProcessor.invertFlipH();
+        fileProcessor.invertFlipV();
+
+        expected = new Point2D(19.94, 96.90);
+        actual =fileProcessor.getSortedAndOptimizedLbls().get(1).getPosition();
+        assertTrue(arePointsNearlyEqual(expected, actual, 0.01));
+
+
+
+
+
+
+
+
+
+    }
+
+    @Test
+    public void testFileProcessorGGTParallel()  throws Exception {
+
+        FileProcessor fileProcessor = new GGTFileProcessor(Files.readString(Path.of("ggttest.ggt"), StandardCharsets.UTF_8));
+        fileProcessor.setParallelParsing(true);
+        fileProcessor.startFileProcessing();
+
+        AtomicReference<String> s = new AtomicReference<>("");
+        fileProcessor.getShapes().forEach(closedShape -> s.set(s.get() + LineText.of(closedShape.getPolyline())));
+
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+
+        String digestString  = "";
+
+        byte[] digest = md.digest(s.get().getBytes());
+
+        for (int i = 0; i < digest.length; i++) {
+            digestString += digest[i];
+        }
+
+        assertEquals("69-87-126-47-6159-114-12226-44-71-14-128-65-10964-113-10672068-1211428-5-2682-331486-45-125", digestString);
+        assertEquals(43, fileProcessor.getSortedAndOptimizedLbls().size());
+        assertEquals(new Dimension2D(2905.252,1400.0480000000002), fileProcessor.drawingDimensions);
+
+        Point2D expected = new Point2D(19.94, 96.90);
+        Point2D actual =fileProcessor.getSortedAndOptimizedLbls().get(1).getPosition();
+        assertTrue(arePointsNearlyEqual(expected, actual, 0.01));
+    }
+
+    private boolean arePointsNearlyEqual(Point2D p1, Point2D p2, double epsilon) {
+        return Math.abs(p1.getX() - p2.getX()) < epsilon &&
+                Math.abs(p1.getY() - p2.getY()) < epsilon;
+    }
+
+
+}
\ No newline at end of file
@@ -0,0 +1,31 @@
+package tr.com.logidex.cad.model;
+
+/**
+ * Formats a polyline's segments exactly as a List of javafx.scene.shape.Line prints, so the
+ * digests recorded before the core stopped depending on JavaFX graphics still apply.
+ */
+public final class LineText {
+
+    private LineText() {
+    }
+
+    public static String of(PackedPolyline polyline) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int k = 0; k < polyline.segmentCount(); k++) {
+            if (k > 0) {
+                sb.append(", ");
+            }
+            sb.append("Line[startX=").append(coordinate(polyline.startX(k)))
+                    .append(", startY=").append(coordinate(polyline.startY(k)))
+                    .append(", endX=").append(coordinate(polyline.endX(k)))
+                    .append(", endY=").append(coordinate(polyline.endY(k)))
+                    .append(", stroke=0x000000ff, strokeWidth=1.0]");
+        }
+        return sb.append(']').toString();
+    }
+
+    // Line's constructor skips setting zero-valued properties, so -0.0 always printed as 0.0
+    private static double coordinate(double value) {
+        return value == 0 ? 0.0 : value;
+    }
+}
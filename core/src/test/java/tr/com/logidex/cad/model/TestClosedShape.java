@@ -0,0 +1,65 @@
+package tr.com.logidex.cad.model;
+
+import org.junit.jupiter.api.Test;
+import tr.com.logidex.cad.geometry.BoundingBox;
+import tr.com.logidex.cad.helper.PieceSequenceNumberCreator;
+import tr.com.logidex.cad.helper.Util;
+import tr.com.logidex.cad.processor.FileProcessor;
+import tr.com.logidex.cad.processor.HPGLFileProcessor;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class TestClosedShape {
+
+    @Test
+    public void testOffHeapShapesKeepNoOutlineOnTheHeap() throws Exception {
+        PieceSequenceNumberCreator.resetCounter();
+        FileProcessor offHeap = new HPGLFileProcessor(Util.mapFile(Path.of("test.hpgl")));
+        offHeap.setOffHeapGeometry(true);
+        offHeap.startFileProcessing();
+
+        // Label assignment and the overlap check have run contains() on every shape by now
+        for (ClosedShape shape : offHeap.getShapes()) {
+            assertTrue(shape.getPolyline().isOffHeap());
+            assertFalse(shape.hasOutlineCopy());
+        }
+        assertEquals(159, offHeap.getSortedAndOptimizedLbls().size());
+        offHeap.clearAll();
+    }
+
+    @Test
+    public void testContainsMatchesPolylineInEveryStorageMode() {
+        // A concave outline, so the bounds alone would get the notch wrong
+        PackedPolyline polyline = new PackedPolyline(false);
+        polyline.moveTo(0, 0);
+        polyline.lineTo(30, 0);
+        polyline.lineTo(30, 30);
+        polyline.lineTo(20, 30);
+        polyline.lineTo(20, 10);
+        polyline.lineTo(10, 10);
+        polyline.lineTo(10, 30);
+        polyline.lineTo(0, 30);
+        polyline.lineTo(0, 0);
+
+        double[][] points = {{5, 5}, {15, 20}, {25, 25}, {15, 5}, {-1, 5}, {31, 31}};
+        try (GeometryStore store = new GeometryStore()) {
+            PackedPolyline offHeap = polyline.map(v -> v);
+            assertTrue(offHeap.moveOffHeap(store));
+
+            for (PackedPolyline storage : new PackedPolyline[]{polyline, polyline.toFixedPoint(0.5),
+                    polyline.toPooled(new VertexPool()), offHeap}) {
+                ClosedShape shape = new ClosedShape(storage, false);
+                assertEquals(new BoundingBox(0, 0, 30, 30), shape.getOutlineBounds());
+                for (double[] p : points) {
+                    assertEquals(polyline.contains(p[0], p[1]), shape.contains(p[0], p[1]));
+                }
+                assertEquals(!storage.isOffHeap() && !storage.isFixedPoint() && !storage.isPooled(), shape.hasOutlineCopy());
+            }
+        }
+    }
+}
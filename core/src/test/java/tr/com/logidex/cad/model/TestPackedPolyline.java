@@ -0,0 +1,82 @@
+package tr.com.logidex.cad.model;
+
+import tr.com.logidex.cad.geometry.Point2D;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class TestPackedPolyline {
+
+    @Test
+    public void testSegmentsRoundTripWithGaps() {
+        // Drawn backwards like HPGL, with a knife-up move between the two runs
+        double[][] segments = {
+                {10, 0, 0, 0},
+                {10, 10, 10, 0},
+                {0, 10, 10, 10},
+                {0, 0, 0, 10},
+                {5, 5, 3, 3},
+                {5, 5, 5, 5}};
+
+        PackedPolyline polyline = new PackedPolyline(true);
+        for (double[] segment : segments) {
+            polyline.addSegment(segment[0], segment[1], segment[2], segment[3]);
+        }
+
+        assertTrue(polyline.isReversed());
+        assertEquals(2, polyline.runCount());
+        assertEquals(6, polyline.segmentCount());
+        assertEquals(8, polyline.vertexCount());
+        for (int k = 0; k < segments.length; k++) {
+            assertEquals(segments[k][0], polyline.startX(k));
+            assertEquals(segments[k][1], polyline.startY(k));
+            assertEquals(segments[k][2], polyline.endX(k));
+            assertEquals(segments[k][3], polyline.endY(k));
+        }
+        assertTrue(LineText.of(polyline).startsWith(
+                "[Line[startX=10.0, startY=0.0, endX=0.0, endY=0.0, stroke=0x000000ff, strokeWidth=1.0], "));
+    }
+
+    @Test
+    public void testContainsAndMirror() {
+        PackedPolyline square = new PackedPolyline(false);
+        square.addSegment(0, 0, 10, 0);
+        square.addSegment(10, 0, 10, 10);
+        square.addSegment(10, 10, 0, 10);
+        square.addSegment(0, 10, 0, 0);
+
+        assertEquals(1, square.runCount());
+        assertTrue(square.contains(5, 5));
+        assertFalse(square.contains(15, 5));
+        assertTrue(ClosedShape.pointInPolygon(square, new Point2D(5, 5)));
+
+        square.mirrorX(30);
+        assertTrue(square.contains(25, 5));
+        assertEquals(30, square.startX(0));
+        assertEquals(20, square.endX(0));
+    }
+
+    @Test
+    public void testFixedPointSnapsToUnits() {
+        PackedPolyline polyline = PackedPolyline.fixedPoint(true, 0.0254);
+        polyline.addSegment(100 * 0.0254, 0, 0, 0);
+        // Slightly off the grid, but the same plotter position: the run continues
+        polyline.addSegment(100 * 0.0254, 50 * 0.0254, 100.2 * 0.0254, 0.1 * 0.0254);
+
+        assertTrue(polyline.isFixedPoint());
+        assertEquals(1, polyline.runCount());
+        assertEquals(100, polyline.fixedX(1));
+        assertEquals(50, polyline.fixedY(2));
+        assertEquals(50 * 0.0254, polyline.startY(1));
+
+        polyline.mirrorX(200 * 0.0254);
+        assertEquals(200, polyline.fixedX(0));
+
+        PackedPolyline doubled = polyline.withUnit(0.0508);
+        assertEquals(100 * 0.0508, doubled.startX(0));
+        assertEquals(polyline.fixedY(2), doubled.fixedY(2));
+    }
+}
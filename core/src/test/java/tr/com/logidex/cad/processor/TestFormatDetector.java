@@ -0,0 +1,62 @@
+package tr.com.logidex.cad.processor;
+
+import org.junit.jupiter.api.Test;
+import tr.com.logidex.cad.FileExtension;
+
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+
+public class TestFormatDetector {
+
+
+    @Test
+    public void testDetectsSampleFilesWithoutHint() throws Exception {
+
+        assertEquals(FileExtension.HPGL, FormatDetector.detect(read("test.hpgl"), null));
+        assertEquals(FileExtension.CUT, FormatDetector.detect(read("GEMINI.cut"), null));
+        assertEquals(FileExtension.GGT, FormatDetector.detect(read("ggttest.ggt"), null));
+    }
+
+    @Test
+    public void testContentOverrulesWrongHint() throws Exception {
+
+        assertEquals(FileExtension.GGT, FormatDetector.detect(read("ggttest.ggt"), FileExtension.PLT));
+        assertEquals(FileExtension.CUT, FormatDetector.detect(read("GEMINI.cut"), FileExtension.GGT));
+        assertEquals(FileExtension.HPGL, FormatDetector.detect(read("test.hpgl"), FileExtension.CAM));
+
+        // A hint naming the same processor is kept as is
+        assertEquals(FileExtension.PLT, FormatDetector.detect(read("test.hpgl"), FileExtension.PLT));
+        assertEquals(FileExtension.CAM, FormatDetector.detect(read("GEMINI.cut"), FileExtension.CAM));
+    }
+
+    @Test
+    public void testInconclusiveContentFallsBackToHint() {
+
+        assertEquals(FileExtension.GGT, FormatDetector.detect("hello world", FileExtension.GGT));
+        assertNull(FormatDetector.detect("", null));
+
+        // Gerber family without dialect markers
+        assertEquals(FileExtension.GGT, FormatDetector.detect("H1*M70*N1*M15*D2*", FileExtension.GGT));
+        assertEquals(FileExtension.CUT, FormatDetector.detect("H1*M70*N1*M15*D2*", FileExtension.PLT));
+    }
+
+    @Test
+    public void testStreamIsNotConsumed() throws Exception {
+
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(Path.of("GEMINI.cut")))) {
+            assertEquals(FileExtension.CUT, FormatDetector.detect(in, null));
+            assertEquals(read("GEMINI.cut"), new String(in.readAllBytes(), StandardCharsets.ISO_8859_1));
+        }
+    }
+
+    private static String read(String fileName) throws Exception {
+        return Files.readString(Path.of(fileName), StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,122 @@
+package tr.com.logidex.cad.processor;
+
+import org.junit.jupiter.api.Test;
+import tr.com.logidex.cad.geometry.Arc;
+import tr.com.logidex.cad.helper.PieceSequenceNumberCreator;
+import tr.com.logidex.cad.model.PackedPolyline;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class TestGerberArcInterpolation {
+
+    // A half circle above a square, then a full circle; coordinates are tenths of a drawing unit
+    private static final String ARC_MARKER = "H1*G71*M15*N1*X0Y0*M14*G03X6000Y0I3000J0*G01X6000Y-6000*X0Y-6000*X0Y0*M15*"
+            + "N2*X10000Y0*M14*G02X10000Y0I-2000J0*M15*M0*";
+
+
+    @Test
+    public void testArcsAreCutWithinTolerance() throws Exception {
+
+        GerberFileProcessor processor = process(0.05);
+        List<Integer> ids = new ArrayList<>(processor.linesForClosedShapes.keySet());
+        ids.sort(null);
+
+        Arc half = processor.getArcs(ids.get(0)).get(0);
+        assertEquals(300, half.getCenterX(), 1e-9);
+        assertEquals(0, half.getCenterY(), 1e-9);
+        assertEquals(300, half.getRadiusX(), 1e-9);
+        assertEquals(180, half.getStartAngle(), 1e-9);
+        assertEquals(180, half.getLength(), 1e-9);
+
+        Arc circle = processor.getArcs(ids.get(1)).get(0);
+        assertEquals(800, circle.getCenterX(), 1e-9);
+        assertEquals(-360, circle.getLength(), 1e-9);
+
+        assertChordsFollow(processor.linesForClosedShapes.get(ids.get(0)), half, 0.05);
+        assertChordsFollow(processor.linesForClosedShapes.get(ids.get(1)), circle, 0.05);
+
+        // The half circle runs counter-clockwise from (0,0) below the centre and ends exactly on (600,0)
+        PackedPolyline firstPiece = processor.linesForClosedShapes.get(ids.get(0));
+        assertTrue(firstPiece.startY(0) < 0);
+        int arcEnd = firstPiece.segmentCount() - 4;
+        assertEquals(600, firstPiece.startX(arcEnd));
+        assertEquals(0, firstPiece.startY(arcEnd));
+    }
+
+    @Test
+    public void testArcsFollowTheFlippedPieces() throws Exception {
+
+        GerberFileProcessor processor = process(0.05);
+        List<Integer> ids = new ArrayList<>(processor.linesForClosedShapes.keySet());
+        ids.sort(null);
+        double width = processor.getDrawingDimensions().getWidth();
+
+        processor.invertFlipH();
+        Arc half = processor.getArcs(ids.get(0)).get(0);
+        assertEquals(width - 300, half.getCenterX(), 1e-9);
+        assertEquals(0, half.getStartAngle(), 1e-9);
+        assertEquals(-180, half.getLength(), 1e-9);
+
+        processor.invertFlipV();
+        for (int id : ids) {
+            PackedPolyline piece = processor.linesForClosedShapes.get(id);
+            Arc arc = processor.getArcs(id).get(0);
+            assertEndsOnPiece(piece, arc);
+            assertChordsFollow(piece, arc, 0.05);
+        }
+    }
+
+    @Test
+    public void testToleranceControlsChordCount() throws Exception {
+
+        int coarse = segmentCount(process(1));
+        int fine = segmentCount(process(0.01));
+
+        assertTrue(fine > coarse * 5, fine + " vs " + coarse);
+        assertTrue(process(1).getArcs(Integer.MAX_VALUE).isEmpty());
+    }
+
+    private static int segmentCount(FileProcessor processor) {
+        return processor.getPolylines().stream().mapToInt(PackedPolyline::segmentCount).sum();
+    }
+
+    private static void assertChordsFollow(PackedPolyline piece, Arc arc, double tolerance) {
+        for (int k = 0; k < piece.segmentCount(); k++) {
+            double startDistance = Math.hypot(piece.startX(k) - arc.getCenterX(), piece.startY(k) - arc.getCenterY());
+            double endDistance = Math.hypot(piece.endX(k) - arc.getCenterX(), piece.endY(k) - arc.getCenterY());
+            if (Math.abs(startDistance - arc.getRadiusX()) > 1e-6 || Math.abs(endDistance - arc.getRadiusX()) > 1e-6) {
+                continue; // A straight side of the piece
+            }
+
+            double midX = (piece.startX(k) + piece.endX(k)) / 2;
+            double midY = (piece.startY(k) + piece.endY(k)) / 2;
+            double deviation = arc.getRadiusX() - Math.hypot(midX - arc.getCenterX(), midY - arc.getCenterY());
+            assertTrue(deviation <= tolerance + 1e-9, "deviation " + deviation);
+        }
+    }
+
+    private static void assertEndsOnPiece(PackedPolyline piece, Arc arc) {
+        for (double angle : new double[]{arc.getStartAngle(), arc.getStartAngle() + arc.getLength()}) {
+            double x = arc.getCenterX() + arc.getRadiusX() * Math.cos(Math.toRadians(angle));
+            double y = arc.getCenterY() + arc.getRadiusY() * Math.sin(Math.toRadians(angle));
+            boolean found = false;
+            for (int k = 0; k < piece.segmentCount() && !found; k++) {
+                found = Math.hypot(piece.startX(k) - x, piece.startY(k) - y) < 1e-6;
+            }
+            assertTrue(found, "no vertex at " + x + "," + y);
+        }
+    }
+
+    private static GerberFileProcessor process(double tolerance) throws Exception {
+        PieceSequenceNumberCreator.resetCounter();
+        GerberFileProcessor processor = new GerberFileProcessor(ARC_MARKER);
+        processor.setArcTolerance(tolerance);
+        processor.startFileProcessing();
+        return processor;
+    }
+}
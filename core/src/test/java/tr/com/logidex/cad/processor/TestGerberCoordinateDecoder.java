@@ -0,0 +1,187 @@
+package tr.com.logidex.cad.processor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class TestGerberCoordinateDecoder {
+
+    private static final int BENCHMARK_ROUNDS = 200;
+
+
+    @Test
+    public void testDecoderMatchesLegacyParser() throws Exception {
+
+        GerberCoordinateDecoder decoder = new GerberCoordinateDecoder();
+
+        for (String instruction : readCoordinateInstructions()) {
+            LegacyCoordinate legacy = parseLegacy(instruction.substring(1));
+
+            assertTrue(decoder.decode(instruction, 0, instruction.length()), instruction);
+            assertEquals(legacy.x, decoder.x(), instruction);
+            assertEquals(legacy.y, decoder.y(), instruction);
+            assertEquals(legacy.hasM31, decoder.hasLabelCommand(), instruction);
+        }
+    }
+
+
+    @Test
+    public void testDecoderIsExactForLongCoordinates() {
+
+        GerberCoordinateDecoder decoder = new GerberCoordinateDecoder();
+        String instruction = "X123456789Y-987654321M31";
+
+        assertTrue(decoder.decode(instruction, 0, instruction.length()));
+        assertEquals(123456789.0, decoder.x());
+        assertEquals(-987654321.0, decoder.y());
+        assertTrue(decoder.hasLabelCommand());
+
+        assertFalse(decoder.decode("X100", 0, 4));
+        assertFalse(decoder.decode("X10AY5", 0, 6));
+    }
+
+
+    @Test
+    public void testDecoderReadsArcCentreOffsets() {
+
+        GerberCoordinateDecoder decoder = new GerberCoordinateDecoder();
+        String instruction = "X600Y0I300J-40M31";
+
+        assertTrue(decoder.decode(instruction, 0, instruction.length()));
+        assertEquals(600.0, decoder.x());
+        assertEquals(0.0, decoder.y());
+        assertEquals(300.0, decoder.i());
+        assertEquals(-40.0, decoder.j());
+        assertTrue(decoder.hasCenterOffset());
+        assertTrue(decoder.hasLabelCommand());
+
+        assertTrue(decoder.decode("X1Y2J5", 0, 6));
+        assertEquals(0.0, decoder.i());
+        assertEquals(5.0, decoder.j());
+
+        assertTrue(decoder.decode("X1Y2", 0, 4));
+        assertFalse(decoder.hasCenterOffset());
+        assertFalse(decoder.decode("X1Y2I", 0, 5));
+    }
+
+
+    /**
+     * Throughput comparison against the StringBuilder/Float.parseFloat parser it replaced.
+     * Run with: mvn test -Dtest=TestGerberCoordinateDecoder -Dbenchmark=true
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    public void benchmarkDecoderAgainstLegacyParser() throws Exception {
+
+        List<String> instructions = readCoordinateInstructions();
+        GerberCoordinateDecoder decoder = new GerberCoordinateDecoder();
+
+        // Warm-up both paths before measuring
+        double sink = runLegacy(instructions, BENCHMARK_ROUNDS) + runDecoder(decoder, instructions, BENCHMARK_ROUNDS);
+
+        long start = System.nanoTime();
+        sink += runLegacy(instructions, BENCHMARK_ROUNDS);
+        long legacyNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        sink += runDecoder(decoder, instructions, BENCHMARK_ROUNDS);
+        long decoderNanos = System.nanoTime() - start;
+
+        long operations = (long) instructions.size() * BENCHMARK_ROUNDS;
+        System.out.println("Gerber coordinate parsing, " + operations + " instructions (checksum " + sink + ")");
+        System.out.printf("  legacy : %.1f ns/op, %.1f M ops/s%n",
+                (double) legacyNanos / operations, operations * 1e3 / legacyNanos);
+        System.out.printf("  decoder: %.1f ns/op, %.1f M ops/s%n",
+                (double) decoderNanos / operations, operations * 1e3 / decoderNanos);
+    }
+
+    private static double runLegacy(List<String> instructions, int rounds) {
+        double sum = 0;
+        for (int r = 0; r < rounds; r++) {
+            for (String instruction : instructions) {
+                LegacyCoordinate c = parseLegacy(instruction.substring(1));
+                sum += c.x + c.y;
+            }
+        }
+        return sum;
+    }
+
+    private static double runDecoder(GerberCoordinateDecoder decoder, List<String> instructions, int rounds) {
+        double sum = 0;
+        for (int r = 0; r < rounds; r++) {
+            for (String instruction : instructions) {
+                decoder.decode(instruction, 0, instruction.length());
+                sum += decoder.x() + decoder.y();
+            }
+        }
+        return sum;
+    }
+
+    private static List<String> readCoordinateInstructions() throws Exception {
+        String content = Files.readString(Path.of("GEMINI.cut"), StandardCharsets.UTF_8);
+        List<String> instructions = new ArrayList<>();
+        for (String instruction : content.split("[\\*]")) {
+            if (instruction.startsWith("X") && instruction.contains("Y")) {
+                instructions.add(instruction);
+            }
+        }
+        return instructions;
+    }
+
+    /**
+     * The parser GerberFileProcessor used before GerberCoordinateDecoder, without scaling.
+     */
+    private static LegacyCoordinate parseLegacy(String data) {
+        StringBuilder x = new StringBuilder();
+        StringBuilder y = new StringBuilder();
+        boolean readingY = false;
+        boolean hasM31 = false;
+
+        for (int i = 0; i < data.length(); i++) {
+            char c = data.charAt(i);
+
+            if (c == 'Y') {
+                readingY = true;
+                continue;
+            }
+
+            if (c == 'M') {
+                String remaining = data.substring(i);
+                if (remaining.startsWith("M31")) {
+                    hasM31 = true;
+                }
+                break;
+            }
+
+            if (readingY) {
+                y.append(c);
+            } else {
+                x.append(c);
+            }
+        }
+
+        return new LegacyCoordinate(Float.parseFloat(x.toString()), Float.parseFloat(y.toString()), hasM31);
+    }
+
+    private static class LegacyCoordinate {
+        final double x;
+        final double y;
+        final boolean hasM31;
+
+        LegacyCoordinate(double x, double y, boolean hasM31) {
+            this.x = x;
+            this.y = y;
+            this.hasM31 = hasM31;
+        }
+    }
+}
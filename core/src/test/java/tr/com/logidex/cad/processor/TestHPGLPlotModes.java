@@ -0,0 +1,155 @@
+package tr.com.logidex.cad.processor;
+
+import org.junit.jupiter.api.Test;
+import tr.com.logidex.cad.geometry.Point2D;
+import tr.com.logidex.cad.helper.PieceSequenceNumberCreator;
+import tr.com.logidex.cad.model.LineText;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class TestHPGLPlotModes {
+
+    // Commands per run of one plot mode in the rewritten marker
+    private static final int MODE_RUN_LENGTH = 50;
+
+
+    @Test
+    public void testRelativeMarkerMatchesAbsoluteMarker() throws Exception {
+
+        String plain = Files.readString(Path.of("test.hpgl"), StandardCharsets.ISO_8859_1);
+        String mixed = toMixedPlotModes(plain);
+
+        assertEquals(describe(plain, false), describe(mixed, false));
+        // Cuts inside the PR runs must be dropped, the others kept
+        assertEquals(describe(plain, false), describe(mixed, true));
+    }
+
+    @Test
+    public void testArcsStayWithinTolerance() {
+
+        ArcTessellator tessellator = new ArcTessellator();
+        CoordinateBuffer points = new CoordinateBuffer();
+        double tolerance = 0.4;
+
+        for (double radius : new double[]{1, 10, 400, 12_000}) {
+            for (double sweep : new double[]{-270, -45, 90, 360}) {
+                int count = tessellator.tessellate(100, 50, 100 + radius, 50, sweep, tolerance, points);
+                assertTrue(count > 0);
+
+                double previousX = 100 + radius;
+                double previousY = 50;
+                for (int i = 0; i < count; i++) {
+                    assertEquals(radius, Math.hypot(points.x(i) - 100, points.y(i) - 50), 1e-9 * radius);
+                    // The chord midpoint is the point furthest from the arc
+                    double midX = (previousX + points.x(i)) / 2;
+                    double midY = (previousY + points.y(i)) / 2;
+                    assertTrue(radius - Math.hypot(midX - 100, midY - 50) <= tolerance + 1e-9);
+                    previousX = points.x(i);
+                    previousY = points.y(i);
+                }
+
+                double end = Math.toRadians(sweep);
+                assertEquals(100 + radius * Math.cos(end), points.x(count - 1), 1e-9 * radius);
+                assertEquals(50 + radius * Math.sin(end), points.y(count - 1), 1e-9 * radius);
+            }
+        }
+
+        // Larger radii need more chords for the same tolerance
+        assertTrue(ArcTessellator.segmentCount(10, Math.PI, tolerance)
+                < ArcTessellator.segmentCount(10_000, Math.PI, tolerance));
+    }
+
+    @Test
+    public void testArcAndCircleCommands() throws Exception {
+
+        PieceSequenceNumberCreator.resetCounter();
+        HPGLFileProcessor processor = new HPGLFileProcessor(
+                "IN;PA;PU0,0;PD;AR0,400,90;PR0,-400;PU;AA800,0,90;PA;PU1000,1000;CI200;");
+        processor.startFileProcessing();
+
+        List<Point2D> starts = new ArrayList<>();
+        processor.getPolylines().forEach(polyline -> {
+            for (int k = 0; k < polyline.segmentCount(); k++) {
+                starts.add(new Point2D(polyline.startX(k), polyline.startY(k)));
+            }
+        });
+        Point2D lastStart = starts.get(starts.size() - 1);
+
+        // AR from (0,0) around (0,400) ends at (400,400); PR then draws down to (400,0)
+        assertTrue(starts.stream().anyMatch(start -> Math.abs(start.getX() - processor.scale(400)) < 1e-9
+                && Math.abs(start.getY() - processor.scale(400)) < 1e-9));
+        assertTrue(starts.stream().anyMatch(start -> Math.abs(start.getX() - processor.scale(400)) < 1e-9
+                && Math.abs(start.getY()) < 1e-9));
+
+        // The pen-up AA only moves the pen, so the circle closes on its own start point (1200,1000)
+        assertEquals(processor.scale(1200), lastStart.getX(), 1e-9);
+        assertEquals(processor.scale(1000), lastStart.getY(), 1e-9);
+        starts.stream()
+                .filter(start -> start.getX() > processor.scale(700))
+                .forEach(start -> assertEquals(processor.scale(200),
+                        start.distance(processor.scale(1000), processor.scale(1000)), 1e-9));
+    }
+
+    /**
+     * Rewrites the PU/PD coordinates so that runs of commands alternate between PA and PR mode.
+     */
+    private static String toMixedPlotModes(String hpgl) {
+        StringBuilder out = new StringBuilder();
+        long penX = 0;
+        long penY = 0;
+        int plotCommands = 0;
+        boolean relative = false;
+
+        for (String command : hpgl.split(";", -1)) {
+            String trimmed = command.trim();
+            boolean plot = trimmed.startsWith("PU") || trimmed.startsWith("PD");
+
+            if (!plot || trimmed.length() == 2) {
+                out.append(command).append(';');
+                continue;
+            }
+
+            boolean useRelative = (plotCommands++ / MODE_RUN_LENGTH) % 2 == 1;
+            if (useRelative != relative) {
+                out.append(useRelative ? "PR;" : "PA;");
+                relative = useRelative;
+            }
+
+            String[] values = trimmed.substring(2).split(",");
+            out.append(trimmed, 0, 2);
+            for (int i = 0; i + 1 < values.length; i += 2) {
+                long x = Long.parseLong(values[i].trim());
+                long y = Long.parseLong(values[i + 1].trim());
+                out.append(i == 0 ? "" : ",")
+                        .append(relative ? x - penX : x).append(',')
+                        .append(relative ? y - penY : y);
+                penX = x;
+                penY = y;
+            }
+            out.append(';');
+        }
+        return out.toString();
+    }
+
+    private static String describe(String hpgl, boolean parallel) throws Exception {
+        PieceSequenceNumberCreator.resetCounter();
+        FileProcessor processor = new HPGLFileProcessor(ByteBuffer.wrap(hpgl.getBytes(StandardCharsets.ISO_8859_1)));
+        processor.setParallelParsing(parallel);
+        processor.startFileProcessing();
+
+        StringBuilder sb = new StringBuilder();
+        processor.getShapes().forEach(shape -> sb.append(shape.getId()).append(LineText.of(shape.getPolyline())).append('\n'));
+        processor.getSortedAndOptimizedLbls().forEach(lbl -> sb.append(lbl.getText()).append(lbl.getPosition())
+                .append(lbl.getAngle()).append(lbl.getWidth()).append(lbl.getHeight()).append('\n'));
+        return sb.toString();
+    }
+}
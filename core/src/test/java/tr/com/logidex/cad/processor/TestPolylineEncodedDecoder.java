@@ -0,0 +1,134 @@
+package tr.com.logidex.cad.processor;
+
+import org.junit.jupiter.api.Test;
+import tr.com.logidex.cad.helper.PieceSequenceNumberCreator;
+import tr.com.logidex.cad.model.LineText;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class TestPolylineEncodedDecoder {
+
+
+    @Test
+    public void testDecodesBothBasesAndFlags() {
+
+        PolylineEncodedDecoder decoder = new PolylineEncodedDecoder();
+        Random random = new Random(42);
+
+        for (boolean sevenBit : new boolean[]{false, true}) {
+            for (int round = 0; round < 1000; round++) {
+                long x = random.nextInt(2_000_001) - 1_000_000;
+                long y = random.nextInt(2_000_001) - 1_000_000;
+                int fractionalBits = random.nextInt(4);
+
+                String data = (sevenBit ? "7" : "")
+                        + ":" + encode(2, sevenBit)
+                        + ">" + encode(fractionalBits, sevenBit)
+                        + "<=" + encode(x, sevenBit) + encode(y, sevenBit)
+                        + encode(-x, sevenBit) + encode(y, sevenBit);
+
+                assertEquals(2, decoder.decode(data, 0, data.length()), data);
+                double divisor = 1 << fractionalBits;
+                assertEquals(x / divisor, decoder.x(0));
+                assertEquals(y / divisor, decoder.y(0));
+                assertTrue(decoder.isPenUp(0));
+                assertTrue(decoder.isAbsolute(0));
+                assertEquals(-x / divisor, decoder.x(1));
+                assertFalse(decoder.isPenUp(1));
+                assertFalse(decoder.isAbsolute(1));
+            }
+        }
+    }
+
+    @Test
+    public void testStopsAtTruncatedNumber() {
+
+        PolylineEncodedDecoder decoder = new PolylineEncodedDecoder();
+        String data = encode(10, false) + encode(20, false) + encode(30, false);
+
+        // The third value has no partner, and a cut-off digit run is not a number
+        assertEquals(1, decoder.decode(data, 0, data.length()));
+        assertEquals(0, decoder.decode("??", 0, 2));
+    }
+
+    @Test
+    public void testEncodedMarkerMatchesPlainMarker() throws Exception {
+
+        String plain = Files.readString(Path.of("test.hpgl"), StandardCharsets.ISO_8859_1);
+
+        assertEquals(describe(plain), describe(toPolylineEncoded(plain, false)));
+        assertEquals(describe(plain), describe(toPolylineEncoded(plain, true)));
+    }
+
+    /**
+     * Rewrites every PU/PD run as PE: pen-up moves absolute, pen-down moves relative.
+     */
+    private static String toPolylineEncoded(String hpgl, boolean sevenBit) {
+        StringBuilder out = new StringBuilder();
+        long penX = 0;
+        long penY = 0;
+
+        for (String command : hpgl.split(";", -1)) {
+            String trimmed = command.trim();
+            boolean penUp = trimmed.startsWith("PU");
+            boolean penDown = trimmed.startsWith("PD");
+
+            if ((!penUp && !penDown) || trimmed.length() == 2) {
+                out.append(command).append(';');
+                continue;
+            }
+
+            String[] values = trimmed.substring(2).split(",");
+            out.append("PE").append(sevenBit ? "7" : "");
+            for (int i = 0; i + 1 < values.length; i += 2) {
+                long x = Long.parseLong(values[i].trim());
+                long y = Long.parseLong(values[i + 1].trim());
+                if (penUp) {
+                    out.append("<=").append(encode(x, sevenBit)).append(encode(y, sevenBit));
+                } else {
+                    out.append(encode(x - penX, sevenBit)).append(encode(y - penY, sevenBit));
+                }
+                penX = x;
+                penY = y;
+            }
+            out.append(';');
+        }
+        return out.toString();
+    }
+
+    private static String describe(String hpgl) throws Exception {
+        PieceSequenceNumberCreator.resetCounter();
+        FileProcessor processor = new HPGLFileProcessor(ByteBuffer.wrap(hpgl.getBytes(StandardCharsets.ISO_8859_1)));
+        processor.startFileProcessing();
+
+        StringBuilder sb = new StringBuilder();
+        processor.getShapes().forEach(shape -> sb.append(shape.getId()).append(LineText.of(shape.getPolyline())).append('\n'));
+        processor.getSortedAndOptimizedLbls().forEach(lbl -> sb.append(lbl.getText()).append(lbl.getPosition()).append('\n'));
+        return sb.toString();
+    }
+
+    /**
+     * Encodes one value the way the HP-GL/2 reference describes: sign in bit 0, least significant digit first.
+     */
+    private static String encode(long value, boolean sevenBit) {
+        int base = sevenBit ? 32 : 64;
+        int terminator = sevenBit ? 95 : 191;
+        long magnitude = value < 0 ? (-value << 1) | 1 : value << 1;
+
+        StringBuilder sb = new StringBuilder();
+        while (magnitude >= base) {
+            sb.append((char) (63 + magnitude % base));
+            magnitude /= base;
+        }
+        return sb.append((char) (terminator + magnitude)).toString();
+    }
+}
@@ -0,0 +1,62 @@
+package tr.com.logidex.cad.processor;
+
+import org.junit.jupiter.api.Test;
+import tr.com.logidex.cad.helper.PieceSequenceNumberCreator;
+import tr.com.logidex.cad.model.LineText;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+
+public class TestStreamedProcessing {
+
+    // Far smaller than the sample files, so commands and pieces straddle many window boundaries
+    private static final int SMALL_WINDOW_SIZE = 256;
+
+
+    @Test
+    public void testHPGLStreamMatchesMappedFile() throws Exception {
+        assertStreamMatches(Path.of("test.hpgl"), HPGLFileProcessor::new, HPGLFileProcessor::new);
+    }
+
+    @Test
+    public void testGerberStreamMatchesMappedFile() throws Exception {
+        assertStreamMatches(Path.of("GEMINI.cut"), GerberFileProcessor::new, GerberFileProcessor::new);
+    }
+
+    @Test
+    public void testGGTStreamMatchesMappedFile() throws Exception {
+        assertStreamMatches(Path.of("ggttest.ggt"), GGTFileProcessor::new, GGTFileProcessor::new);
+    }
+
+    private static void assertStreamMatches(Path path, Function<String, FileProcessor> fromString,
+                                            Function<InputStream, FileProcessor> fromStream) throws Exception {
+        PieceSequenceNumberCreator.resetCounter();
+        FileProcessor expected = fromString.apply(Files.readString(path, StandardCharsets.ISO_8859_1));
+        expected.startFileProcessing();
+
+        PieceSequenceNumberCreator.resetCounter();
+        FileProcessor actual;
+        try (InputStream in = Files.newInputStream(path)) {
+            actual = fromStream.apply(in);
+            actual.streamWindowSize = SMALL_WINDOW_SIZE;
+            actual.startFileProcessing();
+        }
+
+        assertEquals(describe(expected), describe(actual));
+    }
+
+    private static String describe(FileProcessor fileProcessor) {
+        StringBuilder sb = new StringBuilder();
+        fileProcessor.getShapes().forEach(shape -> sb.append(shape.getId()).append(LineText.of(shape.getPolyline())).append('\n'));
+        fileProcessor.getSortedAndOptimizedLbls().forEach(lbl -> sb.append(lbl.getText()).append(lbl.getPosition())
+                .append(lbl.getAngle()).append(lbl.getWidth()).append(lbl.getHeight()).append('\n'));
+        sb.append(fileProcessor.getDrawingDimensions());
+        return sb.toString();
+    }
+}
@@ -0,0 +1,8 @@
+module tr.com.logidex.cad.logidexcadinterpreter.ui {
+    requires tr.com.logidex.cad.logidexcadinterpreter;
+    requires javafx.controls;
+    requires javafx.fxml;
+
+    opens tr.com.logidex.cad.fx to javafx.fxml;
+    exports tr.com.logidex.cad.fx;
+}
@@ -0,0 +1,49 @@
+package tr.com.logidex.cad.fx;
+
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Line;
+import tr.com.logidex.cad.model.ClosedShape;
+import tr.com.logidex.cad.model.PackedPolyline;
+import tr.com.logidex.cad.model.ShapeColor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts the core's toolkit-free geometry into JavaFX nodes and values for drawing.
+ */
+public class FxGeometry {
+
+    // Prevent instantiation
+    private FxGeometry() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    /**
+     * Creates one Line per segment, in the order and direction the polyline stores them.
+     *
+     * @param polyline The polyline to expand
+     * @return A new list of lines; changing it does not affect the polyline
+     */
+    public static List<Line> toLines(PackedPolyline polyline) {
+        List<Line> lines = new ArrayList<>(polyline.segmentCount());
+        for (int k = 0; k < polyline.segmentCount(); k++) {
+            lines.add(new Line(polyline.startX(k), polyline.startY(k), polyline.endX(k), polyline.endY(k)));
+        }
+        return lines;
+    }
+
+    public static List<Line> toLines(ClosedShape shape) {
+        return toLines(shape.getPolyline());
+    }
+
+    /**
+     * @return The equivalent JavaFX color, or null for null
+     */
+    public static Color toColor(ShapeColor color) {
+        if (color == null) {
+            return null;
+        }
+        return Color.color(color.getRed(), color.getGreen(), color.getBlue(), color.getOpacity());
+    }
+}
@@ -0,0 +1,86 @@
+package tr.com.logidex.cad.fx;
+
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.ReadOnlyStringProperty;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.beans.property.SimpleObjectProperty;
+import tr.com.logidex.cad.geometry.Point2D;
+import tr.com.logidex.cad.model.Lbl;
+import tr.com.logidex.cad.model.SourceFile;
+
+import java.util.function.Consumer;
+
+/**
+ * Observable views of model state for UI bindings. The core keeps plain fields and a listener;
+ * the property is created on the first call and kept in that listener, so repeated calls return
+ * the same property and objects that are never shown carry none.
+ */
+public class FxProperties {
+
+    // Prevent instantiation
+    private FxProperties() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    // ==================== Labels ====================
+
+    /**
+     * The label's position as a property. Setting either one updates the other.
+     */
+    public static ObjectProperty<Point2D> positionProperty(Lbl label) {
+        if (label.getPositionListener() instanceof PositionBinding binding) {
+            return binding.property;
+        }
+
+        PositionBinding binding = new PositionBinding(new SimpleObjectProperty<>(label, "position", label.getPosition()));
+        binding.property.addListener((observable, oldPosition, newPosition) -> {
+            if (!newPosition.equals(label.getPosition())) {
+                label.setPosition(newPosition);
+            }
+        });
+        label.setPositionListener(binding);
+        return binding.property;
+    }
+
+    private static final class PositionBinding implements Consumer<Point2D> {
+        private final ObjectProperty<Point2D> property;
+
+        private PositionBinding(ObjectProperty<Point2D> property) {
+            this.property = property;
+        }
+
+        @Override
+        public void accept(Point2D position) {
+            property.set(position);
+        }
+    }
+
+    // ==================== Source Files ====================
+
+    /**
+     * The name of the file the source file last processed or restored, as a read-only property.
+     */
+    public static ReadOnlyStringProperty activeFileNameProperty(SourceFile sourceFile) {
+        if (sourceFile.getActiveFileNameListener() instanceof FileNameBinding binding) {
+            return binding.property.getReadOnlyProperty();
+        }
+
+        FileNameBinding binding = new FileNameBinding(
+                new ReadOnlyStringWrapper(sourceFile, "activeFileName", sourceFile.getActiveFileName()));
+        sourceFile.setActiveFileNameListener(binding);
+        return binding.property.getReadOnlyProperty();
+    }
+
+    private static final class FileNameBinding implements Consumer<String> {
+        private final ReadOnlyStringWrapper property;
+
+        private FileNameBinding(ReadOnlyStringWrapper property) {
+            this.property = property;
+        }
+
+        @Override
+        public void accept(String name) {
+            property.set(name);
+        }
+    }
+}
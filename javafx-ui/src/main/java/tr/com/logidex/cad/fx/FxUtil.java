@@ -0,0 +1,158 @@
+package tr.com.logidex.cad.fx;
+
+import javafx.application.Platform;
+import javafx.scene.control.Alert;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.WritableImage;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Line;
+import javafx.scene.shape.Polygon;
+import javafx.scene.shape.Rectangle;
+import tr.com.logidex.cad.model.CoordinateBounds;
+import tr.com.logidex.cad.processor.FileProcessor;
+
+import java.util.List;
+
+/**
+ * JavaFX helpers that used to live in the core's Util:
+ * - Image generation from line data
+ * - Dialogs for warnings raised while processing
+ */
+public class FxUtil {
+
+    // Prevent instantiation
+    private FxUtil() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    // ==================== Dialogs ====================
+
+    /**
+     * Shows the overlap warning of FileProcessor in a warning dialog instead of printing it.
+     * The dialog is opened on the FX application thread, whichever thread processed the file.
+     */
+    public static void installOverlapWarningDialog() {
+        FileProcessor.overlapWarningHandler = message -> {
+            Runnable show = () -> {
+                Alert alert = new Alert(Alert.AlertType.WARNING);
+                alert.setHeaderText("WARNING!");
+                alert.setContentText(message);
+                alert.showAndWait();
+            };
+            if (Platform.isFxApplicationThread()) {
+                show.run();
+            } else {
+                Platform.runLater(show);
+            }
+        };
+    }
+
+    // ==================== Image Operations ====================
+
+    /**
+     * Creates an ImageView from a list of lines representing a shape.
+     * The image is scaled to fit within the specified maximum dimensions.
+     *
+     * @param lines The lines forming the shape
+     * @param maxWidth Maximum width for the image
+     * @param maxHeight Maximum height for the image
+     * @return An ImageView containing the rendered shape
+     */
+    public static ImageView createImageViewFromLines(List<Line> lines, double maxWidth, double maxHeight) {
+        Pane pane = createPaneWithBackground(maxWidth, maxHeight);
+        CoordinateBounds bounds = findMinMaxCoordinates(lines);
+
+        if (bounds == null) {
+            return createEmptyImageView(maxWidth, maxHeight);
+        }
+
+        Polygon polygon = createPolygonFromLines(lines, bounds);
+        pane.getChildren().add(polygon);
+
+        return createImageViewFromPane(pane, maxWidth, maxHeight);
+    }
+
+    private static Pane createPaneWithBackground(double width, double height) {
+        Pane pane = new Pane();
+        Rectangle background = new Rectangle(width, height);
+        background.setFill(Color.TRANSPARENT);
+        return pane;
+    }
+
+    private static Polygon createPolygonFromLines(List<Line> lines, CoordinateBounds bounds) {
+        Polygon polygon = new Polygon();
+
+        for (Line line : lines) {
+            double x1 = line.getStartX() - bounds.getMinX();
+            double y1 = line.getStartY() - bounds.getMinY();
+            double x2 = line.getEndX() - bounds.getMinX();
+            double y2 = line.getEndY() - bounds.getMinY();
+
+            polygon.getPoints().addAll(x2, y2, x1, y1);
+        }
+
+        polygon.setScaleY(-1); // Flip vertically
+        return polygon;
+    }
+
+    private static ImageView createImageViewFromPane(Pane pane, double maxWidth, double maxHeight) {
+        WritableImage writableImage = pane.snapshot(null, null);
+        ImageView imageView = new ImageView(writableImage);
+
+        imageView.setPreserveRatio(true);
+        imageView.setFitWidth(maxWidth);
+        imageView.setFitHeight(maxHeight);
+
+        return imageView;
+    }
+
+    private static ImageView createEmptyImageView(double maxWidth, double maxHeight) {
+        ImageView imageView = new ImageView();
+        imageView.setFitWidth(maxWidth);
+        imageView.setFitHeight(maxHeight);
+        return imageView;
+    }
+
+    public static Polygon producePolygon(List<Line> lines) {
+        Polygon polygon = new Polygon();
+
+
+        for (Line line : lines) {
+            polygon.getPoints().add(line.getStartX());
+            polygon.getPoints().add(line.getStartY());
+            polygon.getPoints().add(line.getEndX());
+            polygon.getPoints().add(line.getEndY());
+        }
+        return polygon;
+    }
+
+    // ==================== Coordinate Operations ====================
+
+    /**
+     * Finds the minimum and maximum coordinates from a list of lines.
+     *
+     * @param lines The lines to analyze
+     * @return A CoordinateBounds object containing min/max coordinates, or null if list is empty
+     */
+    public static CoordinateBounds findMinMaxCoordinates(List<Line> lines) {
+        if (lines == null || lines.isEmpty()) {
+            return null;
+        }
+
+        Line firstLine = lines.get(0);
+        double minX = firstLine.getStartX();
+        double minY = firstLine.getStartY();
+        double maxX = firstLine.getStartX();
+        double maxY = firstLine.getStartY();
+
+        for (Line line : lines) {
+            minX = Math.min(minX, Math.min(line.getStartX(), line.getEndX()));
+            minY = Math.min(minY, Math.min(line.getStartY(), line.getEndY()));
+            maxX = Math.max(maxX, Math.max(line.getStartX(), line.getEndX()));
+            maxY = Math.max(maxY, Math.max(line.getStartY(), line.getEndY()));
+        }
+
+        return new CoordinateBounds(minX, minY, maxX, maxY);
+    }
+}
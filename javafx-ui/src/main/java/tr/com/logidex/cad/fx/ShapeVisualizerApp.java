@@ -1,9 +1,8 @@
-package tr.com.logidex.cad;
+package tr.com.logidex.cad.fx;
 
 import javafx.animation.AnimationTimer;
 import javafx.application.Application;
 import javafx.geometry.Insets;
-import javafx.geometry.Point2D;
 import javafx.scene.Scene;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
@@ -21,6 +20,7 @@ import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Line;
 import javafx.stage.Stage;
+import tr.com.logidex.cad.geometry.Point2D;
 import tr.com.logidex.cad.model.ClosedShape;
 import tr.com.logidex.cad.processor.FileProcessor;
 import tr.com.logidex.cad.processor.HPGLFileProcessor;
@@ -107,6 +107,7 @@ public class ShapeVisualizerApp extends Application {
         root.setBottom(createStatusBar());
 
         // NOW load and initialize shapes (after UI components are created)
+        FxUtil.installOverlapWarningDialog();
         FileProcessor fileProcessor = new HPGLFileProcessor(Files.readString(Path.of("AG-1009-2.plt"), StandardCharsets.UTF_8));
         fileProcessor.startFileProcessing();
         setShapes(fileProcessor.getShapes());
@@ -268,7 +269,7 @@ public class ShapeVisualizerApp extends Application {
                         System.out.println("Shape ID: " + clickedShape.getId());
                         System.out.println("Label: " + clickedShape.getLabel());
                         System.out.println("Center: " + clickedShape.getCenter());
-                        System.out.println("Number of lines: " + clickedShape.getLines().size());
+                        System.out.println("Number of lines: " + FxGeometry.toLines(clickedShape).size());
                         System.out.println("Bounds: " + clickedShape.getBounds());
                         System.out.println("======================");
                     }
@@ -333,7 +334,7 @@ public class ShapeVisualizerApp extends Application {
             ClosedShape shape = shapes.get(i);
 
             // Check if click is near any line in this shape
-            for (Line line : shape.getLines()) {
+            for (Line line : FxGeometry.toLines(shape)) {
                 double distance = distanceToLineSegment(
                         clickPoint,
                         new Point2D(line.getStartX(), line.getStartY()),
@@ -431,7 +432,7 @@ public class ShapeVisualizerApp extends Application {
         double maxY = Double.MIN_VALUE;
 
         for (ClosedShape shape : shapes) {
-            for (Line line : shape.getLines()) {
+            for (Line line : FxGeometry.toLines(shape)) {
                 minX = Math.min(minX, Math.min(line.getStartX(), line.getEndX()));
                 minY = Math.min(minY, Math.min(line.getStartY(), line.getEndY()));
                 maxX = Math.max(maxX, Math.max(line.getStartX(), line.getEndX()));
@@ -493,7 +494,7 @@ public class ShapeVisualizerApp extends Application {
         if (shapes == null) return;
 
         for (ClosedShape shape : shapes) {
-            for (Line line : shape.getLines()) {
+            for (Line line : FxGeometry.toLines(shape)) {
                 allLines.add(new LineWithShape(line, shape));
             }
         }
@@ -585,7 +586,7 @@ public class ShapeVisualizerApp extends Application {
         // Draw completed shapes in their normal color (faded)
         for (int i = 0; i < currentLineIndex; i++) {
             LineWithShape lws = allLines.get(i);
-            Color color = lws.shape.getColor();
+            Color color = FxGeometry.toColor(lws.shape.getColor());
             if (color == null) {
                 color = Color.rgb(100, 150, 255, 0.3);
             } else {
@@ -660,7 +661,7 @@ public class ShapeVisualizerApp extends Application {
     }
 
     private void drawShape(ClosedShape shape) {
-        Color color = shape.getColor();
+        Color color = FxGeometry.toColor(shape.getColor());
         if (color == null) {
             color = Color.rgb(100, 150, 255, 0.5);
         }
@@ -669,7 +670,7 @@ public class ShapeVisualizerApp extends Application {
 
         // If fillShapes is enabled, fill the polygon
         if (fillShapes) {
-            List<Line> lines = shape.getLines();
+            List<Line> lines = FxGeometry.toLines(shape);
             if (lines.size() >= 3) {
                 // Build polygon points from lines
                 double[] xPoints = new double[lines.size()];
@@ -697,7 +698,7 @@ public class ShapeVisualizerApp extends Application {
         gc.setStroke(strokeColor);
         gc.setLineWidth(lineWidth);
 
-        List<Line> lines = shape.getLines();
+        List<Line> lines = FxGeometry.toLines(shape);
         for (Line line : lines) {
             double x1 = transformX(line.getStartX());
             double y1 = transformY(line.getStartY());
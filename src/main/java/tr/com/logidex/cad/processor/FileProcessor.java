@@ -1,647 +0,0 @@
-package tr.com.logidex.cad.processor;
-
-import javafx.geometry.Dimension2D;
-import javafx.geometry.Point2D;
-import javafx.scene.control.Alert;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Line;
-import tr.com.logidex.cad.*;
-import tr.com.logidex.cad.helper.LabelGroupingManager;
-import tr.com.logidex.cad.model.ClosedShape;
-import tr.com.logidex.cad.model.Lbl;
-
-import java.util.*;
-import java.util.stream.Collectors;
-
-import static tr.com.logidex.cad.SvgGenerationService.generateSvgForShape;
-
-/**
- * Abstract base class for processing CAD files of different formats.
- * Handles common operations like shape creation, label organization, and transformations.
- */
-public sealed abstract class FileProcessor permits GerberFileProcessor,GGTFileProcessor,HPGLFileProcessor {
-
-    // Constants
-    public static final String REFERENCE_SIGN = "+";
-    private static final double DRAWING_SPLIT_WIDTH = 50;
-    private static final double PLOTTER_SCALE = 40;
-
-    // Static state
-    public static Unit unit;
-    public static PlotterScale plotterScale = PlotterScale.DEFAULT;
-
-    // Collections
-    private List<Lbl> sortedAndOptimizedLbls = new ArrayList<>();
-    private List<ClosedShape> shapes = new ArrayList<>();
-    protected List<Lbl> labels = new ArrayList<>();
-    private List<Lbl> sortedLbls = new ArrayList<>();
-    List<Line> lines = new ArrayList<>();
-    protected List<String> commands;
-    protected HashMap<Integer, List<Line>> linesForClosedShapes = new HashMap<>();
-
-    // Configuration
-    protected List<String> UNWANTED_CHARS;
-    protected String SPLIT_REGEX;
-
-    // State
-    public Dimension2D drawingDimensions = new Dimension2D(0, 0);
-    private String fileContent;
-    private final LabelGroupingManager labelGroupingManager = new LabelGroupingManager();
-    private final List<GGTPattern> GGTParcalar = new ArrayList<>();
-    private FlipHorizontally flipHorizontally = FlipHorizontally.NO;
-    private FlipVertically flipVertically = FlipVertically.NO;
-    private boolean err = false;
-
-    public FileProcessor(String fileContent) {
-        this.fileContent = fileContent;
-        initUnwantedChars();
-        initSplitRegex();
-    }
-
-
-
-
-
-    // ==================== Abstract Methods ====================
-
-    protected abstract void initUnwantedChars();
-
-    protected abstract void initSplitRegex();
-
-    protected abstract void interpretCommands();
-
-    // ==================== Public API ====================
-
-    public void startFileProcessing() throws Exception {
-        try {
-            splitCommands();
-            removeUnwantedCharacters();
-            interpretCommands();
-            determineDrawingDimension();
-            groupSortLabelsAndOptimizeRoutes(FlipHorizontally.NO, FlipVertically.NO);
-            createPieces();
-            removeTheLabelsWithoutPattern();
-            mergeLabelsIfPatternHasTwoLabels();
-            checkOverlapError();
-        } catch (Exception e) {
-            e.printStackTrace();
-            throw new Exception("Error occurred during file processing \n" + e.getMessage());
-        }
-    }
-
-    public void invertFlipH() {
-        flipHorizontally = flipHorizontally == FlipHorizontally.YES ? FlipHorizontally.NO : FlipHorizontally.YES;
-
-        if (this instanceof GGTFileProcessor) {
-            flipShapes(Flipping.HORIZONTAL);
-        } else {
-            groupSortLabelsAndOptimizeRoutes(flipHorizontally, flipVertically);
-            flipShapes(Flipping.HORIZONTAL);
-            mergeLabelsWithSameShape();
-            removeTheLabelsWithoutPattern();
-
-
-        }
-    }
-
-    public void invertFlipV() {
-        flipVertically = flipVertically == FlipVertically.YES ? FlipVertically.NO : FlipVertically.YES;
-
-        if (this instanceof GGTFileProcessor) {
-            flipShapes(Flipping.VERTICAL);
-        } else {
-            groupSortLabelsAndOptimizeRoutes(flipHorizontally, flipVertically);
-            flipShapes(Flipping.VERTICAL);
-            mergeLabelsWithSameShape();
-            removeTheLabelsWithoutPattern();
-
-
-        }
-    }
-
-    public void clearAll() {
-        commands = null;
-        linesForClosedShapes = null;
-        sortedAndOptimizedLbls = null;
-        shapes = null;
-        labels = null;
-        sortedLbls = null;
-        lines = null;
-        fileContent = null;
-        labelGroupingManager.clear();
-    }
-
-    // ==================== Getters ====================
-
-    public List<ClosedShape> getShapes() {
-        return shapes;
-    }
-
-    public LabelGroupingManager getLabelGroupingManager() {
-        return labelGroupingManager;
-    }
-
-
-    public List<Lbl> getSortedAndOptimizedLbls() {
-        return sortedAndOptimizedLbls;
-    }
-
-    public List<Line> getLines() {
-        return lines;
-    }
-
-    public Dimension2D getDrawingDimensions() {
-        return drawingDimensions;
-    }
-
-    public List<GGTPattern> getGGTParcalar() {
-        return GGTParcalar;
-    }
-
-    public String getPrintableDimensions() {
-        String formattedW = String.format("%.2f", drawingDimensions.getWidth());
-        String formattedH = String.format("%.2f", drawingDimensions.getHeight());
-        return "L: " + formattedW + ", W: " + formattedH;
-    }
-
-    public FlipHorizontally getFlipHorizontally() {
-        return flipHorizontally;
-    }
-
-    public FlipVertically getFlipVertically() {
-        return flipVertically;
-    }
-
-    // ==================== Processing Methods ====================
-
-    protected void splitCommands() {
-        commands = new ArrayList<>(Arrays.asList(fileContent.split(SPLIT_REGEX)));
-        fileContent = null;
-    }
-
-    protected void removeUnwantedCharacters() {
-        commands.removeAll(UNWANTED_CHARS);
-    }
-
-    protected void determineDrawingDimension() {
-        drawingDimensions = calculateDrawingDimensions(lines);
-    }
-
-    protected Dimension2D calculateDrawingDimensions(List<Line> lines) {
-        double lengthOfTheDrawing = 0;
-        double widthOfTheDrawing = 0;
-
-        for (Line line : lines) {
-            if (line.getEndX() > lengthOfTheDrawing) {
-                lengthOfTheDrawing = line.getEndX();
-            }
-            if (line.getEndY() > widthOfTheDrawing) {
-                widthOfTheDrawing = line.getEndY();
-            }
-        }
-
-        return new Dimension2D(lengthOfTheDrawing, widthOfTheDrawing);
-    }
-
-    protected double getMinPosInX() {
-        double xMin = Double.MAX_VALUE;
-        for (Line line : lines) {
-            if (line.getStartX() < xMin) {
-                xMin = line.getStartX();
-            }
-        }
-        return xMin;
-    }
-
-    protected double scale(double number) {
-        return number / PLOTTER_SCALE * plotterScale.getValue();
-    }
-
-    // ==================== Label Management ====================
-
-    public void groupSortLabelsAndOptimizeRoutes(FlipHorizontally flipH, FlipVertically flipV) {
-        if (!labels.isEmpty()) {
-            double minPosX = getMinPosInX();
-            double width = drawingDimensions.getWidth();
-            double height = drawingDimensions.getHeight();
-            sortedLbls = labelGroupingManager.groupAndSortLabels(labels, minPosX, width, height, flipH, flipV);
-            sortedAndOptimizedLbls = organizeLabels(sortedLbls, drawingDimensions.getWidth(), DRAWING_SPLIT_WIDTH);
-            addReferenceLabelToTheFinalList();
-        }
-    }
-
-    private void removeTheLabelsWithoutPattern() {
-
-        var listToRemove = sortedAndOptimizedLbls.stream().filter(label -> label.getShape() == null && !label.getText().equals(REFERENCE_SIGN)).collect(Collectors.toList());
-        sortedAndOptimizedLbls.removeAll(listToRemove);
-
-    }
-
-    private void addReferenceLabelToTheFinalList() {
-        Lbl referenceLabel = new Lbl(REFERENCE_SIGN, new Point2D(0, 0), 0, 0, 0, 0);
-        sortedAndOptimizedLbls.add(0, referenceLabel);
-    }
-
-    /**
-     * Organizes labels in an optimal processing order using a snake pattern.
-     *
-     * @param labels List of labels to organize
-     * @param drawingWidth Width of the drawing area
-     * @param stripWidth Width of each vertical strip for processing
-     * @return List of labels in optimal processing order
-     */
-    public static List<Lbl> organizeLabels(List<Lbl> labels, double drawingWidth, double stripWidth) {
-        if (labels == null || labels.isEmpty()) {
-            return Collections.emptyList();
-        }
-
-        int stripCount = (int) Math.ceil(drawingWidth / stripWidth);
-        List<List<Lbl>> strips = createStrips(stripCount);
-
-        assignLabelsToStrips(labels, strips, stripWidth, stripCount);
-        sortStripsInSnakePattern(strips);
-
-        return combineStrips(strips, labels.size());
-    }
-
-    private static List<List<Lbl>> createStrips(int stripCount) {
-        List<List<Lbl>> strips = new ArrayList<>(stripCount);
-        for (int i = 0; i < stripCount; i++) {
-            strips.add(new ArrayList<>());
-        }
-        return strips;
-    }
-
-    private static void assignLabelsToStrips(List<Lbl> labels, List<List<Lbl>> strips,
-                                             double stripWidth, int stripCount) {
-        for (Lbl label : labels) {
-            if (label == null) {
-                continue;
-            }
-
-            double x = label.getPosition().getX();
-            int stripIndex = (int) (x / stripWidth);
-
-            if (stripIndex == stripCount) {
-                stripIndex = stripCount - 1;
-            }
-
-            if (stripIndex >= 0 && stripIndex < stripCount) {
-                strips.get(stripIndex).add(label);
-            }
-        }
-    }
-
-    private static void sortStripsInSnakePattern(List<List<Lbl>> strips) {
-        for (int i = 0; i < strips.size(); i++) {
-            Collections.sort(strips.get(i), Comparator.comparingDouble(l -> l.getPosition().getY()));
-
-            if (i % 2 == 1) {
-                Collections.reverse(strips.get(i));
-            }
-        }
-    }
-
-    private static List<Lbl> combineStrips(List<List<Lbl>> strips, int estimatedSize) {
-        List<Lbl> result = new ArrayList<>(estimatedSize);
-        for (List<Lbl> strip : strips) {
-            result.addAll(strip);
-        }
-        return result;
-    }
-
-    /**
-     * Finds labels bound to the same shape and merges them.
-     */
-    public void mergeLabelsWithSameShape() {
-
-
-        Map<ClosedShape, List<Lbl>> duplicatedShapes = sortedAndOptimizedLbls.stream()
-                .filter(lbl -> lbl.getShape() != null)
-                .collect(Collectors.groupingBy(Lbl::getShape));
-
-        List<Lbl> toRemove = new ArrayList<>();
-
-        duplicatedShapes.forEach((shape, lblList) -> {
-            if (lblList.size() > 1) {
-                Lbl longest = lblList.stream()
-                        .max(Comparator.comparingInt(lbl -> lbl.getText().length()))
-                        .orElse(lblList.get(0));
-
-                lblList.stream()
-                        .filter(lbl -> lbl != longest)
-                        .forEach(shortLbl -> {
-                            String currentText = longest.getText();
-                            String textToAdd = shortLbl.getText();
-                            longest.setText(currentText + "\n" + textToAdd);
-                            toRemove.add(shortLbl);
-                        });
-            }
-        });
-
-        sortedAndOptimizedLbls.removeAll(toRemove);
-    }
-
-    public void mergeLabelsIfPatternHasTwoLabels() {
-
-
-
-        System.out.println("mergeLabelsIfPatternHasTwoLabels");
-
-        List<Lbl> notHaveAShape = sortedAndOptimizedLbls.stream()
-                .filter(lbl -> lbl.getShape() == null && !lbl.getText().equals(REFERENCE_SIGN))
-                .collect(Collectors.toList());
-
-        Map<Lbl, ClosedShape> map = findShapesForLabels(notHaveAShape);
-
-        sortedAndOptimizedLbls.removeAll(notHaveAShape);
-        mergeLabelsIntoShapes(map);
-    }
-
-    private Map<Lbl, ClosedShape> findShapesForLabels(List<Lbl> labels) {
-        Map<Lbl, ClosedShape> map = new HashMap<>();
-
-        labels.forEach(lbl -> {
-            for (ClosedShape s : shapes) {
-                if (ClosedShape.pointInPolygon(s.getLines(), lbl.getPosition())) {
-                    map.put(lbl, s);
-                    break;
-                }
-            }
-        });
-
-        return map;
-    }
-
-    private void mergeLabelsIntoShapes(Map<Lbl, ClosedShape> map) {
-        map.entrySet().forEach(entry -> {
-            Lbl existingLabel = entry.getValue().getLabel();
-
-            if (existingLabel != null) {
-                String labelText = existingLabel.getText();
-                String textToAdd = entry.getKey().getText();
-                existingLabel.setText(labelText + "\n" + textToAdd);
-            }
-        });
-    }
-
-    // ==================== Shape Management ====================
-
-    protected void createPieces() {
-        if (this instanceof GGTFileProcessor) {
-            initializeLabelsForGGT();
-        }
-
-        // Step 1: Create all shapes without label assignment
-        for (Map.Entry<Integer, List<Line>> entry : linesForClosedShapes.entrySet()) {
-            ClosedShape cs = new ClosedShape(entry.getValue(), (this instanceof GGTFileProcessor));
-
-            if (cs.isValidPiece()) {
-                cs.relocateOriginX();
-                cs.setId(entry.getKey());
-                addShapeIfUnique(cs);
-            }
-        }
-
-        // Step 2: Filter out bounding frames (only for non-GGT files)
-        if (!(this instanceof GGTFileProcessor)) {
-            filterOutBoundingFrames();
-        }
-
-        // Step 3: Assign labels to shapes
-        for (ClosedShape cs : shapes) {
-            if (this instanceof GGTFileProcessor) {
-                processGGTShape(cs);
-            } else {
-                processStandardShape(cs);
-            }
-        }
-    }
-
-    private void initializeLabelsForGGT() {
-        for (int i = 0; i < linesForClosedShapes.size() + 1; i++) {
-            labels.add(null);
-        }
-    }
-
-    private void processGGTShape(ClosedShape cs) {
-        for (GGTPattern p : getGGTParcalar()) {
-            if (cs.getId().equals(p.getId())) {
-                Lbl label = p.getLabel();
-
-                if (label != null) {
-                    label.changeLabelPosition(cs.getCenter());
-                    cs.setLabel(label);
-                    label.setShape(cs);
-                    labels.set(cs.getId(), cs.getLabel());
-                    labels.set(0, new Lbl(REFERENCE_SIGN, new Point2D(0, 0), 0, 0, 0, 0));
-                } else {
-                    continue;
-                }
-            }
-        }
-
-        sortedAndOptimizedLbls = organizeLabels(labels, drawingDimensions.getWidth(), DRAWING_SPLIT_WIDTH);
-    }
-
-    private void processStandardShape(ClosedShape cs) {
-        for (Lbl lbl : sortedAndOptimizedLbls) {
-            if (lbl == null) {
-                continue;
-            }
-
-            if (cs.pointInPolygon(cs.getLines(), lbl.getPosition()) &&
-                    cs.isCalculatedCenterPointIsInThisShape()) {
-                if (cs.getLabel() == null) {
-                    cs.setLabel(lbl);
-                    lbl.setShape(cs);
-                }
-            }
-        }
-    }
-
-    private void addShapeIfUnique(ClosedShape cs) {
-        boolean alreadyExists = false;
-
-        for (ClosedShape s : shapes) {
-            if (s.getLines().equals(cs.getLines())) {
-                alreadyExists = true;
-                break;
-            }
-        }
-
-        if (!alreadyExists) {
-            shapes.add(cs);
-        }
-    }
-
-    /**
-     * Detects and removes bounding frame rectangles that span the entire drawing area.
-     * A shape is considered a bounding frame if:
-     * - It is a simple rectangle (4 lines forming 90-degree angles)
-     * - It starts near (0,0) and extends to the maximum drawing dimensions
-     * This is a very conservative approach to avoid removing legitimate pattern pieces.
-     */
-    private void filterOutBoundingFrames() {
-        if (shapes.size() <= 1) {
-            return; // Need at least 2 shapes to detect a bounding frame
-        }
-
-        // Get the actual drawing dimensions
-        double maxX = drawingDimensions.getWidth();
-        double maxY = drawingDimensions.getHeight();
-        double tolerance = Math.max(maxX, maxY) * 0.01; // 1% tolerance for floating point comparison
-
-        List<ClosedShape> framesToRemove = new ArrayList<>();
-
-        for (ClosedShape shape : shapes) {
-            // Check if it's a rectangle spanning the full drawing area
-            if (isRectangleAtMaxBounds(shape, maxX, maxY, tolerance)) {
-                framesToRemove.add(shape);
-                System.out.println("Detected bounding frame rectangle (ID: " + shape.getId() +
-                    ") at max bounds [" + maxX + " x " + maxY + "]. Removing it.");
-            }
-        }
-
-        // Remove the detected frames
-        shapes.removeAll(framesToRemove);
-    }
-
-    /**
-     * Checks if a shape is a rectangle that spans the full drawing area.
-     *
-     * @param shape The shape to check
-     * @param maxX Maximum X coordinate of the drawing
-     * @param maxY Maximum Y coordinate of the drawing
-     * @param tolerance Tolerance for floating point comparison
-     * @return true if the shape is a bounding frame rectangle
-     */
-    private boolean isRectangleAtMaxBounds(ClosedShape shape, double maxX, double maxY, double tolerance) {
-        // First check if it's actually a rectangle (must have exactly 4 lines)
-        if (!isSimpleRectangle(shape)) {
-            return false;
-        }
-
-        // Check if bounds span nearly the full drawing area
-        javafx.geometry.BoundingBox bounds = shape.getBounds();
-
-        boolean startsNearZero = bounds.getMinX() <= tolerance && bounds.getMinY() <= tolerance;
-        boolean spansMaxX = Math.abs(bounds.getMaxX() - maxX) <= tolerance;
-        boolean spansMaxY = Math.abs(bounds.getMaxY() - maxY) <= tolerance;
-
-        return startsNearZero && spansMaxX && spansMaxY;
-    }
-
-    /**
-     * Checks if a shape is a simple rectangle with 4 lines.
-     *
-     * @param shape The shape to check
-     * @return true if the shape has exactly 4 lines (rectangle or quadrilateral)
-     */
-    private boolean isSimpleRectangle(ClosedShape shape) {
-        // A rectangle should have exactly 4 lines
-        return shape.getLines().size() == 4;
-    }
-
-    private void flipShapes(Flipping flipping) {
-        for (ClosedShape cs : shapes) {
-            cs.restoreColor();
-
-            if (flipping == Flipping.HORIZONTAL) {
-                cs.mirrorX(drawingDimensions.getWidth());
-            }
-            if (flipping == Flipping.VERTICAL) {
-                cs.mirrorY(drawingDimensions.getHeight());
-            }
-
-            if (this instanceof GGTFileProcessor) {
-                updateGGTShapeLabel(cs);
-            } else {
-                reassignLabelToShape(cs);
-            }
-        }
-
-        if (this instanceof GGTFileProcessor) {
-            sortedAndOptimizedLbls = organizeLabels(labels, drawingDimensions.getWidth(), DRAWING_SPLIT_WIDTH);
-        }
-    }
-
-    private void updateGGTShapeLabel(ClosedShape cs) {
-        Lbl currentLabel = cs.getLabel();
-        if (currentLabel != null) {
-            currentLabel.changeLabelPosition(cs.getCenter());
-            cs.setLabel(currentLabel);
-            currentLabel.setShape(cs);
-        }
-    }
-
-    private void reassignLabelToShape(ClosedShape cs) {
-        for (Lbl lbl : sortedAndOptimizedLbls) {
-            if (ClosedShape.pointInPolygon(cs.getLines(), lbl.getPosition())) {
-                cs.setLabel(lbl);
-                lbl.setShape(cs);
-            }
-        }
-    }
-
-    // ==================== Validation ====================
-
-    private void checkOverlapError() {
-        shapes.forEach((sh) -> {
-            for (int i = 0; i < shapes.size(); i++) {
-                if (!sh.equals(shapes.get(i))) {
-                    if (ClosedShape.pointInPolygon(sh.getLines(), shapes.get(i).getCenter())) {
-                        err = true;
-                    }
-                }
-            }
-        });
-
-        if (err) {
-            showOverlapWarning();
-        }
-    }
-
-    private void showOverlapWarning() {
-        Alert alert = new Alert(Alert.AlertType.WARNING);
-        alert.setHeaderText("WARNING!");
-        alert.setContentText("Ic ice gecmis parcalar var! Bir parcanin hesaplanan merkezi, baska bir parcanin da alani icerisinde kaliyor."
-                + "\n\n"
-                + "There are overlapped patterns! The calculated centroid of a pattern is falling under another pattern.");
-        alert.showAndWait();
-    }
-
-    /**
-     *
-     * @param scale must be > 0
-     * @param strokeColorName
-     * @param fillColorName
-     * @return returns the drawing in svg
-     */
-    public  String generateFullSvg(double scale,String strokeColorName,String fillColorName) {
-
-
-        if (scale <= 0){
-            scale = 1;
-        }
-
-        int width = (int) (drawingDimensions.getWidth() * scale);
-        int height = (int) (drawingDimensions.getHeight() * scale);
-
-        double finalScale = scale;
-        String svgContent = shapes.stream()
-                .map(shape -> generateSvgForShape(shape, finalScale ,strokeColorName,fillColorName))
-                .collect(Collectors.joining("\n    "));
-
-        // SVG wrapper etiketini oluştur
-        return String.format(
-                "<svg width=\"%d\" height=\"%d\" viewBox=\"0 0 %d %d\" xmlns=\"http://www.w3.org/2000/svg\">\n" +
-                        "    <!-- Ham Koordinatlarla Çizilen Şekiller -->\n" +
-                        "    %s\n" +
-                        "</svg>",
-                width, height, width, height, svgContent.trim()
-        );
-    }
-
-
-}
\ No newline at end of file